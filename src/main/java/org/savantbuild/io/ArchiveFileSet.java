@@ -16,18 +16,15 @@
 package org.savantbuild.io;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.FileTime;
-import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -170,31 +167,27 @@ public class ArchiveFileSet extends FileSet {
 
   /**
    * Overrides the parent method, but uses the {@link #dirGroupName}, {@link #dirUserName} and {@link #dirMode}
-   * variables to set the mode, userName and groupName inside the returned Directory objects.
+   * variables to set the mode, userName and groupName of the Directory.
    *
-   * @return The set of directories.
-   * @throws IOException If the build fails.
+   * @param relativeDir The path of the directory in the archive.
+   * @param originDir   The directory on the file system.
+   * @return The Directory.
+   * @throws IOException If the attributes of the directory can't be read.
    */
   @Override
-  public Set<Directory> toDirectories() throws IOException {
-    List<FileInfo> infos = toFileInfos();
-    Set<Directory> directories = new TreeSet<>();
-    for (FileInfo info : infos) {
-      Path relativeDir = info.relative.getParent();
-      Path originDir = info.origin.getParent() != null ? info.origin.getParent() : info.origin;
-      while (relativeDir != null) {
-        Integer mode = dirMode != null ? dirMode : FileTools.toHexMode(Files.getPosixFilePermissions(originDir));
-        String userName = dirUserName != null ? dirUserName : Files.getOwner(originDir).getName();
-        String groupName = dirGroupName != null ? dirGroupName : Files.readAttributes(originDir, PosixFileAttributes.class).group().getName();
-        FileTime lastModifiedTime = Files.getLastModifiedTime(originDir);
-        directories.add(new Directory(relativeDir.toString(), mode, userName, groupName, lastModifiedTime));
-
-        relativeDir = relativeDir.getParent();
-        originDir = originDir.getParent() != null ? originDir.getParent() : originDir;
-      }
+  protected Directory toDirectory(Path relativeDir, Path originDir) throws IOException {
+    Directory directory = super.toDirectory(relativeDir, originDir);
+    if (dirMode != null) {
+      directory.mode = dirMode;
+    }
+    if (dirUserName != null) {
+      directory.userName = dirUserName;
+    }
+    if (dirGroupName != null) {
+      directory.groupName = dirGroupName;
     }
 
-    return directories;
+    return directory;
   }
 
   @Override
@@ -204,7 +197,13 @@ public class ArchiveFileSet extends FileSet {
       infos.forEach((info) -> info.relative = Paths.get(prefix, info.relative.toString()));
     }
     if (mode != null) {
-      infos.forEach((info) -> info.permissions = FileTools.toPosixPermissions(FileTools.toMode(mode)));
+      // Decode the mode once, all of the FileInfos share the same permission set
+      int fileMode = FileTools.toMode(mode);
+      Set<PosixFilePermission> permissions = FileTools.toPosixPermissions(fileMode);
+      infos.forEach((info) -> {
+        info.mode = fileMode;
+        info.permissions = permissions;
+      });
     }
     if (userName != null) {
       infos.forEach((info) -> info.userName = userName);
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A local, content-addressed cache of archives. The key of each archive is a {@link Fingerprint} of everything that
+ * determines its bytes (the entry names, metadata and contents plus the builder options). When a build is requested
+ * for a fingerprint that is already in the cache, the cached archive is hard linked (or copied if links aren't
+ * supported) to the output file and the build is skipped.
+ * <p>
+ * Cached archives are shared with the output files by hard links. This is safe because the builders never modify an
+ * existing archive in place, they always delete or replace it.
+ *
+ * @author Brian Pontarelli
+ */
+public class BuildCache {
+  public final Path directory;
+
+  public BuildCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates a new fingerprint.
+   *
+   * @param type The type of the archive (i.e. <code>jar</code>), which keeps different builders from sharing keys.
+   * @return The fingerprint.
+   */
+  public static Fingerprint fingerprint(String type) {
+    return new Fingerprint().add(type);
+  }
+
+  /**
+   * Restores the archive with the given key to the target file.
+   *
+   * @param key    The fingerprint.
+   * @param target The output file, which is replaced if it exists.
+   * @return True if the archive was in the cache, false if it must be built.
+   * @throws IOException If the archive can't be restored.
+   */
+  public boolean restore(String key, Path target) throws IOException {
+    Path cached = resolve(key);
+    if (!Files.isRegularFile(cached)) {
+      return false;
+    }
+
+    Files.deleteIfExists(target);
+    Files.createDirectories(target.getParent());
+    try {
+      Files.createLink(target, cached);
+    } catch (IOException | UnsupportedOperationException e) {
+      Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    return true;
+  }
+
+  /**
+   * Adds the archive to the cache.
+   *
+   * @param key  The fingerprint.
+   * @param file The archive.
+   * @throws IOException If the archive can't be added to the cache.
+   */
+  public void store(String key, Path file) throws IOException {
+    Path cached = resolve(key);
+    Files.createDirectories(cached.getParent());
+    try {
+      Files.createLink(cached, file);
+    } catch (FileAlreadyExistsException e) {
+      // Another build already stored the same archive
+    } catch (IOException | UnsupportedOperationException e) {
+      // Copy to a temporary file first so that other builds never see a partial archive
+      Path temp = Files.createTempFile(cached.getParent(), key, ".tmp");
+      try {
+        Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  private Path resolve(String key) {
+    return directory.resolve(key.substring(0, 2)).resolve(key);
+  }
+
+  /**
+   * A SHA-256 digest of the inputs of a build. Strings are length prefixed so that the values can't run together.
+   */
+  public static class Fingerprint {
+    private final byte[] buffer = new byte[64 * 1024];
+
+    private final MessageDigest digest;
+
+    public Fingerprint() {
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    public Fingerprint add(String value) {
+      if (value == null) {
+        return add(-1);
+      }
+
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      add(bytes.length);
+      digest.update(bytes);
+      return this;
+    }
+
+    public Fingerprint add(long value) {
+      digest.update(ByteBuffer.allocate(8).putLong(value).array());
+      return this;
+    }
+
+    public Fingerprint add(FileTime value) {
+      return add(value != null ? value.toMillis() : Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds the size and contents of the file.
+     *
+     * @param file The file.
+     * @return This.
+     * @throws IOException If the file can't be read.
+     */
+    public Fingerprint addContents(Path file) throws IOException {
+      add(Files.size(file));
+      try (InputStream is = Files.newInputStream(file)) {
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      }
+
+      return this;
+    }
+
+    /**
+     * Adds the size and contents of the byte array.
+     *
+     * @param contents The contents.
+     * @return This.
+     */
+    public Fingerprint addContents(byte[] contents) {
+      add(contents.length);
+      digest.update(contents);
+      return this;
+    }
+
+    /**
+     * Completes the fingerprint. Nothing can be added after this is called.
+     *
+     * @return The fingerprint as a hex string, which is the key of the archive in the cache.
+     */
+    public String toKey() {
+      return HexFormat.of().formatHex(digest.digest());
+    }
+  }
+}
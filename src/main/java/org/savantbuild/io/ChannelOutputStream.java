@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The output layer of the archive builders. Bytes are collected in a large direct buffer and written to the channel
+ * only when the buffer is full, so the small writes of the archive formats (i.e. 512 byte TAR records and ZIP headers)
+ * don't each become a system call. Writes that are at least as large as the buffer bypass it.
+ * <p>
+ * {@link #flush()} writes the buffer to the channel, but the builders never call it per entry. It is only called when
+ * the archive is finished.
+ * <p>
+ * If {@link Checksum}s are added, the bytes are digested as they are written to the channel, so the checksums of the
+ * output are computed without reading it again.
+ * <p>
+ * The channel doesn't have to be a file. The builders also write archives into channels that the caller owns (i.e. an
+ * upload or another archive), in which case the channel is left open when this stream is closed.
+ *
+ * @author Brian Pontarelli
+ */
+public class ChannelOutputStream extends OutputStream {
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+  private final ByteBuffer buffer;
+
+  private final WritableByteChannel channel;
+
+  private final boolean closeChannel;
+
+  private final Map<Checksum, MessageDigest> digests = new EnumMap<>(Checksum.class);
+
+  private boolean closed;
+
+  private long writes;
+
+  public ChannelOutputStream(WritableByteChannel channel, int bufferSize) {
+    this(channel, bufferSize, true);
+  }
+
+  /**
+   * Creates a stream that writes to the channel.
+   *
+   * @param channel      The channel.
+   * @param bufferSize   The size of the buffer.
+   * @param closeChannel Whether or not the channel is closed when this stream is closed. If this is false, closing the
+   *                     stream only writes the buffer to the channel.
+   */
+  public ChannelOutputStream(WritableByteChannel channel, int bufferSize, boolean closeChannel) {
+    this.channel = channel;
+    this.closeChannel = closeChannel;
+    this.buffer = ByteBuffer.allocateDirect(Math.max(512, bufferSize));
+  }
+
+  /**
+   * Opens (creating or truncating) the file for writing.
+   *
+   * @param file       The file.
+   * @param bufferSize The size of the buffer.
+   * @return The stream.
+   * @throws IOException If the file can't be opened.
+   */
+  public static ChannelOutputStream open(Path file, int bufferSize) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    return new ChannelOutputStream(channel, bufferSize);
+  }
+
+  /**
+   * Adds checksums to compute from the output. This must be called before anything is written.
+   *
+   * @param checksums The checksums.
+   * @throws IllegalStateException If something has already been written.
+   */
+  public void addChecksums(Collection<Checksum> checksums) {
+    if (writes > 0 || buffer.position() > 0) {
+      throw new IllegalStateException("Checksums must be added before anything is written");
+    }
+
+    digests.putAll(Checksum.newDigests(checksums));
+  }
+
+  /**
+   * Completes the checksums. This should be called once, after the stream is closed.
+   *
+   * @return The hex encoded digests of the output.
+   */
+  public Map<Checksum, String> checksums() {
+    return Checksum.toHex(digests);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    try {
+      drain();
+    } finally {
+      if (closeChannel) {
+        channel.close();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    drain();
+  }
+
+  /**
+   * Copies bytes from the file channel to the output. The bytes are transferred directly to the channel, which allows
+   * the operating system to copy them without reading them into the JVM when the channel is a file or socket. If checksums are
+   * being computed, the bytes are read through the buffer instead.
+   *
+   * @param source   The channel to copy from.
+   * @param position The position of the first byte in the source.
+   * @param length   The number of bytes.
+   * @return The number of bytes copied, which is less than the length if the end of the source is reached.
+   * @throws IOException If the copy fails.
+   */
+  public long transferFrom(FileChannel source, long position, long length) throws IOException {
+    drain();
+
+    long transferred = 0;
+    if (!digests.isEmpty()) {
+      while (transferred < length) {
+        buffer.limit((int) Math.min(buffer.capacity(), length - transferred));
+        int count = source.read(buffer, position + transferred);
+        if (count <= 0) {
+          break;
+        }
+
+        transferred += count;
+        drain();
+      }
+
+      buffer.clear();
+      return transferred;
+    }
+
+    while (transferred < length) {
+      long count = source.transferTo(position + transferred, length - transferred, channel);
+      writes++;
+      if (count <= 0) {
+        break;
+      }
+
+      transferred += count;
+    }
+
+    return transferred;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      drain();
+    }
+
+    buffer.put((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len >= buffer.capacity()) {
+      drain();
+      for (MessageDigest digest : digests.values()) {
+        digest.update(b, off, len);
+      }
+
+      ByteBuffer wrapped = ByteBuffer.wrap(b, off, len);
+      while (wrapped.hasRemaining()) {
+        channel.write(wrapped);
+        writes++;
+      }
+      return;
+    }
+
+    if (len > buffer.remaining()) {
+      drain();
+    }
+
+    buffer.put(b, off, len);
+  }
+
+  /**
+   * @return The number of writes made to the channel, each of which is (at least) one system call.
+   */
+  public long writes() {
+    return writes;
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    for (MessageDigest digest : digests.values()) {
+      digest.update(buffer.duplicate());
+    }
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+      writes++;
+    }
+    buffer.clear();
+  }
+}
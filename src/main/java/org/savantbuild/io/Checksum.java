@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * The checksums that the archive builders can compute while they write an archive. The sidecar file of a checksum is
+ * the archive file name plus the extension (i.e. <code>foo.jar.sha1</code>) and it contains the hex encoded digest.
+ *
+ * @author Brian Pontarelli
+ */
+public enum Checksum {
+  MD5("MD5", "md5"),
+
+  SHA1("SHA-1", "sha1"),
+
+  SHA256("SHA-256", "sha256");
+
+  public final String algorithm;
+
+  public final String extension;
+
+  Checksum(String algorithm, String extension) {
+    this.algorithm = algorithm;
+    this.extension = extension;
+  }
+
+  /**
+   * Computes the checksums of a file in a single pass. The builders only use this when the archive is restored from
+   * the build cache, because the checksums are otherwise computed while the archive is written.
+   *
+   * @param file      The file.
+   * @param checksums The checksums to compute.
+   * @return The hex encoded digests.
+   * @throws IOException If the file can't be read.
+   */
+  public static Map<Checksum, String> compute(Path file, Collection<Checksum> checksums) throws IOException {
+    Map<Checksum, MessageDigest> digests = newDigests(checksums);
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream is = Files.newInputStream(file)) {
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        for (MessageDigest digest : digests.values()) {
+          digest.update(buffer, 0, read);
+        }
+      }
+    }
+
+    return toHex(digests);
+  }
+
+  /**
+   * Creates a MessageDigest for each of the checksums.
+   *
+   * @param checksums The checksums.
+   * @return The digests.
+   */
+  public static Map<Checksum, MessageDigest> newDigests(Collection<Checksum> checksums) {
+    Map<Checksum, MessageDigest> digests = new EnumMap<>(Checksum.class);
+    for (Checksum checksum : checksums) {
+      digests.put(checksum, checksum.newDigest());
+    }
+
+    return digests;
+  }
+
+  /**
+   * Completes the digests.
+   *
+   * @param digests The digests.
+   * @return The hex encoded digests.
+   */
+  public static Map<Checksum, String> toHex(Map<Checksum, MessageDigest> digests) {
+    Map<Checksum, String> values = new EnumMap<>(Checksum.class);
+    digests.forEach((checksum, digest) -> values.put(checksum, HexFormat.of().formatHex(digest.digest())));
+    return values;
+  }
+
+  /**
+   * Writes a sidecar file for each of the digests.
+   *
+   * @param file   The archive file.
+   * @param values The hex encoded digests.
+   * @throws IOException If a sidecar can't be written.
+   */
+  public static void writeSidecars(Path file, Map<Checksum, String> values) throws IOException {
+    for (Map.Entry<Checksum, String> entry : values.entrySet()) {
+      Files.write(entry.getKey().sidecar(file), entry.getValue().getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+
+  public MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param file The archive file.
+   * @return The path of the sidecar file of this checksum.
+   */
+  public Path sidecar(Path file) {
+    return file.resolveSibling(file.getFileName() + "." + extension);
+  }
+}
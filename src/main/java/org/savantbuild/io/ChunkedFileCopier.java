@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Copies large files by splitting them into ranges and copying the ranges concurrently. The target file is pre-sized
+ * and each range is transferred using positional channel operations, which allows the kernel to use copy offloading
+ * when it is available.
+ *
+ * @author Brian Pontarelli
+ */
+public class ChunkedFileCopier {
+  public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+
+  public static final long DEFAULT_THRESHOLD = 256L * 1024 * 1024;
+
+  public long chunkSize = DEFAULT_CHUNK_SIZE;
+
+  public int parallelism = Runtime.getRuntime().availableProcessors();
+
+  public long threshold = DEFAULT_THRESHOLD;
+
+  /**
+   * Determines if a file of the given size should be copied in chunks.
+   *
+   * @param size The size of the file.
+   * @return True if the size is at or above the threshold.
+   */
+  public boolean accepts(long size) {
+    return size >= threshold;
+  }
+
+  /**
+   * Copies the source file to the target, replacing the target if it exists. The target is created with the same
+   * permissions as the source (subject to the umask) just like {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}.
+   *
+   * @param source The source file.
+   * @param target The target file.
+   * @throws IOException If the copy fails.
+   */
+  public void copy(Path source, Path target) throws IOException {
+    Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(source);
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      Files.deleteIfExists(target);
+      copy(channel, 0, channel.size(), target, permissions);
+    }
+  }
+
+  /**
+   * Copies a range of the given channel to the target file. This is used by the extraction tools to copy STORED entries
+   * directly out of an archive.
+   *
+   * @param source      The source channel. Only positional operations are used, so the channel's position is never
+   *                    changed and it can be shared.
+   * @param position    The position in the source channel to start copying from.
+   * @param length      The number of bytes to copy.
+   * @param target      The target file.
+   * @param permissions (Optional) The permissions of the target file. If they don't allow the owner to write, the
+   *                    file is created writable (since every range opens it for writing) and the permissions are set
+   *                    after the copy.
+   * @throws IOException If the copy fails.
+   */
+  public void copy(FileChannel source, long position, long length, Path target, Set<PosixFilePermission> permissions)
+      throws IOException {
+    Set<PosixFilePermission> writable = permissions;
+    if (permissions != null && !permissions.contains(PosixFilePermission.OWNER_WRITE)) {
+      writable = new HashSet<>(permissions);
+      writable.add(PosixFilePermission.OWNER_WRITE);
+    }
+
+    copyRanges(source, position, length, target, writable);
+
+    if (writable != permissions) {
+      Files.setPosixFilePermissions(target, permissions);
+    }
+  }
+
+  private void copyRanges(FileChannel source, long position, long length, Path target, Set<PosixFilePermission> permissions)
+      throws IOException {
+    try (FileChannel channel = permissions != null ?
+        FileChannel.open(target, Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), PosixFilePermissions.asFileAttribute(permissions)) :
+        FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      // Pre-size the target so that the ranges can be written in any order
+      if (length > 0) {
+        channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+      }
+
+      long chunks = (length + chunkSize - 1) / chunkSize;
+      if (chunks <= 1 || parallelism <= 1) {
+        copyRange(source, position, channel, 0, length);
+        return;
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool((int) Math.min(parallelism, chunks));
+      try {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (long offset = 0; offset < length; offset += chunkSize) {
+          long start = offset;
+          long size = Math.min(chunkSize, length - offset);
+          futures.add(executor.submit(() -> {
+            // Each range gets its own target channel because transferTo writes at the target's position
+            try (FileChannel rangeChannel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+              copyRange(source, position + start, rangeChannel, start, size);
+            }
+            return null;
+          }));
+        }
+
+        for (Future<Void> future : futures) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while copying to [" + target + "]", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+
+        throw new IOException("Unable to copy to [" + target + "]", e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private static void copyRange(FileChannel source, long position, FileChannel target, long targetPosition, long length)
+      throws IOException {
+    target.position(targetPosition);
+    while (length > 0) {
+      long transferred = source.transferTo(position, length, target);
+      if (transferred <= 0) {
+        throw new IOException("Unexpected end of the source while copying [" + length + "] remaining bytes");
+      }
+
+      position += transferred;
+      length -= transferred;
+    }
+  }
+}
@@ -25,13 +25,18 @@ import java.util.List;
 
 /**
  * Provides file copying utilities using relative or absolute paths. All relative paths are resolved using the
- * baseDirectory that is passed into the constructor.
+ * baseDirectory that is passed into the constructor. Generated entries (i.e. the files of a {@link MemoryTree}) can be
+ * copied along with the file sets.
  *
  * @author Brian Pontarelli
  */
 public class Copier {
   public final Path to;
 
+  public ChunkedFileCopier chunkedFileCopier = new ChunkedFileCopier();
+
+  public List<GeneratedEntry> entries = new ArrayList<>();
+
   public List<FileSet> fileSets = new ArrayList<>();
 
   public List<Filter> filters = new ArrayList<>();
@@ -56,7 +61,9 @@ public class Copier {
         Path target = to.resolve(fileInfo.relative);
         Files.createDirectories(target.getParent());
 
-        if (filters.isEmpty()) {
+        if (filters.isEmpty() && fileInfo.size != null && chunkedFileCopier.accepts(fileInfo.size)) {
+          chunkedFileCopier.copy(fileInfo.origin, target);
+        } else if (filters.isEmpty()) {
           Files.copy(fileInfo.origin, target, StandardCopyOption.REPLACE_EXISTING);
         } else {
           // Bold assumption here. I'm assuming the files aren't large and that it will be simpler and faster to read them
@@ -72,9 +79,31 @@ public class Copier {
       }
     }
 
+    for (GeneratedEntry entry : entries) {
+      Path target = to.resolve(entry.name);
+      Files.createDirectories(target.getParent());
+
+      byte[] bytes = entry.toBytes();
+      if (!filters.isEmpty()) {
+        String contents = new String(bytes, "UTF-8");
+        for (Filter filter : filters) {
+          contents = contents.replaceAll(filter.token, filter.value);
+        }
+        bytes = contents.getBytes("UTF-8");
+      }
+
+      Files.write(target, bytes);
+      count++;
+    }
+
     return count;
   }
 
+  public Copier entry(GeneratedEntry entry) {
+    this.entries.add(entry);
+    return this;
+  }
+
   public Copier fileSet(FileSet fileSet) throws IOException {
     if (Files.isRegularFile(fileSet.directory)) {
       throw new IOException("The [fileSet.directory] path [" + fileSet.directory + "] passed to the Copier cannot be a file");
@@ -106,6 +135,17 @@ public class Copier {
     return this;
   }
 
+  /**
+   * Sets the size at which files are copied in concurrent chunks rather than with a single stream.
+   *
+   * @param threshold The size in bytes.
+   * @return This.
+   */
+  public Copier largeFileThreshold(long threshold) {
+    this.chunkedFileCopier.threshold = threshold;
+    return this;
+  }
+
   public Copier optionalFileSet(String directory) throws IOException {
     return optionalFileSet(Paths.get(directory));
   }
@@ -126,4 +166,15 @@ public class Copier {
   public Copier optionalFileSet(Path directory) throws IOException {
     return optionalFileSet(new FileSet(directory));
   }
+
+  /**
+   * Adds all of the files of the tree. The tree must not be closed until the files are copied.
+   *
+   * @param tree The tree.
+   * @return This.
+   */
+  public Copier tree(MemoryTree tree) {
+    this.entries.addAll(tree.toGeneratedEntries());
+    return this;
+  }
 }
@@ -38,7 +38,10 @@ public class Directory implements Comparable<Directory> {
 
   public FileTime lastModifiedTime;
 
-  public Integer mode;
+  /**
+   * The hex encoded mode of the directory (i.e. <code>0x755</code>) or 0 if the directory doesn't have a mode.
+   */
+  public int mode;
 
   public String name;
 
@@ -51,7 +54,7 @@ public class Directory implements Comparable<Directory> {
   public Directory(String name, Integer mode, String userName, String groupName, FileTime lastModifiedTime) {
     this.name = name;
     this.groupName = groupName;
-    this.mode = mode;
+    this.mode = mode != null ? mode : 0;
     this.userName = userName;
     this.lastModifiedTime = lastModifiedTime;
   }
@@ -117,6 +120,16 @@ public class Directory implements Comparable<Directory> {
     return name.hashCode();
   }
 
+  /**
+   * Converts the hex encoded mode of this Directory to a POSIX bit mapped mode. See {@link FileInfo#toMode()} for the
+   * layout of the bit map.
+   *
+   * @return The POSIX mode bit map or 0 if this Directory doesn't have a mode.
+   */
+  public int toMode() {
+    return mode != 0 ? FileTools.toMode(mode) : 0;
+  }
+
   public String toString() {
     return name;
   }
@@ -150,7 +163,7 @@ public class Directory implements Comparable<Directory> {
    * @return This.
    */
   public Directory withMode(Integer mode) {
-    this.mode = mode;
+    this.mode = mode != null ? mode : 0;
     return this;
   }
 
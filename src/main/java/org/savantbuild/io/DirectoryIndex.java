@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The directories of an archive, sorted by name. Names are compared with a trailing slash, so <code>foo</code> and
+ * <code>foo/</code> are the same directory. The first Directory added for a name is kept, which means directories added
+ * explicitly by the build take precedence over the directories of the FileSets.
+ * <p>
+ * The index is shared by all of the FileSets of an archive. The parent directories of each file are only walked until a
+ * directory that has already been walked is reached, and the attributes of each directory are only read from the file
+ * system once, so adding files is linear in the number of files and directories.
+ *
+ * @author Brian Pontarelli
+ */
+public class DirectoryIndex implements Iterable<Directory> {
+  private final TreeMap<String, Directory> directories = new TreeMap<>();
+
+  private final Set<String> walked = new HashSet<>();
+
+  /**
+   * Normalizes the name of a directory by adding a trailing slash if it doesn't already have one.
+   *
+   * @param name The name.
+   * @return The normalized name.
+   */
+  public static String normalize(String name) {
+    return name.endsWith("/") ? name : name + "/";
+  }
+
+  /**
+   * Adds the directory, unless a directory with the same name has already been added.
+   *
+   * @param directory The directory.
+   * @return True if the directory was added.
+   */
+  public boolean add(Directory directory) {
+    return directories.putIfAbsent(normalize(directory.name), directory) == null;
+  }
+
+  /**
+   * Adds the directories.
+   *
+   * @param directories The directories.
+   */
+  public void addAll(Collection<Directory> directories) {
+    directories.forEach(this::add);
+  }
+
+  /**
+   * Adds the directories that contain the files of the FileSet. The directories are created using
+   * {@link FileSet#toDirectory(Path, Path)}.
+   *
+   * @param fileSet   The FileSet.
+   * @param fileInfos The files of the FileSet (from {@link FileSet#toFileInfos()}).
+   * @throws IOException If the attributes of a directory can't be read.
+   */
+  public void addAll(FileSet fileSet, Collection<FileInfo> fileInfos) throws IOException {
+    for (FileInfo info : fileInfos) {
+      Path relativeDir = info.relative.getParent();
+      Path originDir = info.origin.getParent() != null ? info.origin.getParent() : info.origin;
+      while (relativeDir != null && walked.add(relativeDir.toString())) {
+        String name = normalize(relativeDir.toString());
+        if (!directories.containsKey(name)) {
+          directories.put(name, fileSet.toDirectory(relativeDir, originDir));
+        }
+
+        relativeDir = relativeDir.getParent();
+        originDir = originDir.getParent() != null ? originDir.getParent() : originDir;
+      }
+    }
+  }
+
+  /**
+   * Determines if the index contains a directory with the given name.
+   *
+   * @param name The name, with or without a trailing slash.
+   * @return True if the index contains the directory.
+   */
+  public boolean contains(String name) {
+    return directories.containsKey(normalize(name));
+  }
+
+  @Override
+  public Iterator<Directory> iterator() {
+    return directories.values().iterator();
+  }
+
+  /**
+   * @return The normalized names of the directories (with trailing slashes), in order.
+   */
+  public List<String> names() {
+    return new ArrayList<>(directories.keySet());
+  }
+
+  public int size() {
+    return directories.size();
+  }
+
+  public String toString() {
+    return directories.keySet().toString();
+  }
+}
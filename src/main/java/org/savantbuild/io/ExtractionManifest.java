@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records what was extracted into a directory, so that extracting the same (or a slightly changed) archive again only
+ * writes the entries that actually differ. The manifest is a file next to the directory (i.e. <code>lib.extracted</code>
+ * for the directory <code>lib</code>).
+ * <p>
+ * Each record contains the digest and size of the entry plus the modification time and file key (the inode) of the file
+ * after it was written. An entry is unchanged if its digest and size match the record and the file still has the
+ * recorded size, modification time and file key. This is a single stat of the file and it detects both new versions of
+ * the entry (even with the same size) and files that were changed or replaced since they were extracted.
+ * <p>
+ * File systems store modification times with a limited granularity, so a file that is changed right after it was
+ * extracted can keep its recorded modification time. Like the git index, records whose modification time isn't older
+ * than the manifest file itself are never trusted and their entries are always extracted again. This only affects the
+ * last few files of an extraction.
+ * <p>
+ * The digest is the CRC-32 of the contents of the entry. ZIP and JAR files store it for each entry. TAR files don't have
+ * checksums of the contents, so the TAR extraction computes the CRC-32 while it reads the entry and compares it with the
+ * record before anything is written (see {@link Extractor#writeChecked(Path, long, int, FileTime, InputStream)}).
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExtractionManifest {
+  private static final int MAGIC = 0x53564d46;
+
+  private static final int VERSION = 1;
+
+  public final Path file;
+
+  private final Map<String, Record> records = new ConcurrentHashMap<>();
+
+  private long savedTime = Long.MIN_VALUE;
+
+  private ExtractionManifest(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Loads the manifest of the directory. If the manifest doesn't exist or can't be read, the manifest is empty and
+   * every entry is extracted.
+   *
+   * @param directory The directory that archives are extracted to.
+   * @return The manifest.
+   * @throws IOException If the manifest exists but can't be opened.
+   */
+  public static ExtractionManifest load(Path directory) throws IOException {
+    ExtractionManifest manifest = new ExtractionManifest(file(directory));
+    if (!Files.isRegularFile(manifest.file)) {
+      return manifest;
+    }
+
+    manifest.savedTime = Files.getLastModifiedTime(manifest.file).to(TimeUnit.NANOSECONDS);
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest.file)))) {
+      if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+        return manifest;
+      }
+
+      int count = dis.readInt();
+      for (int i = 0; i < count; i++) {
+        String name = dis.readUTF();
+        long digest = dis.readLong();
+        long size = dis.readLong();
+        long lastModifiedTime = dis.readLong();
+        String fileKey = dis.readUTF();
+        manifest.records.put(name, new Record(digest, size, lastModifiedTime, fileKey));
+      }
+    } catch (EOFException e) {
+      // A truncated manifest is ignored
+      manifest.records.clear();
+    }
+
+    return manifest;
+  }
+
+  /**
+   * Determines the file of the manifest of a directory.
+   *
+   * @param directory The directory that archives are extracted to.
+   * @return The manifest file, which might not exist.
+   */
+  public static Path file(Path directory) {
+    return directory.resolveSibling(directory.getFileName() + ".extracted");
+  }
+
+  private static String fileKey(BasicFileAttributes attributes) {
+    return attributes.fileKey() != null ? attributes.fileKey().toString() : "";
+  }
+
+  /**
+   * Records an entry after its file was written (and closed).
+   *
+   * @param name   The name of the entry.
+   * @param file   The file.
+   * @param digest The digest of the entry.
+   * @param size   The size of the entry.
+   * @throws IOException If the file can't be read.
+   */
+  public void record(String name, Path file, long digest, long size) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    records.put(name, new Record(digest, size, attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), fileKey(attributes)));
+  }
+
+  /**
+   * Writes the manifest. The file is replaced atomically, so a failed write leaves the previous manifest in place.
+   *
+   * @throws IOException If the manifest can't be written.
+   */
+  public void save() throws IOException {
+    Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        Map<String, Record> snapshot = Map.copyOf(records);
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(snapshot.size());
+        for (Map.Entry<String, Record> entry : snapshot.entrySet()) {
+          Record record = entry.getValue();
+          dos.writeUTF(entry.getKey());
+          dos.writeLong(record.digest);
+          dos.writeLong(record.size);
+          dos.writeLong(record.lastModifiedTime);
+          dos.writeUTF(record.fileKey);
+        }
+      }
+
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * @return The number of records.
+   */
+  public int size() {
+    return records.size();
+  }
+
+  /**
+   * Returns the recorded digest of an entry if its file is unchanged since it was recorded. This is used for entries
+   * whose digest isn't known until their contents are read.
+   *
+   * @param name       The name of the entry.
+   * @param attributes The attributes of the file or null if the file doesn't exist.
+   * @param size       The size of the entry.
+   * @return The recorded digest or null if there isn't a record or the file changed.
+   */
+  public Long digest(String name, BasicFileAttributes attributes, long size) {
+    Record record = records.get(name);
+    boolean unchanged = record != null && attributes != null && attributes.isRegularFile() &&
+        record.size == size && attributes.size() == size &&
+        record.lastModifiedTime == attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) && record.lastModifiedTime < savedTime &&
+        record.fileKey.equals(fileKey(attributes));
+    return unchanged ? record.digest : null;
+  }
+
+  /**
+   * Determines if the file of an entry is unchanged since it was recorded.
+   *
+   * @param name       The name of the entry.
+   * @param attributes The attributes of the file or null if the file doesn't exist.
+   * @param digest     The digest of the entry.
+   * @param size       The size of the entry.
+   * @return True if the entry doesn't need to be extracted.
+   */
+  public boolean unchanged(String name, BasicFileAttributes attributes, long digest, long size) {
+    Long recorded = digest(name, attributes, size);
+    return recorded != null && recorded == digest;
+  }
+
+  private static class Record {
+    final long digest;
+
+    final String fileKey;
+
+    final long lastModifiedTime;
+
+    final long size;
+
+    Record(long digest, long size, long lastModifiedTime, String fileKey) {
+      this.digest = digest;
+      this.size = size;
+      this.lastModifiedTime = lastModifiedTime;
+      this.fileKey = fileKey;
+    }
+  }
+}
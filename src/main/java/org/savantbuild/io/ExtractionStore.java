@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local, content-addressed store of extracted archives. Each archive is extracted once into the store, keyed by the
+ * SHA-256 digest of the archive. The target directories are then materialized with hard links to the extracted files,
+ * so extracting the same archive again only creates directories and links. The files of the extracted archives are
+ * also stored by the digest of their contents, mode and modification time, so identical files in different archives
+ * share storage. The modification time is part of the digest because the linked files share it, and the times that
+ * the extraction restored must be kept.
+ * <p>
+ * The digests of the archives are cached by their path, size, modification time and file key, so the archive is only
+ * read when it changes.
+ * <p>
+ * The files in the target directories are the same files as the ones in the store, so they must be replaced and never
+ * modified in place. The {@link Extractor} (and therefore the ZIP, JAR and TAR extraction) replaces files that have
+ * more than one link rather than writing them, and it replaces a target directory that is a symbolic link to the store
+ * with a directory of hard links before extracting into it (see {@link #detach(Path)}). Other tools that write into the
+ * target directories must do the same. If hard links aren't supported (i.e. the store is on a different file system),
+ * the files are copied.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExtractionStore {
+  public final Path directory;
+
+  /**
+   * Determines if a target directory that doesn't exist is created as a symbolic link to the extracted archive in the
+   * store, rather than a directory of hard links. This is only a single link, but the target directory must never be
+   * modified through the link. The {@link Extractor} replaces the link with a directory of hard links before it extracts
+   * into it.
+   */
+  public boolean symlinkDirectories;
+
+  public ExtractionStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Extracts the archive to the target directory through the store. The archive is only extracted (using the
+   * unpacker) if it isn't in the store yet.
+   *
+   * @param archive  The archive.
+   * @param to       The target directory.
+   * @param unpacker Extracts the archive (i.e. <code>ZipTools::unzip</code>).
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(Path archive, Path to, Unpacker unpacker) throws IOException {
+    extract(key(archive), archive, to, unpacker);
+  }
+
+  /**
+   * Extracts the archive to the target directory through the store using a known digest of the archive (i.e. from the
+   * checksum that was published with it), so the archive is never read when it is already in the store.
+   *
+   * @param key      The hex encoded digest of the archive.
+   * @param archive  The archive.
+   * @param to       The target directory.
+   * @param unpacker Extracts the archive.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(String key, Path archive, Path to, Unpacker unpacker) throws IOException {
+    materialize(tree(key, archive, unpacker), to);
+  }
+
+  /**
+   * Replaces a target directory that is a symbolic link to an extracted archive in a store with a directory of hard
+   * links to the same files, so that writing into the target directory doesn't change the store. Anything else
+   * (including symbolic links to other directories) is left alone.
+   *
+   * @param to The target directory.
+   * @throws IOException If the link can't be replaced.
+   */
+  public static void detach(Path to) throws IOException {
+    if (!Files.isSymbolicLink(to)) {
+      return;
+    }
+
+    Path tree;
+    try {
+      tree = to.toRealPath();
+    } catch (NoSuchFileException e) {
+      return;
+    }
+
+    // Trees are stored as trees/<first two characters of the key>/<key>
+    Path parent = tree.getParent();
+    Path trees = parent != null ? parent.getParent() : null;
+    if (trees == null || trees.getFileName() == null || !trees.getFileName().toString().equals("trees") ||
+        !tree.getFileName().toString().startsWith(parent.getFileName().toString())) {
+      return;
+    }
+
+    Files.delete(to);
+    link(tree, to);
+  }
+
+  /**
+   * Determines the key of the archive, which is the SHA-256 digest of its contents. The digest is cached until the
+   * archive changes.
+   *
+   * @param archive The archive.
+   * @return The key.
+   * @throws IOException If the archive can't be read.
+   */
+  public String key(Path archive) throws IOException {
+    Path absolute = archive.toAbsolutePath().normalize();
+    BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+    String stat = attributes.size() + ":" + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) + ":" + attributes.fileKey();
+    Path cached = resolve("keys", BuildCache.fingerprint("path").add(absolute.toString()).toKey());
+    if (Files.isRegularFile(cached)) {
+      String[] lines = new String(Files.readAllBytes(cached), StandardCharsets.UTF_8).split("\n");
+      if (lines.length == 2 && lines[0].equals(stat)) {
+        return lines[1];
+      }
+    }
+
+    String key = new BuildCache.Fingerprint().addContents(absolute).toKey();
+    write(cached, stat + "\n" + key);
+    return key;
+  }
+
+  /**
+   * Replaces each file of the extracted archive with a hard link to the file in the store that has the same contents,
+   * mode and modification time.
+   */
+  private void deduplicate(Path tree) throws IOException {
+    Files.walkFileTree(tree, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (!attrs.isRegularFile()) {
+          return FileVisitResult.CONTINUE;
+        }
+
+        BuildCache.Fingerprint fingerprint = new BuildCache.Fingerprint().addContents(file)
+                                                                         .add(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        if (Files.getFileStore(file).supportsFileAttributeView("posix")) {
+          fingerprint.add(FileTools.toMode(Files.readAttributes(file, PosixFileAttributes.class).permissions()));
+        }
+
+        Path object = resolve("objects", fingerprint.toKey());
+        Files.createDirectories(object.getParent());
+        try {
+          Files.createLink(object, file);
+        } catch (FileAlreadyExistsException e) {
+          // The same file is already in the store
+          Path temp = file.resolveSibling(file.getFileName() + ".link");
+          try {
+            Files.createLink(temp, object);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          } catch (IOException | UnsupportedOperationException e2) {
+            Files.deleteIfExists(temp);
+          }
+        } catch (IOException | UnsupportedOperationException e) {
+          // Links aren't supported, so the file isn't shared
+        }
+
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Links (or copies) the files of the extracted archive to the target directory. Files that are already linked to the
+   * store are left alone.
+   */
+  private static void link(Path tree, Path to) throws IOException {
+    boolean posix = Files.getFileStore(tree).supportsFileAttributeView("posix");
+    Files.walkFileTree(tree, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        Path target = to.resolve(tree.relativize(dir).toString());
+        if (!Files.isDirectory(target)) {
+          Files.createDirectories(target);
+          if (posix) {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(dir));
+          }
+        }
+
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Path target = to.resolve(tree.relativize(file).toString());
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+          if (Files.isSameFile(target, file)) {
+            return FileVisitResult.CONTINUE;
+          }
+
+          Files.delete(target);
+        }
+
+        try {
+          Files.createLink(target, file);
+        } catch (IOException | UnsupportedOperationException e) {
+          Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Creates the target directory as a symbolic link to the extracted archive or as a directory of links to its files.
+   */
+  private void materialize(Path tree, Path to) throws IOException {
+    if (Files.isSymbolicLink(to)) {
+      // Never write into the store through a link
+      Files.delete(to);
+    }
+
+    if (symlinkDirectories && !Files.exists(to, LinkOption.NOFOLLOW_LINKS)) {
+      try {
+        Files.createDirectories(to.toAbsolutePath().getParent());
+        Files.createSymbolicLink(to, tree.toAbsolutePath());
+        return;
+      } catch (IOException | UnsupportedOperationException e) {
+        // Fall back to hard links
+      }
+    }
+
+    link(tree, to);
+  }
+
+  private Path resolve(String type, String key) {
+    return directory.resolve(type).resolve(key.substring(0, 2)).resolve(key);
+  }
+
+  /**
+   * Extracts the archive into the store, unless it is already there. The archive is extracted to a temporary
+   * directory that is moved into place atomically, so other processes never see a partial extraction.
+   */
+  private Path tree(String key, Path archive, Unpacker unpacker) throws IOException {
+    Path tree = resolve("trees", key);
+    if (Files.isDirectory(tree)) {
+      return tree;
+    }
+
+    Files.createDirectories(tree.getParent());
+    Path temp = Files.createTempDirectory(tree.getParent(), key + ".");
+    try {
+      // Temporary directories are private, but the tree root is linked or copied to the targets like any directory
+      if (Files.getFileStore(temp).supportsFileAttributeView("posix")) {
+        Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(tree.getParent()));
+      }
+
+      unpacker.unpack(archive, temp);
+      Files.deleteIfExists(ExtractionManifest.file(temp));
+      deduplicate(temp);
+
+      try {
+        Files.move(temp, tree, StandardCopyOption.ATOMIC_MOVE);
+      } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+        // Another process extracted the same archive
+      }
+    } finally {
+      if (Files.exists(temp)) {
+        FileTools.prune(temp);
+      }
+    }
+
+    return tree;
+  }
+
+  private void write(Path file, String contents) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temp, contents.getBytes(StandardCharsets.UTF_8));
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Extracts an archive to a directory.
+   */
+  @FunctionalInterface
+  public interface Unpacker {
+    void unpack(Path archive, Path to) throws IOException;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where the entries of an archive are extracted to. The {@link Extractor} writes the entries to a directory and the
+ * {@link MemoryTree} keeps them in memory. The entries are identified by their names in the archive (i.e.
+ * <code>org/savantbuild/io/FileSet.java</code>).
+ *
+ * @author Brian Pontarelli
+ */
+public interface ExtractionTarget {
+  /**
+   * Adds a directory entry.
+   *
+   * @param name The name of the directory, without a trailing slash.
+   * @param mode The POSIX mode of the entry or 0 to use the default permissions.
+   * @throws IOException If the directory can't be added.
+   */
+  void directory(String name, int mode) throws IOException;
+
+  /**
+   * Adds a file entry.
+   *
+   * @param name   The name of the file.
+   * @param digest The digest of the entry (see {@link ExtractionManifest}).
+   * @param size   The size of the entry or -1 if it isn't known.
+   * @param mode   The POSIX mode of the entry or 0 to use the default permissions.
+   * @param is     The contents of the entry, which is not closed.
+   * @return True if the file was written, false if it was skipped.
+   * @throws IOException If the file can't be added.
+   */
+  boolean write(String name, long digest, long size, int mode, InputStream is) throws IOException;
+
+  /**
+   * Adds a file entry whose digest isn't known until its contents are read (i.e. a TAR entry, which doesn't have a
+   * checksum). Targets that compare digests (like the {@link Extractor}) use the CRC-32 of the contents.
+   *
+   * @param name The name of the file.
+   * @param size The size of the entry or -1 if it isn't known.
+   * @param mode The POSIX mode of the entry or 0 to use the default permissions.
+   * @param is   The contents of the entry, which is not closed.
+   * @return True if the file was written, false if it was skipped.
+   * @throws IOException If the file can't be added.
+   */
+  boolean writeChecked(String name, long size, int mode, InputStream is) throws IOException;
+}
@@ -0,0 +1,630 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * The extraction engine that is shared by {@link org.savantbuild.io.zip.ZipTools}, {@link org.savantbuild.io.jar.JarTools}
+ * and {@link org.savantbuild.io.tar.TarTools}. It writes the entries of an archive to a directory with as few system
+ * calls as possible:
+ * <ul>
+ *   <li>The directories that have been created are cached, so the parent of each entry is only created once.</li>
+ *   <li>Existing files are checked with a single stat. If there is an {@link ExtractionManifest}, files that are
+ *   unchanged since they were last extracted are skipped. Files are opened with CREATE and TRUNCATE_EXISTING and they are
+ *   created with their permissions, so there is no separate delete, create or permissions call. The permissions are
+ *   only set explicitly when the file already existed or when the umask would remove some of them.</li>
+ *   <li>Files with more than one hard link (i.e. files that are linked to an {@link ExtractionStore}) are never changed
+ *   in place. They are deleted and created again, so the other links keep the old contents, permissions and times. A
+ *   target directory that is a symbolic link to an {@link ExtractionStore} is replaced by a directory of hard links
+ *   first (see {@link ExtractionStore#detach(Path)}).</li>
+ *   <li>Entries are copied through large buffers that are pooled and can be used by any number of threads.</li>
+ *   <li>The modification times of the entries are restored, so that up-to-date checks of the extracted files see the
+ *   times of the archive rather than the time of the extraction. The times of the files are set right after they are
+ *   written and the times of the directories are collected and set in one pass at the end (see
+ *   {@link #restoreDirectoryTimes()}), since writing an entry changes the time of its directory.</li>
+ * </ul>
+ * <p>
+ * This is the {@link ExtractionTarget} for directories. This class is thread safe.
+ *
+ * @author Brian Pontarelli
+ */
+public class Extractor implements ExtractionTarget {
+  public static final int BUFFER_SIZE = 128 * 1024;
+
+  /**
+   * The largest entry whose contents are held in memory to compare its CRC with the manifest (see
+   * {@link #writeChecked(Path, long, int, FileTime, InputStream)}).
+   */
+  public static final int IN_MEMORY_LIMIT = 8 * BUFFER_SIZE;
+
+  private static volatile int umask = -1;
+
+  public final Path to;
+
+  /**
+   * (Optional) The manifest that determines which entries are unchanged and records the entries that are written. If
+   * this is null, every entry is written.
+   */
+  public ExtractionManifest manifest;
+
+  private final ConcurrentLinkedDeque<byte[]> buffers;
+
+  private final Map<Path, FileTime> directoryTimes = new ConcurrentHashMap<>();
+
+  private final Set<Path> directories;
+
+  private final boolean posix;
+
+  private final boolean unix;
+
+  public Extractor(Path to) throws IOException {
+    this(to, new ConcurrentLinkedDeque<>(), ConcurrentHashMap.newKeySet());
+  }
+
+  /**
+   * Creates an Extractor for another directory that shares the directory cache and buffers of the given Extractor, so
+   * that any number of archives can be extracted to different directories at the same time.
+   *
+   * @param to     The directory.
+   * @param shared The Extractor whose directory cache and buffers are shared.
+   * @throws IOException If the directory can't be created.
+   */
+  public Extractor(Path to, Extractor shared) throws IOException {
+    this(to, shared.buffers, shared.directories);
+  }
+
+  private Extractor(Path to, ConcurrentLinkedDeque<byte[]> buffers, Set<Path> directories) throws IOException {
+    this.to = to;
+    this.buffers = buffers;
+    this.directories = directories;
+    ExtractionStore.detach(to);
+    directory(to);
+    this.posix = Files.getFileStore(to).supportsFileAttributeView("posix");
+    this.unix = Files.getFileStore(to).supportsFileAttributeView("unix");
+  }
+
+  /**
+   * Determines the umask of the process once by creating a file with all of the permissions.
+   */
+  private static int umask(Path directory) throws IOException {
+    if (umask == -1) {
+      Path probe = Files.createTempFile(directory, ".umask", ".tmp", PosixFilePermissions.asFileAttribute(FileModes.toPermissions(0777)));
+      try {
+        umask = 0777 & ~FileModes.toOctal(Files.getPosixFilePermissions(probe));
+      } finally {
+        Files.delete(probe);
+      }
+    }
+
+    return umask;
+  }
+
+  /**
+   * Takes a buffer from the pool or creates a new one. The buffer should be returned with {@link #release(byte[])}.
+   *
+   * @return The buffer, which is {@link #BUFFER_SIZE} bytes.
+   */
+  public byte[] acquire() {
+    byte[] buffer = buffers.poll();
+    return buffer != null ? buffer : new byte[BUFFER_SIZE];
+  }
+
+  /**
+   * Copies the stream to the channel using a pooled buffer.
+   *
+   * @param is      The stream, which is not closed.
+   * @param channel The channel.
+   * @return The number of bytes copied.
+   * @throws IOException If the copy fails.
+   */
+  public long copy(InputStream is, FileChannel channel) throws IOException {
+    byte[] buffer = acquire();
+    try {
+      long count = 0;
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        write(channel, buffer, read);
+        count += read;
+      }
+
+      return count;
+    } finally {
+      release(buffer);
+    }
+  }
+
+  /**
+   * Creates the directory and its parents unless this extractor already created it.
+   *
+   * @param directory The directory.
+   * @throws IOException If the directory can't be created.
+   */
+  public void directory(Path directory) throws IOException {
+    if (directories.contains(directory)) {
+      return;
+    }
+
+    Files.createDirectories(directory);
+    for (Path parent = directory; parent != null && directories.add(parent); parent = parent.getParent()) {
+      // Cache the parents too
+    }
+  }
+
+  @Override
+  public void directory(String name, int mode) throws IOException {
+    directory(to.resolve(name), mode);
+  }
+
+  /**
+   * Creates the directory and sets its permissions.
+   *
+   * @param directory The directory.
+   * @param mode      The POSIX mode or 0 to keep the default permissions.
+   * @throws IOException If the directory can't be created.
+   */
+  public void directory(Path directory, int mode) throws IOException {
+    directory(directory);
+    if (mode != 0 && posix) {
+      Files.setPosixFilePermissions(directory, FileModes.toPermissions(mode));
+    }
+  }
+
+  /**
+   * Creates the directory, sets its permissions and collects its modification time, which is set by
+   * {@link #restoreDirectoryTimes()}.
+   *
+   * @param directory        The directory.
+   * @param mode             The POSIX mode or 0 to keep the default permissions.
+   * @param lastModifiedTime (Optional) The modification time of the entry.
+   * @throws IOException If the directory can't be created.
+   */
+  public void directory(Path directory, int mode, FileTime lastModifiedTime) throws IOException {
+    directory(directory, mode);
+    directoryTime(directory, lastModifiedTime);
+  }
+
+  /**
+   * Collects the modification time of a directory, which is set by {@link #restoreDirectoryTimes()}. If the same
+   * directory is collected more than once, the last time is used.
+   *
+   * @param directory        The directory.
+   * @param lastModifiedTime (Optional) The modification time of the entry.
+   */
+  public void directoryTime(Path directory, FileTime lastModifiedTime) {
+    if (lastModifiedTime != null) {
+      directoryTimes.put(directory, lastModifiedTime);
+    }
+  }
+
+  /**
+   * Opens the file of an entry for writing, after creating its parent directory. If the manifest shows that the file is
+   * unchanged, it is skipped and null is returned. After the channel is closed, {@link #written(Path, long, long)} must
+   * be called.
+   *
+   * @param file   The file.
+   * @param digest The digest of the entry (see {@link ExtractionManifest}).
+   * @param size   The size of the entry.
+   * @param mode   The POSIX mode of the entry or 0 to use the default permissions.
+   * @return The channel, which the caller must close, or null if the file is skipped.
+   * @throws IOException If the file can't be opened.
+   */
+  public FileChannel open(Path file, long digest, long size, int mode) throws IOException {
+    directory(file.getParent());
+
+    BasicFileAttributes attributes = stat(file);
+    if (manifest != null && manifest.unchanged(name(file), attributes, digest, size)) {
+      return null;
+    }
+
+    return create(file, attributes, mode);
+  }
+
+  /**
+   * Opens the file for writing. Files that have more than one hard link are deleted and created again.
+   *
+   * @param file       The file.
+   * @param attributes The attributes of the file or null if it doesn't exist.
+   * @param mode       The POSIX mode of the entry or 0 to use the default permissions.
+   */
+  private FileChannel create(Path file, BasicFileAttributes attributes, int mode) throws IOException {
+    if (attributes instanceof LinkedFileAttributes && ((LinkedFileAttributes) attributes).links() > 1) {
+      // The file is shared (i.e. with an ExtractionStore), so it is replaced rather than written
+      Files.delete(file);
+      attributes = null;
+    }
+
+    Set<OpenOption> options = Set.of(StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS);
+    Set<PosixFilePermission> permissions = mode != 0 && posix ? FileModes.toPermissions(mode) : null;
+    FileAttribute<?>[] fileAttributes = permissions != null ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(permissions)} : new FileAttribute<?>[0];
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file, options, fileAttributes);
+    } catch (AccessDeniedException e) {
+      if (attributes == null) {
+        throw e;
+      }
+
+      // The existing file is read-only
+      Files.delete(file);
+      attributes = null;
+      channel = FileChannel.open(file, options, fileAttributes);
+    }
+
+    if (permissions != null && (attributes != null || (mode & umask(to)) != 0)) {
+      try {
+        Files.setPosixFilePermissions(file, permissions);
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    return channel;
+  }
+
+  /**
+   * Sets the permissions of the file of an entry after it is written. This is only needed for files that had to be
+   * created with more permissions than the entry has (i.e. writable, so they can be opened more than once).
+   *
+   * @param file The file.
+   * @param mode The POSIX mode of the entry or 0 to keep the current permissions.
+   * @throws IOException If the permissions can't be set.
+   */
+  public void permissions(Path file, int mode) throws IOException {
+    if (mode != 0 && posix) {
+      unshare(file);
+      Files.setPosixFilePermissions(file, FileModes.toPermissions(mode));
+    }
+  }
+
+  /**
+   * Returns a buffer to the pool.
+   *
+   * @param buffer The buffer.
+   */
+  public void release(byte[] buffer) {
+    buffers.push(buffer);
+  }
+
+  /**
+   * Sets the modification times of the directories that were collected, deepest first. This must be called after all
+   * of the entries in the directories are written.
+   *
+   * @throws IOException If the times can't be set.
+   */
+  public void restoreDirectoryTimes() throws IOException {
+    List<Path> paths = new ArrayList<>(directoryTimes.keySet());
+    paths.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+    for (Path directory : paths) {
+      FileTime time = directoryTimes.remove(directory);
+      if (time != null && Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+        setTimes(directory, time);
+      }
+    }
+  }
+
+  /**
+   * Writes the stream to the file of an entry. See {@link #open(Path, long, long, int)}.
+   *
+   * @param file   The file.
+   * @param digest The digest of the entry.
+   * @param size   The size of the entry.
+   * @param mode   The POSIX mode of the entry or 0 to use the default permissions.
+   * @param is     The stream of the entry, which is not closed.
+   * @return True if the file was written, false if it was skipped.
+   * @throws IOException If the file can't be written.
+   */
+  public boolean write(Path file, long digest, long size, int mode, InputStream is) throws IOException {
+    return write(file, digest, size, mode, null, is);
+  }
+
+  /**
+   * Writes the stream to the file of an entry and restores its modification time. See
+   * {@link #open(Path, long, long, int)}.
+   *
+   * @param file             The file.
+   * @param digest           The digest of the entry.
+   * @param size             The size of the entry.
+   * @param mode             The POSIX mode of the entry or 0 to use the default permissions.
+   * @param lastModifiedTime (Optional) The modification time of the entry.
+   * @param is               The stream of the entry, which is not closed.
+   * @return True if the file was written, false if it was skipped.
+   * @throws IOException If the file can't be written.
+   */
+  public boolean write(Path file, long digest, long size, int mode, FileTime lastModifiedTime, InputStream is)
+      throws IOException {
+    FileChannel channel = open(file, digest, size, mode);
+    if (channel == null) {
+      return false;
+    }
+
+    try (channel) {
+      copy(is, channel);
+    }
+
+    written(file, digest, size, lastModifiedTime);
+    return true;
+  }
+
+  @Override
+  public boolean write(String name, long digest, long size, int mode, InputStream is) throws IOException {
+    return write(to.resolve(name), digest, size, mode, is);
+  }
+
+  /**
+   * Writes the stream to the file of an entry whose digest isn't known until its contents are read (i.e. a TAR entry,
+   * which doesn't have a checksum) and restores its modification time. The digest is the CRC-32 of the contents.
+   * <p>
+   * If the manifest shows that the file is unchanged, the contents are read and hashed before anything is written and
+   * the file is skipped if the CRC matches the recorded digest. Small entries are hashed in memory. Large entries are
+   * written to a temporary file next to the file, which only replaces the file if the CRC is different. Reading and
+   * hashing is still much cheaper than writing the file, and the file keeps its inode and times when it is unchanged.
+   *
+   * @param file             The file.
+   * @param size             The size of the entry.
+   * @param mode             The POSIX mode of the entry or 0 to use the default permissions.
+   * @param lastModifiedTime (Optional) The modification time of the entry.
+   * @param is               The stream of the entry, which is not closed.
+   * @return True if the file was written, false if it was skipped.
+   * @throws IOException If the file can't be written.
+   */
+  public boolean writeChecked(Path file, long size, int mode, FileTime lastModifiedTime, InputStream is)
+      throws IOException {
+    directory(file.getParent());
+
+    BasicFileAttributes attributes = stat(file);
+    Long recorded = manifest != null ? manifest.digest(name(file), attributes, size) : null;
+    if (recorded != null && size > IN_MEMORY_LIMIT) {
+      return replaceChecked(file, recorded, mode, lastModifiedTime, is);
+    }
+
+    if (recorded != null) {
+      byte[] contents = is.readNBytes((int) size);
+      CRC32 crc = new CRC32();
+      crc.update(contents);
+      if (crc.getValue() == recorded) {
+        return false;
+      }
+
+      is = new ByteArrayInputStream(contents);
+    }
+
+    CheckedInputStream checked = new CheckedInputStream(is, new CRC32());
+    try (FileChannel channel = create(file, attributes, mode)) {
+      copy(checked, channel);
+    }
+
+    written(file, checked.getChecksum().getValue(), size, lastModifiedTime);
+    return true;
+  }
+
+  @Override
+  public boolean writeChecked(String name, long size, int mode, InputStream is) throws IOException {
+    return writeChecked(to.resolve(name), size, mode, null, is);
+  }
+
+  /**
+   * Writes the bytes to the channel.
+   *
+   * @param channel The channel.
+   * @param bytes   The bytes.
+   * @param length  The number of bytes to write.
+   * @throws IOException If the write fails.
+   */
+  public static void write(FileChannel channel, byte[] bytes, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Records the file of an entry in the manifest after it is written and closed.
+   *
+   * @param file   The file.
+   * @param digest The digest of the entry.
+   * @param size   The size of the entry.
+   * @throws IOException If the file can't be read.
+   */
+  public void written(Path file, long digest, long size) throws IOException {
+    written(file, digest, size, null);
+  }
+
+  /**
+   * Restores the modification time of the file of an entry after it is written and closed and then records it in the
+   * manifest, so the manifest contains the restored time.
+   *
+   * @param file             The file.
+   * @param digest           The digest of the entry.
+   * @param size             The size of the entry.
+   * @param lastModifiedTime (Optional) The modification time of the entry.
+   * @throws IOException If the time can't be set or the file can't be read.
+   */
+  public void written(Path file, long digest, long size, FileTime lastModifiedTime) throws IOException {
+    if (lastModifiedTime != null) {
+      unshare(file);
+      setTimes(file, lastModifiedTime);
+    }
+
+    if (manifest != null) {
+      manifest.record(name(file), file, digest, size);
+    }
+  }
+
+  /**
+   * Writes a large entry whose file might be unchanged to a temporary file and replaces the file with it if the CRC of
+   * the contents doesn't match the recorded digest.
+   */
+  private boolean replaceChecked(Path file, long recorded, int mode, FileTime lastModifiedTime, InputStream is)
+      throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".extract");
+    try {
+      CheckedInputStream checked = new CheckedInputStream(is, new CRC32());
+      long size;
+      try (FileChannel channel = create(temp, stat(temp), mode)) {
+        size = copy(checked, channel);
+      }
+
+      long crc = checked.getChecksum().getValue();
+      if (crc == recorded) {
+        return false;
+      }
+
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      written(file, crc, size, lastModifiedTime);
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private String name(Path file) {
+    return to.relativize(file).toString();
+  }
+
+  /**
+   * Reads the attributes of a file with a single stat. If the file system has the unix view, the number of hard links
+   * to the file is read too (see {@link LinkedFileAttributes}).
+   *
+   * @return The attributes or null if the file doesn't exist.
+   */
+  private BasicFileAttributes stat(Path file) throws IOException {
+    try {
+      if (unix) {
+        return new LinkedFileAttributes(Files.readAttributes(file, LinkedFileAttributes.NAMES, LinkOption.NOFOLLOW_LINKS));
+      }
+
+      return Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Replaces a file that has more than one hard link with a copy, so that changing its permissions or times doesn't
+   * change the other links.
+   */
+  private void unshare(Path file) throws IOException {
+    if (!unix || (Integer) Files.getAttribute(file, "unix:nlink", LinkOption.NOFOLLOW_LINKS) <= 1) {
+      return;
+    }
+
+    Path temp = file.resolveSibling(file.getFileName() + ".unshare");
+    try {
+      Files.copy(file, temp, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Sets the access time along with the modification time, so the attributes don't have to be read first.
+   */
+  private static void setTimes(Path file, FileTime time) throws IOException {
+    Files.getFileAttributeView(file, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS).setTimes(time, time, null);
+  }
+
+  /**
+   * The basic attributes of a file plus its number of hard links, which are read from the unix view in a single stat.
+   */
+  private static class LinkedFileAttributes implements BasicFileAttributes {
+    static final String NAMES = "unix:size,lastModifiedTime,lastAccessTime,creationTime,isRegularFile,isDirectory,isSymbolicLink,isOther,fileKey,nlink";
+
+    private final Map<String, Object> attributes;
+
+    LinkedFileAttributes(Map<String, Object> attributes) {
+      this.attributes = attributes;
+    }
+
+    @Override
+    public FileTime creationTime() {
+      return (FileTime) attributes.get("creationTime");
+    }
+
+    @Override
+    public Object fileKey() {
+      return attributes.get("fileKey");
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return (Boolean) attributes.get("isDirectory");
+    }
+
+    @Override
+    public boolean isOther() {
+      return (Boolean) attributes.get("isOther");
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return (Boolean) attributes.get("isRegularFile");
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return (Boolean) attributes.get("isSymbolicLink");
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+      return (FileTime) attributes.get("lastAccessTime");
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+      return (FileTime) attributes.get("lastModifiedTime");
+    }
+
+    public int links() {
+      return (Integer) attributes.get("nlink");
+    }
+
+    @Override
+    public long size() {
+      return (Long) attributes.get("size");
+    }
+  }
+}
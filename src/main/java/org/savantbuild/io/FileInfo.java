@@ -36,6 +36,12 @@ public class FileInfo implements Comparable<FileInfo> {
 
   public FileTime lastModifiedTime;
 
+  /**
+   * The POSIX mode bit map of the file (see {@link #toMode()}). This is 0 if it hasn't been determined, in which case
+   * the mode is calculated from the {@link #permissions}.
+   */
+  public int mode;
+
   public Path origin;
 
   public Set<PosixFilePermission> permissions;
@@ -70,6 +76,7 @@ public class FileInfo implements Comparable<FileInfo> {
       return false;
     if (lastModifiedTime != null ? !lastModifiedTime.equals(fileInfo.lastModifiedTime) : fileInfo.lastModifiedTime != null)
       return false;
+    if (mode != fileInfo.mode) return false;
     if (origin != null ? !origin.equals(fileInfo.origin) : fileInfo.origin != null) return false;
     if (permissions != null ? !permissions.equals(fileInfo.permissions) : fileInfo.permissions != null) return false;
     if (relative != null ? !relative.equals(fileInfo.relative) : fileInfo.relative != null) return false;
@@ -85,6 +92,7 @@ public class FileInfo implements Comparable<FileInfo> {
     result = 31 * result + (groupName != null ? groupName.hashCode() : 0);
     result = 31 * result + (lastAccessTime != null ? lastAccessTime.hashCode() : 0);
     result = 31 * result + (lastModifiedTime != null ? lastModifiedTime.hashCode() : 0);
+    result = 31 * result + mode;
     result = 31 * result + (origin != null ? origin.hashCode() : 0);
     result = 31 * result + (permissions != null ? permissions.hashCode() : 0);
     result = 31 * result + (relative != null ? relative.hashCode() : 0);
@@ -109,6 +117,10 @@ public class FileInfo implements Comparable<FileInfo> {
    * @return The POSIX mode bit map as an integer.
    */
   public int toMode() {
+    if (mode != 0) {
+      return mode;
+    }
+
     return FileTools.toMode(permissions);
   }
 }
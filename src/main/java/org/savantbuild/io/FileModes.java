@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lookup tables that convert between the three representations of POSIX permissions used by Savant:
+ * <ul>
+ *   <li>The permission bits of a POSIX mode (i.e. <code>0755</code>)</li>
+ *   <li>The hex encoding used in build files (i.e. <code>0x755</code>)</li>
+ *   <li>Sets of PosixFilePermissions</li>
+ * </ul>
+ * <p>
+ * All 512 permission combinations are computed once, so none of the conversions allocate. The sets returned from
+ * {@link #toPermissions(int)} are shared and cannot be modified.
+ *
+ * @author Brian Pontarelli
+ */
+public final class FileModes {
+  /**
+   * The file type bits for a regular file. This is always set on the modes Savant puts in archives.
+   */
+  public static final int REGULAR_FILE = 0b1_000_000_000_000_000;
+
+  private static final int[] BITS = {
+      0b100_000_000, 0b010_000_000, 0b001_000_000,
+      0b000_100_000, 0b000_010_000, 0b000_001_000,
+      0b000_000_100, 0b000_000_010, 0b000_000_001
+  };
+
+  private static final int[] HEX_TO_OCTAL = new int[0x778];
+
+  private static final int[] OCTAL_TO_HEX = new int[512];
+
+  private static final PosixFilePermission[] ORDER = {
+      PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE,
+      PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+      PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE
+  };
+
+  private static final Set<PosixFilePermission>[] PERMISSIONS = newPermissionsTable();
+
+  static {
+    for (int octal = 0; octal < 512; octal++) {
+      OCTAL_TO_HEX[octal] = ((octal >> 6) << 8) | (((octal >> 3) & 0b111) << 4) | (octal & 0b111);
+    }
+
+    for (int hex = 0; hex < HEX_TO_OCTAL.length; hex++) {
+      HEX_TO_OCTAL[hex] = (((hex >> 8) & 0b111) << 6) | (((hex >> 4) & 0b111) << 3) | (hex & 0b111);
+    }
+  }
+
+  private FileModes() {
+  }
+
+  /**
+   * Converts the hex encoding (i.e. <code>0x755</code>) to the permission bits of a POSIX mode (i.e. <code>0755</code>).
+   *
+   * @param hex The hex encoded mode.
+   * @return The permission bits.
+   */
+  public static int hexToOctal(int hex) {
+    if (hex >= 0 && hex < HEX_TO_OCTAL.length) {
+      return HEX_TO_OCTAL[hex];
+    }
+
+    return (((hex >> 8) & 0b111) << 6) | (((hex >> 4) & 0b111) << 3) | (hex & 0b111);
+  }
+
+  /**
+   * Converts the permission bits of a POSIX mode (i.e. <code>0755</code>) to the hex encoding (i.e. <code>0x755</code>).
+   * Any bits above the permission bits are ignored.
+   *
+   * @param mode The POSIX mode.
+   * @return The hex encoded mode.
+   */
+  public static int octalToHex(int mode) {
+    return OCTAL_TO_HEX[mode & 0777];
+  }
+
+  /**
+   * Converts the set of permissions to the permission bits of a POSIX mode. This does not iterate over the collection,
+   * it only calls contains, which is allocation free for EnumSets and HashSets.
+   *
+   * @param permissions The permissions.
+   * @return The permission bits or 0 if the permissions are null.
+   */
+  public static int toOctal(Collection<PosixFilePermission> permissions) {
+    if (permissions == null) {
+      return 0;
+    }
+
+    int mode = 0;
+    for (int i = 0; i < ORDER.length; i++) {
+      if (permissions.contains(ORDER[i])) {
+        mode |= BITS[i];
+      }
+    }
+
+    return mode;
+  }
+
+  /**
+   * Returns the shared, unmodifiable set of permissions for the permission bits of the given POSIX mode. Any bits above
+   * the permission bits are ignored.
+   *
+   * @param mode The POSIX mode.
+   * @return The set of permissions.
+   */
+  public static Set<PosixFilePermission> toPermissions(int mode) {
+    return PERMISSIONS[mode & 0777];
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Set<PosixFilePermission>[] newPermissionsTable() {
+    Set<PosixFilePermission>[] table = new Set[512];
+    for (int mode = 0; mode < 512; mode++) {
+      EnumSet<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+      for (int i = 0; i < ORDER.length; i++) {
+        if ((mode & BITS[i]) != 0) {
+          permissions.add(ORDER[i]);
+        }
+      }
+
+      table[mode] = Collections.unmodifiableSet(permissions);
+    }
+
+    return table;
+  }
+}
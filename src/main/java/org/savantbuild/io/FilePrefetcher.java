@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads files ahead of the thread that consumes them. This is the first stage of the archive builder pipelines: files
+ * are read by a pool of threads into pooled buffers, while the consumer compresses and writes the files that were read
+ * earlier. The files are returned in the order they were added.
+ * <p>
+ * The memory is bounded by the in-flight limit. A buffer counts against the limit from the time its read is started
+ * until it is released by the consumer, so the limit covers every stage of the pipeline. Reads are only started while
+ * the limit allows it, except that the next file is always read when nothing else is in flight. Released buffers are
+ * pooled by size class, and the pool itself never holds more than the in-flight limit.
+ * <p>
+ * This class is not thread safe. All of the methods must be called by the consuming thread.
+ *
+ * @author Brian Pontarelli
+ */
+public class FilePrefetcher implements AutoCloseable {
+  public static final long DEFAULT_IN_FLIGHT_LIMIT = 64L * 1024 * 1024;
+
+  private static final int MINIMUM_BUFFER_SIZE = 4 * 1024;
+
+  private final ExecutorService executor;
+
+  private final long inFlightLimit;
+
+  private final Map<Integer, Deque<byte[]>> pool = new HashMap<>();
+
+  private final Deque<Buffer> queued = new ArrayDeque<>();
+
+  private final Deque<CompletableFuture<Buffer>> started = new ArrayDeque<>();
+
+  private long inFlight;
+
+  private long pooled;
+
+  /**
+   * Creates a prefetcher.
+   *
+   * @param threads       The number of threads that read the files.
+   * @param inFlightLimit The maximum number of bytes in the buffers that are being read or haven't been released yet.
+   */
+  public FilePrefetcher(int threads, long inFlightLimit) {
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    this.inFlightLimit = inFlightLimit;
+  }
+
+  private static int sizeClass(long size) {
+    long capacity = Math.max(MINIMUM_BUFFER_SIZE, size);
+    return Math.toIntExact(Long.highestOneBit(capacity - 1) << 1);
+  }
+
+  /**
+   * Adds a file to read. Files must be small enough to fit into a byte array.
+   *
+   * @param file The file.
+   * @param size The size of the file. If the file grows before it is read, it is still read fully.
+   */
+  public void add(Path file, long size) {
+    queued.add(new Buffer(file, size));
+    start();
+  }
+
+  /**
+   * @return True if the read of the next file has been started. If this is false and the consumer is holding buffers,
+   * it should release them before calling {@link #next()}, otherwise the next read exceeds the in-flight limit.
+   */
+  public boolean available() {
+    return !started.isEmpty();
+  }
+
+  /**
+   * Stops the threads. Reads that are in progress are interrupted.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Waits for the next file to be read and returns it.
+   *
+   * @return The buffer that contains the file.
+   * @throws IOException If the file can't be read.
+   * @throws IllegalStateException If there aren't any files left.
+   */
+  public Buffer next() throws IOException {
+    if (started.isEmpty()) {
+      if (queued.isEmpty()) {
+        throw new IllegalStateException("There aren't any files left to read");
+      }
+
+      submit(queued.poll());
+    }
+
+    try {
+      return started.poll().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading files", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+
+      throw new IOException("Unable to read a file", e.getCause());
+    }
+  }
+
+  /**
+   * Releases the buffer back to the pool, which allows more files to be read.
+   *
+   * @param buffer The buffer.
+   */
+  public void release(Buffer buffer) {
+    inFlight -= buffer.capacity;
+    if (buffer.data.length == buffer.capacity && pooled + buffer.capacity <= inFlightLimit) {
+      pool.computeIfAbsent(buffer.capacity, (key) -> new ArrayDeque<>()).push(buffer.data);
+      pooled += buffer.capacity;
+    }
+
+    start();
+  }
+
+  private void start() {
+    while (!queued.isEmpty() && (inFlight == 0 || inFlight + sizeClass(queued.peek().size) <= inFlightLimit)) {
+      submit(queued.poll());
+    }
+  }
+
+  private void submit(Buffer buffer) {
+    buffer.capacity = sizeClass(buffer.size);
+    Deque<byte[]> available = pool.get(buffer.capacity);
+    if (available != null && !available.isEmpty()) {
+      buffer.data = available.pop();
+      pooled -= buffer.capacity;
+    } else {
+      buffer.data = new byte[buffer.capacity];
+    }
+
+    inFlight += buffer.capacity;
+    started.add(CompletableFuture.supplyAsync(() -> {
+      try {
+        buffer.read();
+        return buffer;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor));
+  }
+
+  /**
+   * The contents of a file. Only the first {@link #length} bytes of the data are from the file.
+   */
+  public static class Buffer {
+    public final Path file;
+
+    public final long size;
+
+    public byte[] data;
+
+    public int length;
+
+    private int capacity;
+
+    Buffer(Path file, long size) {
+      this.file = file;
+      this.size = size;
+    }
+
+    void read() throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // Keep reading
+        }
+
+        length = buffer.position();
+        if (!buffer.hasRemaining() && channel.read(ByteBuffer.allocate(1)) > 0) {
+          // The file grew after it was added
+          data = Files.readAllBytes(file);
+          length = data.length;
+        }
+      }
+    }
+  }
+}
@@ -112,6 +112,37 @@ public class FileSet {
     return null;
   }
 
+  /**
+   * Determines if the relative path is included by the patterns. The path is included if it matches any of the include
+   * patterns (or there aren't any) and it doesn't match any of the exclude patterns. The patterns are found anywhere in
+   * the path, so they should be anchored with <code>^</code> and <code>$</code> to match the entire path.
+   *
+   * @param path            The relative path.
+   * @param includePatterns The include patterns.
+   * @param excludePatterns The exclude patterns.
+   * @return True if the path is included.
+   */
+  public static boolean matches(String path, Collection<Pattern> includePatterns, Collection<Pattern> excludePatterns) {
+    boolean keep = includePatterns.isEmpty();
+    for (Pattern includePattern : includePatterns) {
+      if (includePattern.matcher(path).find()) {
+        keep = true;
+        break;
+      }
+    }
+
+    if (keep) {
+      for (Pattern excludePattern : excludePatterns) {
+        if (excludePattern.matcher(path).find()) {
+          keep = false;
+          break;
+        }
+      }
+    }
+
+    return keep;
+  }
+
   /**
    * Constructs a FileSet from a Map of attributes.
    *
@@ -132,26 +163,28 @@ public class FileSet {
    * @throws IOException If the build fails.
    */
   public Set<Directory> toDirectories() throws IOException {
-    List<FileInfo> infos = toFileInfos();
-    Set<Directory> directories = new TreeSet<>();
-    for (FileInfo info : infos) {
-      Path relativeDir = info.relative.getParent();
-      Path originDir = info.origin.getParent();
-      while (relativeDir != null) {
-        Integer mode = FileTools.toHexMode(Files.getPosixFilePermissions(originDir));
-        String userName = Files.getOwner(originDir).getName();
-        String groupName = Files.readAttributes(originDir, PosixFileAttributes.class).group().getName();
-        FileTime lastModifiedTime = Files.getLastModifiedTime(originDir);
-        directories.add(new Directory(relativeDir.toString(), mode, userName, groupName, lastModifiedTime));
-
-        relativeDir = relativeDir.getParent();
-        originDir = originDir.getParent();
-      }
-    }
+    DirectoryIndex index = new DirectoryIndex();
+    index.addAll(this, toFileInfos());
 
+    Set<Directory> directories = new TreeSet<>();
+    index.forEach(directories::add);
     return directories;
   }
 
+  /**
+   * Creates the Directory for one of the directories that contains the files of this FileSet.
+   *
+   * @param relativeDir The path of the directory in the archive.
+   * @param originDir   The directory on the file system.
+   * @return The Directory.
+   * @throws IOException If the attributes of the directory can't be read.
+   */
+  protected Directory toDirectory(Path relativeDir, Path originDir) throws IOException {
+    PosixFileAttributes attributes = Files.readAttributes(originDir, PosixFileAttributes.class);
+    int mode = FileModes.octalToHex(FileModes.toOctal(attributes.permissions()));
+    return new Directory(relativeDir.toString(), mode, attributes.owner().getName(), attributes.group().getName(), attributes.lastModifiedTime());
+  }
+
   /**
    * Converts this FileSet to a list of FileInfo objects. The info objects contain the origin Path and a relative Path.
    * They also include additional information about the file.
@@ -173,6 +206,7 @@ public class FileSet {
         info.lastModifiedTime = Files.getLastModifiedTime(file);
         info.size = (Long) Files.getAttribute(file, "size");
         info.permissions = Files.getPosixFilePermissions(file, LinkOption.NOFOLLOW_LINKS);
+        info.mode = FileTools.toMode(info.permissions);
         results.add(info);
         return FileVisitResult.CONTINUE;
       }
@@ -214,23 +248,6 @@ public class FileSet {
       return true;
     }
 
-    boolean keep = includePatterns.isEmpty();
-    for (Pattern includePattern : includePatterns) {
-      if (includePattern.asPredicate().test(fileInfo.relative.toString())) {
-        keep = true;
-        break;
-      }
-    }
-
-    if (keep) {
-      for (Pattern excludePattern : excludePatterns) {
-        if (excludePattern.asPredicate().test(fileInfo.relative.toString())) {
-          keep = false;
-          break;
-        }
-      }
-    }
-
-    return keep;
+    return matches(fileInfo.relative.toString(), includePatterns, excludePatterns);
   }
 }
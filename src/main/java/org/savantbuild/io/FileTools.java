@@ -27,7 +27,6 @@ import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
@@ -42,7 +41,8 @@ import java.util.stream.Stream;
  */
 public class FileTools {
   /**
-   * Creates a temporary file.
+   * Creates a temporary file. Long-lived processes should use a {@link TempWorkspace} rather than deleteOnExit, because
+   * every path registered with deleteOnExit is held by the JVM until it exits.
    *
    * @param prefix       The prefix for the temporary file.
    * @param suffix       The suffix for the temporary file.
@@ -157,40 +157,7 @@ public class FileTools {
       return 0x644;
     }
 
-    int mode = 0x000;
-    for (PosixFilePermission permission : permissions) {
-      switch (permission) {
-        case GROUP_EXECUTE:
-          mode |= 0x010;
-          break;
-        case GROUP_READ:
-          mode |= 0x040;
-          break;
-        case GROUP_WRITE:
-          mode |= 0x020;
-          break;
-        case OTHERS_EXECUTE:
-          mode |= 0x001;
-          break;
-        case OTHERS_READ:
-          mode |= 0x004;
-          break;
-        case OTHERS_WRITE:
-          mode |= 0x002;
-          break;
-        case OWNER_EXECUTE:
-          mode |= 0x100;
-          break;
-        case OWNER_READ:
-          mode |= 0x400;
-          break;
-        case OWNER_WRITE:
-          mode |= 0x200;
-          break;
-      }
-    }
-
-    return mode;
+    return FileModes.octalToHex(FileModes.toOctal(permissions));
   }
 
   /**
@@ -214,40 +181,7 @@ public class FileTools {
       return 0b1_000_000_110_100_100;
     }
 
-    int mode = 0b1_000_000_000_000_000;
-    for (PosixFilePermission permission : permissions) {
-      switch (permission) {
-        case GROUP_EXECUTE:
-          mode |= 0b001_000;
-          break;
-        case GROUP_READ:
-          mode |= 0b100_000;
-          break;
-        case GROUP_WRITE:
-          mode |= 0b010_000;
-          break;
-        case OTHERS_EXECUTE:
-          mode |= 0b001;
-          break;
-        case OTHERS_READ:
-          mode |= 0b100;
-          break;
-        case OTHERS_WRITE:
-          mode |= 0b010;
-          break;
-        case OWNER_EXECUTE:
-          mode |= 0b001_000_000;
-          break;
-        case OWNER_READ:
-          mode |= 0b100_000_000;
-          break;
-        case OWNER_WRITE:
-          mode |= 0b010_000_000;
-          break;
-      }
-    }
-
-    return mode;
+    return FileModes.REGULAR_FILE | FileModes.toOctal(permissions);
   }
 
   /**
@@ -257,13 +191,7 @@ public class FileTools {
    * @return The POSIX mode.
    */
   public static int toMode(int hex) {
-    int unixMode = 0b1_000_000_000_000_000;
-    unixMode += (hex & 0b111);
-    hex >>= 4; // Line up the next 3 bits
-    unixMode += ((hex & 0b111) << 3);
-    hex >>= 4; // Line up the final 3 bits
-    unixMode += ((hex & 0b111) << 6);
-    return unixMode;
+    return FileModes.REGULAR_FILE | FileModes.hexToOctal(hex);
   }
 
   /**
@@ -294,45 +222,14 @@ public class FileTools {
    * <p>
    * The first bit is always set. The next three bits are the set UID bits, the next 3 bits are the set GID bits. The
    * next three bits are the owner permissions (read, write, execute), then the group permissions and finally the user
-   * permissions.
+   * permissions. The returned set is shared and cannot be modified.
    * </p>
    *
    * @param mode The POSIX bit mapped permissions.
    * @return The POSIX mode bit map as an integer.
    */
   public static Set<PosixFilePermission> toPosixPermissions(int mode) {
-    Set<PosixFilePermission> permissions = new HashSet<>();
-    if ((mode & 0b001_000) == 0b001_000) {
-      permissions.add(PosixFilePermission.GROUP_EXECUTE);
-    }
-    if ((mode & 0b100_000) == 0b100_000) {
-      permissions.add(PosixFilePermission.GROUP_READ);
-    }
-    if ((mode & 0b010_000) == 0b010_000) {
-      permissions.add(PosixFilePermission.GROUP_WRITE);
-    }
-
-    if ((mode & 0b001) == 0b001) {
-      permissions.add(PosixFilePermission.OTHERS_EXECUTE);
-    }
-    if ((mode & 0b100) == 0b100) {
-      permissions.add(PosixFilePermission.OTHERS_READ);
-    }
-    if ((mode & 0b010) == 0b010) {
-      permissions.add(PosixFilePermission.OTHERS_WRITE);
-    }
-
-    if ((mode & 0b001_000_000) == 0b001_000_000) {
-      permissions.add(PosixFilePermission.OWNER_EXECUTE);
-    }
-    if ((mode & 0b100_000_000) == 0b100_000_000) {
-      permissions.add(PosixFilePermission.OWNER_READ);
-    }
-    if ((mode & 0b010_000_000) == 0b010_000_000) {
-      permissions.add(PosixFilePermission.OWNER_WRITE);
-    }
-
-    return permissions;
+    return FileModes.toPermissions(mode);
   }
 
   /**
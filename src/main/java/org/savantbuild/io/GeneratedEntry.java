@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.attribute.FileTime;
+import java.util.function.Supplier;
+
+/**
+ * An archive entry whose contents are generated by the build (i.e. build information, rewritten manifests or generated
+ * classes) rather than read from a file. The contents are written directly into the archive, so they never have to be
+ * written to a temporary file first.
+ * <p>
+ * The contents are either a byte array, a ByteBuffer or a Supplier of InputStreams. Byte arrays and ByteBuffers are not
+ * copied, so they must not be changed until the archive is built. Suppliers must return a new InputStream each time
+ * they are called, because the contents might be read more than once (i.e. to fingerprint them for the build cache and
+ * then to write them).
+ *
+ * @author Brian Pontarelli
+ */
+public class GeneratedEntry {
+  public final String name;
+
+  private final byte[] bytes;
+
+  private final ByteBuffer buffer;
+
+  private final Supplier<InputStream> supplier;
+
+  /**
+   * The modification time of the entry. If this isn't set, the time that the archive is built is used.
+   */
+  public FileTime lastModifiedTime;
+
+  /**
+   * The hex encoded mode of the entry (i.e. <code>0x755</code>) or 0 to use the default mode (<code>0x644</code>).
+   */
+  public int mode;
+
+  public GeneratedEntry(String name, byte[] contents) {
+    this(name, contents, null, null);
+  }
+
+  public GeneratedEntry(String name, ByteBuffer contents) {
+    this(name, null, contents, null);
+  }
+
+  public GeneratedEntry(String name, Supplier<InputStream> contents) {
+    this(name, null, null, contents);
+  }
+
+  private GeneratedEntry(String name, byte[] bytes, ByteBuffer buffer, Supplier<InputStream> supplier) {
+    if (name == null || name.isEmpty() || name.endsWith("/")) {
+      throw new IllegalArgumentException("The [name] of a GeneratedEntry must be set and must not end with a slash");
+    }
+
+    if (bytes == null && buffer == null && supplier == null) {
+      throw new IllegalArgumentException("The contents of the GeneratedEntry [" + name + "] must not be null");
+    }
+
+    this.name = name;
+    this.bytes = bytes;
+    this.buffer = buffer;
+    this.supplier = supplier;
+  }
+
+  /**
+   * Adds the name, mode, modification time and contents of this entry to the fingerprint.
+   *
+   * @param fingerprint The fingerprint.
+   * @param timestamp   The timestamp of the archive. If this is set, the modification time of the entry isn't used.
+   * @throws IOException If the contents can't be read.
+   */
+  public void addTo(BuildCache.Fingerprint fingerprint, FileTime timestamp) throws IOException {
+    fingerprint.add(name)
+               .add(toMode())
+               .add(timestamp != null ? null : lastModifiedTime)
+               .addContents(toBytes());
+  }
+
+  /**
+   * @return The size of the contents or -1 if it isn't known without reading the InputStream.
+   */
+  public long size() {
+    if (bytes != null) {
+      return bytes.length;
+    }
+
+    return buffer != null ? buffer.remaining() : -1;
+  }
+
+  /**
+   * Returns the contents of this entry. Byte arrays are returned as is, the remaining bytes of ByteBuffers are copied
+   * (without changing the position of the buffer) and InputStreams are read fully.
+   *
+   * @return The contents.
+   * @throws IOException If the InputStream can't be read.
+   */
+  public byte[] toBytes() throws IOException {
+    if (bytes != null) {
+      return bytes;
+    }
+
+    if (buffer != null) {
+      byte[] result = new byte[buffer.remaining()];
+      buffer.duplicate().get(result);
+      return result;
+    }
+
+    try (InputStream is = supplier.get()) {
+      if (is == null) {
+        throw new IOException("The supplier of the GeneratedEntry [" + name + "] returned a null InputStream");
+      }
+
+      return is.readAllBytes();
+    }
+  }
+
+  /**
+   * Converts the hex encoded mode of this entry to a POSIX bit mapped mode. See {@link FileInfo#toMode()} for the
+   * layout of the bit map.
+   *
+   * @return The POSIX mode bit map.
+   */
+  public int toMode() {
+    return FileTools.toMode(mode != 0 ? mode : 0x644);
+  }
+
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * Sets the lastModifiedTime.
+   *
+   * @param lastModifiedTime The lastModifiedTime
+   * @return This.
+   */
+  public GeneratedEntry withLastModifiedTime(FileTime lastModifiedTime) {
+    this.lastModifiedTime = lastModifiedTime;
+    return this;
+  }
+
+  /**
+   * Sets the mode.
+   *
+   * @param mode The hex encoded mode
+   * @return This.
+   */
+  public GeneratedEntry withMode(int mode) {
+    this.mode = mode;
+    return this;
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.regex.Pattern;
+
+/**
+ * An {@link ExtractionTarget} that keeps the extracted entries in memory, so that archives can be inspected or
+ * repackaged without writing them to disk.
+ * <p>
+ * The contents of the files are packed into large slabs, so small files don't each need their own buffer. Files that
+ * are larger than a slab (or whose size isn't known) get their own buffer. The slabs can be direct (off-heap) buffers,
+ * in which case they are returned to a pool when the tree is closed and reused by the next tree.
+ * <p>
+ * The files are exposed as {@link GeneratedEntry}s, which the builders write without copying, and they can be added to
+ * a {@link Copier}. The entries can be selected with include and exclude patterns that work the same as the patterns of
+ * a {@link FileSet}. The buffers of the entries must not be used after the tree is closed.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Brian Pontarelli
+ */
+public class MemoryTree implements ExtractionTarget, Closeable {
+  public static final int SLAB_SIZE = 1024 * 1024;
+
+  private static final ConcurrentLinkedDeque<ByteBuffer> directSlabs = new ConcurrentLinkedDeque<>();
+
+  public final boolean direct;
+
+  private final Map<String, Integer> directories = new TreeMap<>();
+
+  private final Map<String, Entry> files = new TreeMap<>();
+
+  private final byte[] scratch = new byte[64 * 1024];
+
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+
+  private ByteBuffer slab;
+
+  /**
+   * Creates a tree that stores the files on the heap.
+   */
+  public MemoryTree() {
+    this(false);
+  }
+
+  /**
+   * Creates a tree.
+   *
+   * @param direct Determines if the files are stored in direct (off-heap) buffers.
+   */
+  public MemoryTree(boolean direct) {
+    this.direct = direct;
+  }
+
+  /**
+   * Returns the slabs to the pool. The tree is empty afterwards.
+   */
+  @Override
+  public synchronized void close() {
+    if (direct) {
+      for (ByteBuffer buffer : slabs) {
+        directSlabs.push(buffer.clear());
+      }
+    }
+
+    slabs.clear();
+    slab = null;
+    files.clear();
+    directories.clear();
+  }
+
+  @Override
+  public synchronized void directory(String name, int mode) {
+    directories.put(name, mode);
+  }
+
+  /**
+   * @return The names and POSIX modes of the directories, sorted by name.
+   */
+  public synchronized Map<String, Integer> directories() {
+    return Collections.unmodifiableMap(new TreeMap<>(directories));
+  }
+
+  /**
+   * Determines if the file exists.
+   *
+   * @param name The name of the file.
+   * @return True if the file exists.
+   */
+  public synchronized boolean exists(String name) {
+    return files.containsKey(name);
+  }
+
+  /**
+   * @return The names of the files, sorted.
+   */
+  public synchronized List<String> names() {
+    return new ArrayList<>(files.keySet());
+  }
+
+  /**
+   * Returns the contents of a file.
+   *
+   * @param name The name of the file.
+   * @return A read-only buffer of the contents or null if the file doesn't exist.
+   */
+  public synchronized ByteBuffer read(String name) {
+    Entry entry = files.get(name);
+    return entry != null ? entry.contents.asReadOnlyBuffer() : null;
+  }
+
+  /**
+   * @return The number of files.
+   */
+  public synchronized int size() {
+    return files.size();
+  }
+
+  /**
+   * Converts all of the files to GeneratedEntries. See {@link #toGeneratedEntries(Collection, Collection)}.
+   *
+   * @return The entries.
+   */
+  public List<GeneratedEntry> toGeneratedEntries() {
+    return toGeneratedEntries(Collections.emptyList(), Collections.emptyList());
+  }
+
+  /**
+   * Converts the files that are selected by the patterns to GeneratedEntries that share the buffers of this tree. The
+   * modes of the files are kept.
+   *
+   * @param includePatterns The patterns of the files to include.
+   * @param excludePatterns The patterns of the files to exclude.
+   * @return The entries, sorted by name.
+   */
+  public synchronized List<GeneratedEntry> toGeneratedEntries(Collection<Pattern> includePatterns, Collection<Pattern> excludePatterns) {
+    List<GeneratedEntry> entries = new ArrayList<>();
+    for (Map.Entry<String, Entry> file : files.entrySet()) {
+      if (FileSet.matches(file.getKey(), includePatterns, excludePatterns)) {
+        Entry entry = file.getValue();
+        entries.add(new GeneratedEntry(file.getKey(), entry.contents.asReadOnlyBuffer()).withMode(entry.mode != 0 ? FileModes.octalToHex(entry.mode) : 0));
+      }
+    }
+
+    return entries;
+  }
+
+  @Override
+  public synchronized boolean write(String name, long digest, long size, int mode, InputStream is) throws IOException {
+    ByteBuffer contents;
+    if (size >= 0 && size <= SLAB_SIZE) {
+      if (slab == null || slab.remaining() < size) {
+        slab = newSlab();
+        slabs.add(slab);
+      }
+
+      contents = slab.slice(slab.position(), (int) size);
+      slab.position(slab.position() + (int) size);
+      fill(contents, is, name);
+    } else if (size > SLAB_SIZE) {
+      contents = direct ? ByteBuffer.allocateDirect(Math.toIntExact(size)) : ByteBuffer.allocate(Math.toIntExact(size));
+      fill(contents, is, name);
+    } else {
+      byte[] bytes = is.readAllBytes();
+      contents = direct ? ByteBuffer.allocateDirect(bytes.length).put(bytes).flip() : ByteBuffer.wrap(bytes);
+    }
+
+    files.put(name, new Entry(contents, mode & 0777));
+    return true;
+  }
+
+  @Override
+  public boolean writeChecked(String name, long size, int mode, InputStream is) throws IOException {
+    // The digest isn't used, because the entries are always added
+    return write(name, 0, size, mode, is);
+  }
+
+  private void fill(ByteBuffer contents, InputStream is, String name) throws IOException {
+    while (contents.hasRemaining()) {
+      int read = is.read(scratch, 0, Math.min(scratch.length, contents.remaining()));
+      if (read < 0) {
+        throw new IOException("The entry [" + name + "] is shorter than its size");
+      }
+
+      contents.put(scratch, 0, read);
+    }
+
+    contents.flip();
+  }
+
+  private ByteBuffer newSlab() {
+    if (!direct) {
+      return ByteBuffer.allocate(SLAB_SIZE);
+    }
+
+    ByteBuffer pooled = directSlabs.poll();
+    return pooled != null ? pooled : ByteBuffer.allocateDirect(SLAB_SIZE);
+  }
+
+  private static class Entry {
+    final ByteBuffer contents;
+
+    final int mode;
+
+    Entry(ByteBuffer contents, int mode) {
+      this.contents = contents;
+      this.mode = mode;
+    }
+  }
+}
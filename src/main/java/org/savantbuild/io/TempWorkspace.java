@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A scoped temporary workspace. Workspaces are directories under a per-session root directory (one per JVM) and they
+ * are removed by a background parallel delete when they are closed. Unlike {@link java.io.File#deleteOnExit()}, nothing
+ * is registered with the JVM, so long-lived processes like build daemons can create and close any number of
+ * workspaces without growing the JVM's shutdown state.
+ * <p>
+ * Usage:
+ * <pre>
+ *   try (TempWorkspace workspace = TempWorkspace.create("build")) {
+ *     Path dir = workspace.newDirectory("classes");
+ *     Path file = workspace.newFile("manifest", ".mf");
+ *     ...
+ *   }
+ * </pre>
+ * <p>
+ * Session roots left behind by JVMs that have exited (crashed or were killed before their workspaces were closed) are
+ * removed in the background when the next session root is created.
+ *
+ * @author Brian Pontarelli
+ */
+public class TempWorkspace implements AutoCloseable {
+  private static final ForkJoinPool DELETE_POOL = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+  private static final String SESSION_PREFIX = "savant-session-";
+
+  private static final AtomicLong TRASH_COUNTER = new AtomicLong();
+
+  private static final Object sessionLock = new Object();
+
+  private static Path sessionRoot;
+
+  public final Path directory;
+
+  private final AtomicLong counter = new AtomicLong();
+
+  private volatile ForkJoinTask<Void> deletion;
+
+  private TempWorkspace(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates a new workspace under the session root.
+   *
+   * @param name The name of the workspace. This is only used as a prefix to make the directory easier to identify.
+   * @return The workspace.
+   * @throws IOException If the workspace directory can't be created.
+   */
+  public static TempWorkspace create(String name) throws IOException {
+    return new TempWorkspace(Files.createTempDirectory(sessionRoot(), name + "-"));
+  }
+
+  /**
+   * Deletes the given path (recursively for directories) in the background. The path is first renamed (if possible) so
+   * that the name is immediately available again.
+   *
+   * @param path The path to delete.
+   * @return The task that is deleting the path.
+   */
+  public static ForkJoinTask<Void> deleteInBackground(Path path) {
+    Path target = path;
+    if (path.getParent() != null) {
+      Path trash = path.resolveSibling(".trash-" + ProcessHandle.current().pid() + "-" + TRASH_COUNTER.incrementAndGet());
+      try {
+        target = Files.move(path, trash);
+      } catch (IOException e) {
+        // Delete in place
+      }
+    }
+
+    return DELETE_POOL.submit(new DeleteTask(target));
+  }
+
+  /**
+   * Returns the root directory of this session (JVM). This is created on the first call.
+   *
+   * @return The session root.
+   * @throws IOException If the session root can't be created.
+   */
+  public static Path sessionRoot() throws IOException {
+    synchronized (sessionLock) {
+      if (sessionRoot == null || !Files.isDirectory(sessionRoot)) {
+        Path tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+        sessionRoot = Files.createTempDirectory(tmp, SESSION_PREFIX + ProcessHandle.current().pid() + "-");
+        deleteAbandonedSessions(tmp);
+      }
+
+      return sessionRoot;
+    }
+  }
+
+  private static void deleteAbandonedSessions(Path tmp) throws IOException {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(tmp, SESSION_PREFIX + "*")) {
+      for (Path session : stream) {
+        String name = session.getFileName().toString();
+        int end = name.indexOf('-', SESSION_PREFIX.length());
+        if (end == -1) {
+          continue;
+        }
+
+        try {
+          long pid = Long.parseLong(name.substring(SESSION_PREFIX.length(), end));
+          if (ProcessHandle.of(pid).isEmpty()) {
+            DELETE_POOL.submit(new DeleteTask(session));
+          }
+        } catch (NumberFormatException e) {
+          // Not one of ours
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a nested workspace. The nested workspace can be closed on its own, but it is also removed when this
+   * workspace is closed.
+   *
+   * @param name The name of the workspace.
+   * @return The nested workspace.
+   * @throws IOException If the directory can't be created.
+   */
+  public TempWorkspace child(String name) throws IOException {
+    return new TempWorkspace(newDirectory(name));
+  }
+
+  /**
+   * Closes the workspace and starts deleting it in the background. This doesn't wait for the delete to complete.
+   */
+  @Override
+  public void close() {
+    closeAsync();
+  }
+
+  /**
+   * Closes the workspace and starts deleting it in the background.
+   *
+   * @return The task that is deleting the workspace. Calling join or get on it waits for the delete to complete.
+   */
+  public synchronized ForkJoinTask<Void> closeAsync() {
+    if (deletion == null) {
+      deletion = deleteInBackground(directory);
+    }
+
+    return deletion;
+  }
+
+  /**
+   * Creates a new directory in this workspace. The name is the prefix plus a counter, which avoids the random name
+   * generation and retries of {@link Files#createTempDirectory(Path, String, java.nio.file.attribute.FileAttribute[])}.
+   *
+   * @param prefix The prefix of the directory name.
+   * @return The directory.
+   * @throws IOException If the directory can't be created.
+   */
+  public Path newDirectory(String prefix) throws IOException {
+    checkOpen();
+    return Files.createDirectory(directory.resolve(prefix + "-" + counter.incrementAndGet()));
+  }
+
+  /**
+   * Creates a new empty file in this workspace.
+   *
+   * @param prefix The prefix of the file name.
+   * @param suffix The suffix of the file name (i.e. <code>.jar</code>).
+   * @return The file.
+   * @throws IOException If the file can't be created.
+   */
+  public Path newFile(String prefix, String suffix) throws IOException {
+    checkOpen();
+    return Files.createFile(directory.resolve(prefix + "-" + counter.incrementAndGet() + (suffix != null ? suffix : "")));
+  }
+
+  private void checkOpen() {
+    if (deletion != null) {
+      throw new IllegalStateException("The workspace [" + directory + "] has been closed");
+    }
+  }
+
+  /**
+   * Deletes a directory tree. Sub-directories are deleted in parallel. Symbolic links are deleted, never followed.
+   */
+  private static class DeleteTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Path path;
+
+    DeleteTask(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+          List<DeleteTask> subTasks = new ArrayList<>();
+          try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path child : stream) {
+              if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                subTasks.add(new DeleteTask(child));
+              } else {
+                Files.deleteIfExists(child);
+              }
+            }
+          }
+
+          invokeAll(subTasks);
+        }
+
+        Files.deleteIfExists(path);
+      } catch (NoSuchFileException e) {
+        // Already gone
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -15,26 +15,47 @@
  */
 package org.savantbuild.io.jar;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+import java.util.zip.ZipException;
 
+import org.savantbuild.io.BuildCache;
+import org.savantbuild.io.ChannelOutputStream;
+import org.savantbuild.io.Checksum;
 import org.savantbuild.io.Directory;
+import org.savantbuild.io.DirectoryIndex;
 import org.savantbuild.io.FileInfo;
+import org.savantbuild.io.FilePrefetcher;
 import org.savantbuild.io.FileSet;
+import org.savantbuild.io.GeneratedEntry;
+import org.savantbuild.io.zip.ArchiveEntries;
+import org.savantbuild.io.zip.CompressionPolicy;
+import org.savantbuild.io.zip.DuplicatePolicy;
+import org.savantbuild.io.zip.RawZipEntry;
+import org.savantbuild.io.zip.ZipArchiveWriter;
+import org.savantbuild.io.zip.ZipSource;
+
+import static java.util.Arrays.asList;
 
 /**
  * Helps build Jar files.
@@ -42,14 +63,101 @@ import org.savantbuild.io.FileSet;
  * @author Brian Pontarelli
  */
 public class JarBuilder {
-  public final List<Directory> directories = new ArrayList<>();
+  private static final Pattern MANIFEST = Pattern.compile("^" + Pattern.quote(JarFile.MANIFEST_NAME) + "$");
+
+  private static final Pattern SIGNATURE_FILES = Pattern.compile("^META-INF/[^/]+\\.(SF|RSA|DSA|EC)$");
+
+  /**
+   * The directories of the archive, sorted by name. The directories of the FileSets are added to this when the archive
+   * is built, unless a directory with the same name has already been added.
+   */
+  public final DirectoryIndex directories = new DirectoryIndex();
 
   public final Path file;
 
   public final List<FileSet> fileSets = new ArrayList<>();
 
+  /**
+   * Entries whose contents are generated by the build. These are written directly into the JAR file, in name order
+   * with the files of all of the FileSets. If a file has the same name as a generated entry, the generated entry
+   * replaces it.
+   */
+  public final List<GeneratedEntry> generatedEntries = new ArrayList<>();
+
+  /**
+   * Existing ZIP and JAR files whose entries are copied into the JAR file without being decompressed.
+   */
+  public final List<ZipSource> zipSources = new ArrayList<>();
+
+  /**
+   * If set, the JAR file is restored from this cache when the cache contains a JAR file with the same fingerprint.
+   * Otherwise the JAR file is built and added to the cache.
+   */
+  public BuildCache cache;
+
+  /**
+   * The checksums that are computed from the bytes of the JAR file while it is written.
+   */
+  public final Set<Checksum> checksums = EnumSet.noneOf(Checksum.class);
+
+  /**
+   * If true, a sidecar file is written next to the JAR file for each of the checksums (i.e. <code>foo.jar.sha1</code>).
+   */
+  public boolean checksumFiles = true;
+
+  /**
+   * The hex encoded digests of the checksums, which are set when the archive is built.
+   */
+  public Map<Checksum, String> digests;
+
+  /**
+   * The size of the buffer between the JAR file and its FileChannel.
+   */
+  public int bufferSize = ChannelOutputStream.DEFAULT_BUFFER_SIZE;
+
+  /**
+   * If true and the JAR file already exists, the files whose size, modification time and CRC haven't changed are
+   * copied from the existing JAR file without compressing them again. The new JAR file is built in a temporary file
+   * and then moved over the existing file.
+   */
+  public boolean incremental;
+
+  /**
+   * Determines the compression level of each entry and which entries are STORED.
+   */
+  public CompressionPolicy compressionPolicy = new CompressionPolicy();
+
   public Manifest manifest = new Manifest();
 
+  /**
+   * Determines which entry is kept when the files and the zip sources contain more than one entry with the same name.
+   * By default, service provider files are merged and the first of any other duplicate is kept.
+   */
+  public DuplicatePolicy duplicatePolicy = DuplicatePolicy.forJar();
+
+  /**
+   * If set, this is used for the timestamps of all of the entries, rather than the timestamps of the files. This makes
+   * the JAR file reproducible and allows the cache to be used even if the files are touched.
+   */
+  public FileTime timestamp;
+
+  /**
+   * The number of threads used to compress the files. Values greater than one compress the files concurrently, but the
+   * output is identical to the sequential build.
+   */
+  public int parallelism = 1;
+
+  /**
+   * The number of threads that read the files ahead of the compression. If this is greater than zero (or the
+   * parallelism is greater than one), reading, compressing and writing the files overlap.
+   */
+  public int prefetchThreads;
+
+  /**
+   * The maximum number of bytes of the files that are being read, compressed or waiting to be written at once.
+   */
+  public long inFlightLimit = FilePrefetcher.DEFAULT_IN_FLIGHT_LIMIT;
+
   public JarBuilder(String file) {
     this(Paths.get(file));
   }
@@ -58,8 +166,21 @@ public class JarBuilder {
     this.file = file;
   }
 
+  /**
+   * Creates a builder without a file. The archive can only be built into a stream or channel.
+   */
+  public JarBuilder() {
+    this((Path) null);
+  }
+
   public int build() throws IOException {
-    if (Files.exists(file)) {
+    if (file == null) {
+      throw new IOException("The [file] is not set. Use build(OutputStream) or build(WritableByteChannel) instead");
+    }
+
+    digests = null;
+    boolean reuse = incremental && Files.isRegularFile(file);
+    if (!reuse && Files.exists(file)) {
       Files.delete(file);
     }
 
@@ -67,53 +188,193 @@ public class JarBuilder {
       Files.createDirectories(file.getParent());
     }
 
-    // Sort the file infos and add the directories
-    Set<FileInfo> fileInfos = new TreeSet<>();
-    for (FileSet fileSet : fileSets) {
-      Set<Directory> dirs = fileSet.toDirectories();
-      dirs.removeAll(directories);
-      for (Directory dir : dirs) {
-        directories.add(dir);
+    List<FileInfo> fileInfos = collect();
+    byte[] manifestBytes = manifestBytes();
+    try (ArchiveEntries entries = entries(fileInfos)) {
+      String key = null;
+      if (cache != null) {
+        key = fingerprint(fileInfos, manifestBytes);
+        if (cache.restore(key, file)) {
+          writeChecksums();
+          return directories.size() + entries.size();
+        }
+      }
+
+      int count = write(entries, manifestBytes, reuse);
+      if (cache != null) {
+        cache.store(key, file);
       }
 
-      fileInfos.addAll(fileSet.toFileInfos());
+      writeChecksums();
+
+      return count;
     }
+  }
 
-    int count = 0;
+  /**
+   * Builds the JAR file into the stream, which is flushed but not closed. See {@link #build(WritableByteChannel)}.
+   *
+   * @param out The stream.
+   * @return The number of entries written.
+   * @throws IOException If the build fails.
+   */
+  public int build(OutputStream out) throws IOException {
+    int count = build(Channels.newChannel(out));
+    out.flush();
+    return count;
+  }
 
-    // Preemptively append a slash so the set will remove any duplicate directories, including META-INF/
-    for (Directory directory : directories) {
-      if (!directory.name.endsWith("/")) {
-        //noinspection StringConcatenationInLoop
-        directory.name = directory.name + "/";
+  /**
+   * Builds the JAR file into the channel, which is not closed. The output is written strictly in order, so entries
+   * whose sizes aren't known before they are compressed use data descriptors. The file, cache, incremental and
+   * checksum file options only apply to {@link #build()}. The checksums are still computed into the {@link #digests}.
+   *
+   * @param channel The channel.
+   * @return The number of entries written.
+   * @throws IOException If the build fails.
+   */
+  public int build(WritableByteChannel channel) throws IOException {
+    digests = null;
+    List<FileInfo> fileInfos = collect();
+    byte[] manifestBytes = manifestBytes();
+    try (ArchiveEntries entries = entries(fileInfos)) {
+      ChannelOutputStream os = new ChannelOutputStream(channel, bufferSize, false);
+      os.addChecksums(checksums);
+      int count;
+      try (ZipArchiveWriter writer = new ZipArchiveWriter(os)) {
+        count = write(writer, entries, manifestBytes);
       }
+
+      digests = checksums.isEmpty() ? null : os.checksums();
+      return count;
+    }
+  }
+
+  public JarBuilder bufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+    return this;
+  }
+
+  public JarBuilder cache(BuildCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  public JarBuilder checksumFiles(boolean checksumFiles) {
+    this.checksumFiles = checksumFiles;
+    return this;
+  }
+
+  public JarBuilder checksums(Checksum... checksums) {
+    this.checksums.addAll(asList(checksums));
+    return this;
+  }
+
+  /**
+   * Sets the default compression level (0 through 9) of the entries. A level of 0 STORES the entries.
+   *
+   * @param level The level.
+   * @return This.
+   */
+  public JarBuilder compressionLevel(int level) {
+    compressionPolicy.level(level);
+    return this;
+  }
+
+  public JarBuilder compressionPolicy(CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
+    return this;
+  }
+
+  public JarBuilder inFlightLimit(long inFlightLimit) {
+    this.inFlightLimit = inFlightLimit;
+    return this;
+  }
+
+  public JarBuilder incremental(boolean incremental) {
+    this.incremental = incremental;
+    return this;
+  }
+
+  /**
+   * Collects the files of the FileSets and adds their directories.
+   */
+  private List<FileInfo> collect() throws IOException {
+    List<FileInfo> fileInfos = new ArrayList<>();
+    for (FileSet fileSet : fileSets) {
+      List<FileInfo> infos = fileSet.toFileInfos();
+      directories.addAll(fileSet, infos);
+      fileInfos.addAll(infos);
     }
 
     // Ensure there is a META-INF directory because our JAR files always have a MANIFEST.MF file
     directories.add(new Directory("META-INF/"));
+    return fileInfos;
+  }
 
-    try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(file), manifest)) {
-      for (Directory directory : new HashSet<>(directories)) {
-        jos.putNextEntry(new JarEntry(directory.name));
-        jos.closeEntry();
-        count++;
+  /**
+   * Adds everything to the ArchiveEntries, which resolves the duplicates.
+   */
+  private ArchiveEntries entries(List<FileInfo> fileInfos) throws IOException {
+    ArchiveEntries entries = new ArchiveEntries(duplicatePolicy);
+    try {
+      // The manifest is always written by this builder and signatures of the sources don't match the new JAR file
+      entries.reserve(MANIFEST);
+      entries.reserve(SIGNATURE_FILES);
+      entries.addDirectories(directories.names());
+      entries.addFiles(fileInfos);
+      entries.addGenerated(generatedEntries);
+      for (ZipSource zipSource : zipSources) {
+        entries.addSource(zipSource);
       }
+    } catch (IOException | RuntimeException e) {
+      entries.close();
+      throw e;
+    }
 
-      for (FileInfo fileInfo : fileInfos) {
-        JarEntry entry = new JarEntry(fileInfo.relative.toString());
-        entry.setCreationTime(fileInfo.creationTime);
-        entry.setLastAccessTime(fileInfo.lastAccessTime);
-        entry.setLastModifiedTime(fileInfo.lastModifiedTime);
-        entry.setSize(fileInfo.size);
-        jos.putNextEntry(entry);
-        Files.copy(fileInfo.origin, jos);
-        jos.flush();
-        jos.closeEntry();
-        count++;
-      }
+    return entries;
+  }
+
+  private byte[] manifestBytes() throws IOException {
+    ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+    manifest.write(manifestBytes);
+    return manifestBytes.toByteArray();
+  }
+
+  /**
+   * Fingerprints everything that ends up in the JAR file. Access and creation times are left out, because reading
+   * the files changes the access times and the creation times are rarely supported.
+   */
+  private String fingerprint(List<FileInfo> fileInfos, byte[] manifestBytes) throws IOException {
+    BuildCache.Fingerprint fingerprint = BuildCache.fingerprint("jar").add(timestamp).add(new String(manifestBytes, StandardCharsets.UTF_8));
+    compressionPolicy.addTo(fingerprint);
+    duplicatePolicy.addTo(fingerprint);
+    fingerprint.add(zipSources.size());
+    for (ZipSource zipSource : zipSources) {
+      zipSource.addTo(fingerprint);
     }
 
-    return count;
+    fingerprint.add(directories.toString());
+
+    fingerprint.add(fileInfos.size());
+    for (FileInfo fileInfo : fileInfos) {
+      fingerprint.add(fileInfo.relative.toString())
+                 .add(timestamp != null ? null : fileInfo.lastModifiedTime)
+                 .add(timestamp != null ? null : fileInfo.creationTime)
+                 .addContents(fileInfo.origin);
+    }
+
+    fingerprint.add(generatedEntries.size());
+    for (GeneratedEntry generatedEntry : generatedEntries) {
+      generatedEntry.addTo(fingerprint, timestamp);
+    }
+
+    return fingerprint.toKey();
+  }
+
+  public JarBuilder duplicatePolicy(DuplicatePolicy duplicatePolicy) {
+    this.duplicatePolicy = duplicatePolicy;
+    return this;
   }
 
   public JarBuilder directory(Directory directory) {
@@ -130,6 +391,15 @@ public class JarBuilder {
     return this;
   }
 
+  public JarBuilder entry(GeneratedEntry generatedEntry) {
+    generatedEntries.add(generatedEntry);
+    return this;
+  }
+
+  public JarBuilder entry(String name, byte[] contents) {
+    return entry(new GeneratedEntry(name, contents));
+  }
+
   public JarBuilder fileSet(Path directory) throws IOException {
     return fileSet(new FileSet(directory));
   }
@@ -164,6 +434,34 @@ public class JarBuilder {
     return this;
   }
 
+  public JarBuilder parallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public JarBuilder prefetchThreads(int prefetchThreads) {
+    this.prefetchThreads = prefetchThreads;
+    return this;
+  }
+
+  public JarBuilder timestamp(FileTime timestamp) {
+    this.timestamp = timestamp;
+    return this;
+  }
+
+  public JarBuilder zipSource(Path file) throws IOException {
+    return zipSource(new ZipSource(file));
+  }
+
+  public JarBuilder zipSource(ZipSource zipSource) throws IOException {
+    if (!Files.isRegularFile(zipSource.file)) {
+      throw new IOException("The [zipSource.file] path [" + zipSource.file + "] does not exist or is not a file");
+    }
+
+    zipSources.add(zipSource);
+    return this;
+  }
+
   public JarBuilder optionalFileSet(Path directory) throws IOException {
     return optionalFileSet(new FileSet(directory));
   }
@@ -184,4 +482,90 @@ public class JarBuilder {
 
     return this;
   }
-}
\ No newline at end of file
+
+  private void writeChecksums() throws IOException {
+    if (checksums.isEmpty()) {
+      return;
+    }
+
+    if (digests == null) {
+      // The archive was restored from the cache
+      digests = Checksum.compute(file, checksums);
+    }
+
+    if (checksumFiles) {
+      Checksum.writeSidecars(file, digests);
+    }
+  }
+
+  private int write(ArchiveEntries entries, byte[] manifestBytes, boolean reuse) throws IOException {
+    int count;
+    Path target = reuse ? Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp") : file;
+    ChannelOutputStream os = ChannelOutputStream.open(target, bufferSize);
+    os.addChecksums(checksums);
+    try (ZipArchiveWriter writer = new ZipArchiveWriter(os)) {
+      if (reuse) {
+        try {
+          writer.reuse(file);
+        } catch (ZipException e) {
+          // The existing file is not a valid JAR file, so everything is compressed
+        }
+      }
+
+      count = write(writer, entries, manifestBytes);
+    } catch (IOException | RuntimeException e) {
+      if (reuse) {
+        Files.deleteIfExists(target);
+      }
+
+      throw e;
+    }
+
+    if (reuse) {
+      Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    digests = checksums.isEmpty() ? null : os.checksums();
+    return count;
+  }
+
+  private int write(ZipArchiveWriter writer, ArchiveEntries entries, byte[] manifestBytes) throws IOException {
+    int count = 0;
+
+    writer.jarMarker = true;
+    writer.compressionPolicy = compressionPolicy;
+    writer.parallelism = parallelism;
+    writer.prefetchThreads = prefetchThreads;
+    writer.inFlightLimit = inFlightLimit;
+
+    // The manifest is always the first entry, just like the JarOutputStream
+    FileTime now = timestamp != null ? timestamp : FileTime.fromMillis(System.currentTimeMillis());
+    RawZipEntry manifestEntry = new RawZipEntry(JarFile.MANIFEST_NAME);
+    manifestEntry.lastModifiedTime = now;
+    writer.write(manifestEntry, manifestBytes);
+
+    for (Directory directory : directories) {
+      RawZipEntry entry = new RawZipEntry(DirectoryIndex.normalize(directory.name));
+      entry.lastModifiedTime = now;
+      writer.writeDirectory(entry);
+      count++;
+    }
+
+    count += entries.write(writer, (fileInfo) -> {
+      RawZipEntry entry = new RawZipEntry(fileInfo.relative.toString());
+      if (timestamp != null) {
+        entry.lastModifiedTime = timestamp;
+      } else {
+        entry.creationTime = fileInfo.creationTime;
+        entry.lastModifiedTime = fileInfo.lastModifiedTime;
+      }
+      return entry;
+    }, (generatedEntry) -> {
+      RawZipEntry entry = new RawZipEntry(generatedEntry.name);
+      entry.lastModifiedTime = timestamp == null && generatedEntry.lastModifiedTime != null ? generatedEntry.lastModifiedTime : now;
+      return entry;
+    });
+
+    return count;
+  }
+}
@@ -17,12 +17,15 @@ package org.savantbuild.io.jar;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
-import java.util.Enumeration;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.savantbuild.io.ChunkedFileCopier;
+import org.savantbuild.io.ExtractionTarget;
+import org.savantbuild.io.zip.ZipExtractor;
 
 /**
  * Collection of JAR file tools.
@@ -31,49 +34,109 @@ import java.util.jar.JarFile;
  */
 public class JarTools {
   /**
-   * Unzips a JAR file to a directory.
+   * Unzips a JAR file to a directory. The entries that are unchanged since the last unjar to the same directory are
+   * skipped (see {@link org.savantbuild.io.ExtractionManifest}) and the modification times of the entries are
+   * restored.
    *
    * @param file The JAR file to unjar.
    * @param to   The directory to unjar to.
    * @throws IOException If the unjar fails.
    */
   public static void unjar(Path file, Path to) throws IOException {
-    if (Files.notExists(to)) {
-      Files.createDirectories(to);
-    }
+    unjar(file, to, new ChunkedFileCopier());
+  }
 
-    try (JarFile jarFile = new JarFile(file.toFile())) {
-      Enumeration<JarEntry> entries = jarFile.entries();
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        Path entryPath = to.resolve(entry.getName());
-        if (!entry.isDirectory()) {
-          if (Files.notExists(entryPath.getParent())) {
-            Files.createDirectories(entryPath.getParent());
-          }
+  /**
+   * Unzips a JAR file to a target (i.e. a {@link org.savantbuild.io.MemoryTree}).
+   *
+   * @param file   The JAR file to unjar.
+   * @param target The target.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(Path file, ExtractionTarget target) throws IOException {
+    new ZipExtractor().extract(file, target);
+  }
 
-          if (Files.isRegularFile(entryPath)) {
-            if (Files.size(entryPath) == entry.getSize()) {
-              continue;
-            } else {
-              Files.delete(entryPath);
-            }
-          }
+  /**
+   * Unzips a JAR file from a stream (i.e. while it is being downloaded) to a directory without writing it to a file
+   * first. The entries are read through their local headers and the permissions of the entries are not restored (see
+   * {@link ZipExtractor}). The stream isn't closed.
+   *
+   * @param stream The stream of the JAR file.
+   * @param to     The directory to unjar to.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(InputStream stream, Path to) throws IOException {
+    new ZipExtractor().extract(stream, to);
+  }
 
-          Files.createFile(entryPath);
+  /**
+   * Unzips a JAR file from a channel to a directory without writing it to a file first. See
+   * {@link #unjar(InputStream, Path)}.
+   *
+   * @param channel The channel of the JAR file.
+   * @param to      The directory to unjar to.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(ReadableByteChannel channel, Path to) throws IOException {
+    new ZipExtractor().extract(channel, to);
+  }
 
-          try (OutputStream os = Files.newOutputStream(entryPath)) {
-            InputStream is = jarFile.getInputStream(entry);
-            byte[] ba = new byte[1024];
-            int read;
-            while ((read = is.read(ba)) != -1) {
-              if (read > 0) {
-                os.write(ba, 0, read);
-              }
-            }
-          }
-        }
-      }
-    }
+  /**
+   * Unzips a batch of JAR files (i.e. the dependencies of a project), each to its own directory, using a single pool of
+   * threads for all of the entries. The result is the same as unjarring the files one after another in the iteration
+   * order of the map. See {@link ZipExtractor#extract(Map)}.
+   *
+   * @param archives The JAR files and the directories to unjar them to.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(Map<Path, Path> archives) throws IOException {
+    new ZipExtractor().extract(archives);
+  }
+
+  /**
+   * Unzips a JAR file to a directory using a pool of threads. See {@link ZipExtractor}. The signatures of the JAR file
+   * are not verified.
+   *
+   * @param file        The JAR file to unjar.
+   * @param to          The directory to unjar to.
+   * @param parallelism The number of threads that extract entries.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(Path file, Path to, int parallelism) throws IOException {
+    new ZipExtractor(parallelism).extract(file, to);
+  }
+
+  /**
+   * Unzips the entries of a JAR file that are selected by the patterns to a directory. The patterns work the same as
+   * the patterns of a {@link org.savantbuild.io.FileSet} and are matched against the entry names (i.e.
+   * <code>^META-INF/</code>). The entries are selected using the central directory, so the entries that aren't selected
+   * are never read.
+   *
+   * @param file            The JAR file to unjar.
+   * @param to              The directory to unjar to.
+   * @param includePatterns (Optional) The patterns of the entries to unjar.
+   * @param excludePatterns (Optional) The patterns of the entries to skip.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(Path file, Path to, List<Pattern> includePatterns, List<Pattern> excludePatterns) throws IOException {
+    new ZipExtractor().withIncludePatterns(includePatterns)
+                      .withExcludePatterns(excludePatterns)
+                      .extract(file, to);
+  }
+
+  /**
+   * Unzips a JAR file to a directory. Large STORED entries are copied directly out of the JAR file in concurrent chunks
+   * using the given ChunkedFileCopier.
+   *
+   * @param file            The JAR file to unjar.
+   * @param to              The directory to unjar to.
+   * @param largeFileCopier The copier used for STORED entries whose size is at or above its threshold.
+   * @throws IOException If the unjar fails.
+   */
+  public static void unjar(Path file, Path to, ChunkedFileCopier largeFileCopier) throws IOException {
+    ZipExtractor extractor = new ZipExtractor(1);
+    extractor.largeFileCopier = largeFileCopier;
+    extractor.extract(file, to);
   }
 }
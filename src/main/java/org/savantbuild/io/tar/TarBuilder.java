@@ -17,21 +17,36 @@ package org.savantbuild.io.tar;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.savantbuild.io.BuildCache;
+import org.savantbuild.io.ChannelOutputStream;
+import org.savantbuild.io.Checksum;
 import org.savantbuild.io.Directory;
+import org.savantbuild.io.DirectoryIndex;
 import org.savantbuild.io.FileInfo;
+import org.savantbuild.io.FilePrefetcher;
 import org.savantbuild.io.FileSet;
-import org.savantbuild.io.FileTools;
+import org.savantbuild.io.GeneratedEntry;
+
+import static java.util.Arrays.asList;
 
 /**
  * Helps build Tar files.
@@ -39,18 +54,80 @@ import org.savantbuild.io.FileTools;
  * @author Brian Pontarelli
  */
 public class TarBuilder {
-  public final Set<Directory> directories = new TreeSet<>();
+  // Larger files are copied directly to the TAR stream
+  private static final long MAX_PREFETCH_SIZE = 8L * 1024 * 1024;
+
+  /**
+   * The directories of the archive, sorted by name. The directories of the FileSets are added to this when the archive
+   * is built, unless a directory with the same name has already been added.
+   */
+  public final DirectoryIndex directories = new DirectoryIndex();
 
   public final Path file;
 
   public final List<FileSet> fileSets = new ArrayList<>();
 
+  /**
+   * Entries whose contents are generated by the build. These are written directly into the TAR file, in name order
+   * with the files. If a file has the same name as a generated entry, the generated entry replaces it.
+   */
+  public final List<GeneratedEntry> generatedEntries = new ArrayList<>();
+
+  /**
+   * If set, the TAR file is restored from this cache when the cache contains a TAR file with the same fingerprint.
+   * Otherwise the TAR file is built and added to the cache.
+   */
+  public BuildCache cache;
+
+  /**
+   * The checksums that are computed from the bytes of the TAR file while it is written.
+   */
+  public final Set<Checksum> checksums = EnumSet.noneOf(Checksum.class);
+
+  /**
+   * If true, a sidecar file is written next to the TAR file for each of the checksums (i.e. <code>foo.tar.sha1</code>).
+   */
+  public boolean checksumFiles = true;
+
+  /**
+   * The hex encoded digests of the checksums, which are set when the archive is built.
+   */
+  public Map<Checksum, String> digests;
+
+  /**
+   * The size of the buffer between the TAR file and its FileChannel. The TAR records are only 512 bytes, so this keeps
+   * them from each becoming a write to the file.
+   */
+  public int bufferSize = ChannelOutputStream.DEFAULT_BUFFER_SIZE;
+
   public boolean compress = true;
 
+  /**
+   * The GZIP compression level (1 through 9) when the TAR file is compressed.
+   */
+  public int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * The maximum number of bytes of the files that are read ahead of the TAR stream at once.
+   */
+  public long inFlightLimit = FilePrefetcher.DEFAULT_IN_FLIGHT_LIMIT;
+
+  /**
+   * The number of threads that read the files ahead of the TAR stream. If this is greater than zero, the files are read
+   * while the stream (and GZIP) is writing the previous files.
+   */
+  public int prefetchThreads;
+
   public boolean storeGroupName = false;
 
   public boolean storeUserName = false;
 
+  /**
+   * If set, this is used for the timestamps of all of the entries, rather than the timestamps of the files. This makes
+   * the TAR file reproducible and allows the cache to be used even if the files are touched.
+   */
+  public FileTime timestamp;
+
   public TarBuilder(String file) {
     this(Paths.get(file));
   }
@@ -62,6 +139,14 @@ public class TarBuilder {
     this.compress = file.toString().endsWith(".gz");
   }
 
+  /**
+   * Creates a builder without a file. The archive can only be built into a stream or channel and it is compressed
+   * unless {@link #compress} is set to false.
+   */
+  public TarBuilder() {
+    this.file = null;
+  }
+
   /**
    * Builds the TAR file using the fileSets and Directories provided.
    *
@@ -69,6 +154,11 @@ public class TarBuilder {
    * @throws IOException If the build fails.
    */
   public int build() throws IOException {
+    if (file == null) {
+      throw new IOException("The [file] is not set. Use build(OutputStream) or build(WritableByteChannel) instead");
+    }
+
+    digests = null;
     if (Files.exists(file)) {
       Files.delete(file);
     }
@@ -77,62 +167,105 @@ public class TarBuilder {
       Files.createDirectories(file.getParent());
     }
 
-    // Sort the file infos and add the directories
-    Set<FileInfo> fileInfos = new TreeSet<>();
-    for (FileSet fileSet : fileSets) {
-      Set<Directory> dirs = fileSet.toDirectories();
-      dirs.removeAll(directories);
-      for (Directory dir : dirs) {
-        directories.add(dir);
+    Set<FileInfo> fileInfos = collect();
+    Map<Path, GeneratedEntry> generated = generated(fileInfos);
+
+    String key = null;
+    if (cache != null) {
+      key = fingerprint(fileInfos, generated);
+      if (cache.restore(key, file)) {
+        writeChecksums();
+        return directories.size() + fileInfos.size() + generated.size();
       }
+    }
 
-      fileInfos.addAll(fileSet.toFileInfos());
+    ChannelOutputStream os = ChannelOutputStream.open(file, bufferSize);
+    os.addChecksums(checksums);
+    int count = write(os, fileInfos, generated);
+    if (cache != null) {
+      cache.store(key, file);
     }
 
-    int count = 0;
-    OutputStream os = Files.newOutputStream(file);
-    try (TarArchiveOutputStream tos = new TarArchiveOutputStream(compress ? new GZIPOutputStream(os) : os)) {
-      tos.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+    digests = checksums.isEmpty() ? null : os.checksums();
+    writeChecksums();
+    return count;
+  }
 
-      for (Directory directory : directories) {
-        String name = directory.name;
-        TarArchiveEntry entry = new TarArchiveEntry(name.endsWith("/") ? name : name + "/");
-        if (directory.lastModifiedTime != null) {
-          entry.setModTime(directory.lastModifiedTime.toMillis());
-        }
-        if (directory.mode != null) {
-          entry.setMode(FileTools.toMode(directory.mode));
-        }
-        if (storeGroupName && directory.groupName != null) {
-          entry.setGroupName(directory.groupName);
-        }
-        if (storeUserName && directory.userName != null) {
-          entry.setUserName(directory.userName);
-        }
-        tos.putArchiveEntry(entry);
-        tos.closeArchiveEntry();
-        count++;
-      }
+  /**
+   * Builds the TAR file into the stream, which is flushed but not closed. See {@link #build(WritableByteChannel)}.
+   *
+   * @param out The stream.
+   * @return The number of entries added to the TAR file including the directories.
+   * @throws IOException If the build fails.
+   */
+  public int build(OutputStream out) throws IOException {
+    int count = build(Channels.newChannel(out));
+    out.flush();
+    return count;
+  }
 
-      for (FileInfo fileInfo : fileInfos) {
-        TarArchiveEntry entry = new TarArchiveEntry(fileInfo.relative.toString());
-        entry.setModTime(fileInfo.lastModifiedTime.toMillis());
-        if (storeGroupName) {
-          entry.setGroupName(fileInfo.groupName);
-        }
-        if (storeUserName) {
-          entry.setUserName(fileInfo.userName);
-        }
-        entry.setSize(fileInfo.size);
-        entry.setMode(fileInfo.toMode());
-        tos.putArchiveEntry(entry);
-        Files.copy(fileInfo.origin, tos);
-        tos.closeArchiveEntry();
-        count++;
-      }
+  /**
+   * Builds the TAR file into the channel, which is not closed. The file, cache and checksum file options only apply to
+   * {@link #build()}. The checksums are still computed into the {@link #digests}.
+   *
+   * @param channel The channel.
+   * @return The number of entries added to the TAR file including the directories.
+   * @throws IOException If the build fails.
+   */
+  public int build(WritableByteChannel channel) throws IOException {
+    digests = null;
+    Set<FileInfo> fileInfos = collect();
+    Map<Path, GeneratedEntry> generated = generated(fileInfos);
+
+    ChannelOutputStream os = new ChannelOutputStream(channel, bufferSize, false);
+    os.addChecksums(checksums);
+    int count = write(os, fileInfos, generated);
+    digests = checksums.isEmpty() ? null : os.checksums();
+    return count;
+  }
+
+  public TarBuilder bufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+    return this;
+  }
+
+  public TarBuilder cache(BuildCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  public TarBuilder checksumFiles(boolean checksumFiles) {
+    this.checksumFiles = checksumFiles;
+    return this;
+  }
+
+  public TarBuilder checksums(Checksum... checksums) {
+    this.checksums.addAll(asList(checksums));
+    return this;
+  }
+
+  /**
+   * Collects the files of the FileSets, sorted, and adds their directories.
+   */
+  private Set<FileInfo> collect() throws IOException {
+    Set<FileInfo> fileInfos = new TreeSet<>();
+    for (FileSet fileSet : fileSets) {
+      List<FileInfo> infos = fileSet.toFileInfos();
+      directories.addAll(fileSet, infos);
+      fileInfos.addAll(infos);
     }
 
-    return count;
+    return fileInfos;
+  }
+
+  public TarBuilder compress(boolean compress) {
+    this.compress = compress;
+    return this;
+  }
+
+  public TarBuilder compressionLevel(int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+    return this;
   }
 
   public TarBuilder directory(Directory directory) throws IOException {
@@ -140,6 +273,39 @@ public class TarBuilder {
     return this;
   }
 
+  /**
+   * Fingerprints everything that ends up in the TAR file.
+   */
+  private String fingerprint(Set<FileInfo> fileInfos, Map<Path, GeneratedEntry> generated) throws IOException {
+    BuildCache.Fingerprint fingerprint = BuildCache.fingerprint("tar").add(timestamp)
+                                                   .add(compress ? compressionLevel : Long.MIN_VALUE)
+                                                   .add(directories.size());
+    for (Directory directory : directories) {
+      fingerprint.add(DirectoryIndex.normalize(directory.name))
+                 .add(directory.mode)
+                 .add(timestamp != null ? null : directory.lastModifiedTime)
+                 .add(storeGroupName ? directory.groupName : null)
+                 .add(storeUserName ? directory.userName : null);
+    }
+
+    fingerprint.add(fileInfos.size());
+    for (FileInfo fileInfo : fileInfos) {
+      fingerprint.add(fileInfo.relative.toString())
+                 .add(fileInfo.toMode())
+                 .add(timestamp != null ? null : fileInfo.lastModifiedTime)
+                 .add(storeGroupName ? fileInfo.groupName : null)
+                 .add(storeUserName ? fileInfo.userName : null)
+                 .addContents(fileInfo.origin);
+    }
+
+    fingerprint.add(generated.size());
+    for (GeneratedEntry generatedEntry : generated.values()) {
+      generatedEntry.addTo(fingerprint, timestamp);
+    }
+
+    return fingerprint.toKey();
+  }
+
   public long getExplodedSize() throws IOException {
     long size = 0;
     for (FileSet fileSet : fileSets) {
@@ -151,6 +317,15 @@ public class TarBuilder {
     return size;
   }
 
+  public TarBuilder entry(GeneratedEntry generatedEntry) {
+    generatedEntries.add(generatedEntry);
+    return this;
+  }
+
+  public TarBuilder entry(String name, byte[] contents) {
+    return entry(new GeneratedEntry(name, contents));
+  }
+
   public TarBuilder fileSet(Path directory) throws IOException {
     return fileSet(new FileSet(directory));
   }
@@ -172,6 +347,32 @@ public class TarBuilder {
     return this;
   }
 
+  public TarBuilder inFlightLimit(long inFlightLimit) {
+    this.inFlightLimit = inFlightLimit;
+    return this;
+  }
+
+  public TarBuilder prefetchThreads(int prefetchThreads) {
+    this.prefetchThreads = prefetchThreads;
+    return this;
+  }
+
+  public TarBuilder timestamp(FileTime timestamp) {
+    this.timestamp = timestamp;
+    return this;
+  }
+
+  /**
+   * Sorts the generated entries the same way as the files (the last entry with a name wins) and removes the files that
+   * they replace.
+   */
+  private Map<Path, GeneratedEntry> generated(Set<FileInfo> fileInfos) {
+    Map<Path, GeneratedEntry> generated = new TreeMap<>();
+    generatedEntries.forEach((generatedEntry) -> generated.put(Paths.get(generatedEntry.name), generatedEntry));
+    fileInfos.removeIf((fileInfo) -> generated.containsKey(fileInfo.relative));
+    return generated;
+  }
+
   public TarBuilder optionalFileSet(Path directory) throws IOException {
     return optionalFileSet(new FileSet(directory));
   }
@@ -192,4 +393,122 @@ public class TarBuilder {
 
     return this;
   }
+
+  private int write(ChannelOutputStream os, Set<FileInfo> fileInfos, Map<Path, GeneratedEntry> generated) throws IOException {
+    int count = 0;
+    try (FilePrefetcher prefetcher = prefetchThreads > 0 ? new FilePrefetcher(prefetchThreads, inFlightLimit) : null;
+         TarArchiveOutputStream tos = new TarArchiveOutputStream(compress ? new LevelGZIPOutputStream(os, compressionLevel) : os)) {
+      tos.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+
+      for (Directory directory : directories) {
+        TarArchiveEntry entry = new TarArchiveEntry(DirectoryIndex.normalize(directory.name));
+        if (timestamp != null) {
+          entry.setModTime(timestamp.toMillis());
+        } else if (directory.lastModifiedTime != null) {
+          entry.setModTime(directory.lastModifiedTime.toMillis());
+        }
+        if (directory.mode != 0) {
+          entry.setMode(directory.toMode());
+        }
+        if (storeGroupName && directory.groupName != null) {
+          entry.setGroupName(directory.groupName);
+        }
+        if (storeUserName && directory.userName != null) {
+          entry.setUserName(directory.userName);
+        }
+        tos.putArchiveEntry(entry);
+        tos.closeArchiveEntry();
+        count++;
+      }
+
+      if (prefetcher != null) {
+        for (FileInfo fileInfo : fileInfos) {
+          if (fileInfo.size <= MAX_PREFETCH_SIZE) {
+            prefetcher.add(fileInfo.origin, fileInfo.size);
+          }
+        }
+      }
+
+      // Merge the generated entries into the sorted files
+      FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+      Iterator<GeneratedEntry> generatedIterator = generated.values().iterator();
+      GeneratedEntry nextGenerated = generatedIterator.hasNext() ? generatedIterator.next() : null;
+      for (FileInfo fileInfo : fileInfos) {
+        while (nextGenerated != null && Paths.get(nextGenerated.name).compareTo(fileInfo.relative) < 0) {
+          write(tos, nextGenerated, now);
+          count++;
+          nextGenerated = generatedIterator.hasNext() ? generatedIterator.next() : null;
+        }
+
+        TarArchiveEntry entry = new TarArchiveEntry(fileInfo.relative.toString());
+        entry.setModTime(timestamp != null ? timestamp.toMillis() : fileInfo.lastModifiedTime.toMillis());
+        if (storeGroupName) {
+          entry.setGroupName(fileInfo.groupName);
+        }
+        if (storeUserName) {
+          entry.setUserName(fileInfo.userName);
+        }
+        entry.setSize(fileInfo.size);
+        entry.setMode(fileInfo.toMode());
+        tos.putArchiveEntry(entry);
+        if (prefetcher != null && fileInfo.size <= MAX_PREFETCH_SIZE) {
+          FilePrefetcher.Buffer buffer = prefetcher.next();
+          tos.write(buffer.data, 0, buffer.length);
+          prefetcher.release(buffer);
+        } else {
+          Files.copy(fileInfo.origin, tos);
+        }
+        tos.closeArchiveEntry();
+        count++;
+      }
+
+      while (nextGenerated != null) {
+        write(tos, nextGenerated, now);
+        count++;
+        nextGenerated = generatedIterator.hasNext() ? generatedIterator.next() : null;
+      }
+    }
+
+    return count;
+  }
+
+  private void write(TarArchiveOutputStream tos, GeneratedEntry generatedEntry, FileTime now) throws IOException {
+    byte[] contents = generatedEntry.toBytes();
+    TarArchiveEntry entry = new TarArchiveEntry(generatedEntry.name);
+    if (timestamp != null) {
+      entry.setModTime(timestamp.toMillis());
+    } else {
+      entry.setModTime((generatedEntry.lastModifiedTime != null ? generatedEntry.lastModifiedTime : now).toMillis());
+    }
+    entry.setSize(contents.length);
+    entry.setMode(generatedEntry.toMode());
+    tos.putArchiveEntry(entry);
+    tos.write(contents);
+    tos.closeArchiveEntry();
+  }
+
+  private void writeChecksums() throws IOException {
+    if (checksums.isEmpty()) {
+      return;
+    }
+
+    if (digests == null) {
+      // The archive was restored from the cache
+      digests = Checksum.compute(file, checksums);
+    }
+
+    if (checksumFiles) {
+      Checksum.writeSidecars(file, digests);
+    }
+  }
+
+  /**
+   * A GZIPOutputStream that uses a specific compression level.
+   */
+  private static class LevelGZIPOutputStream extends GZIPOutputStream {
+    LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+      super(out, 64 * 1024);
+      def.setLevel(level);
+    }
+  }
 }
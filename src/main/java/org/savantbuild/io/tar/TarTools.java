@@ -15,22 +15,33 @@
  */
 package org.savantbuild.io.tar;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.GroupPrincipal;
 import java.nio.file.attribute.PosixFileAttributeView;
-import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserPrincipal;
-import java.util.Set;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.savantbuild.io.FileTools;
+import org.savantbuild.io.ExtractionManifest;
+import org.savantbuild.io.ExtractionTarget;
+import org.savantbuild.io.Extractor;
+import org.savantbuild.io.FileSet;
 
 /**
  * Tarball tools.
@@ -40,7 +51,8 @@ import org.savantbuild.io.FileTools;
 public class TarTools {
   /**
    * Untars a TAR file. This also handles tar.gz files by checking the file extension. If the file extension ends in .gz
-   * it will read the tarball through a GZIPInputStream.
+   * it will read the tarball through a GZIPInputStream. The entries that are unchanged since the last untar to the same
+   * directory are skipped (see {@link ExtractionManifest}) and the modification times of the entries are restored.
    *
    * @param file     The TAR file.
    * @param to       The directory to untar to.
@@ -49,84 +61,178 @@ public class TarTools {
    * @throws IOException If the untar fails.
    */
   public static void untar(Path file, Path to, boolean useGroup, boolean useOwner) throws IOException {
-    if (Files.notExists(to)) {
-      Files.createDirectories(to);
-    }
+    untar(file, to, useGroup, useOwner, null, null);
+  }
 
+  /**
+   * Untars a TAR (or tar.gz) file to a target (i.e. a {@link org.savantbuild.io.MemoryTree}). The group and owner names
+   * in the archive aren't used.
+   *
+   * @param file   The TAR file.
+   * @param target The target.
+   * @throws IOException If the untar fails.
+   */
+  public static void untar(Path file, ExtractionTarget target) throws IOException {
     InputStream is = Files.newInputStream(file);
     if (file.toString().endsWith(".gz")) {
-      is = new GZIPInputStream(is);
+      is = new GZIPInputStream(is, 64 * 1024);
     }
 
     try (TarArchiveInputStream tis = new TarArchiveInputStream(is)) {
       TarArchiveEntry entry;
       while ((entry = tis.getNextTarEntry()) != null) {
-        Path entryPath = to.resolve(entry.getName());
+        String name = entry.getName();
         if (entry.isDirectory()) {
-          // Skip directory entries that don't add any value
-          if (entry.getMode() == 0 && entry.getGroupName() == null && entry.getUserName() == null) {
-            continue;
-          }
-
-          if (Files.notExists(entryPath)) {
-            Files.createDirectories(entryPath);
-          }
-
-          if (entry.getMode() != 0) {
-            Set<PosixFilePermission> permissions = FileTools.toPosixPermissions(entry.getMode());
-            Files.setPosixFilePermissions(entryPath, permissions);
-          }
-
-          if (useGroup && entry.getGroupName() != null && !entry.getGroupName().trim().isEmpty()) {
-            GroupPrincipal group = FileSystems.getDefault().getUserPrincipalLookupService().lookupPrincipalByGroupName(entry.getGroupName());
-            Files.getFileAttributeView(entryPath, PosixFileAttributeView.class).setGroup(group);
-          }
-
-          if (useOwner && entry.getUserName() != null && !entry.getUserName().trim().isEmpty()) {
-            UserPrincipal user = FileSystems.getDefault().getUserPrincipalLookupService().lookupPrincipalByName(entry.getUserName());
-            Files.getFileAttributeView(entryPath, PosixFileAttributeView.class).setOwner(user);
-          }
+          target.directory(name.endsWith("/") ? name.substring(0, name.length() - 1) : name, entry.getMode());
         } else {
-          if (Files.notExists(entryPath.getParent())) {
-            Files.createDirectories(entryPath.getParent());
-          }
-
-          if (Files.isRegularFile(entryPath)) {
-            if (Files.size(entryPath) == entry.getSize()) {
-              continue;
-            } else {
-              Files.delete(entryPath);
-            }
-          }
-
-          Files.createFile(entryPath);
-
-          try (OutputStream os = Files.newOutputStream(entryPath)) {
-            byte[] ba = new byte[1024];
-            int read;
-            while ((read = tis.read(ba)) != -1) {
-              if (read > 0) {
-                os.write(ba, 0, read);
-              }
-            }
-          }
-
-          if (entry.getMode() != 0) {
-            Set<PosixFilePermission> permissions = FileTools.toPosixPermissions(entry.getMode());
-            Files.setPosixFilePermissions(entryPath, permissions);
-          }
-
-          if (useGroup && entry.getGroupName() != null && !entry.getGroupName().trim().isEmpty()) {
-            GroupPrincipal group = FileSystems.getDefault().getUserPrincipalLookupService().lookupPrincipalByGroupName(entry.getGroupName());
-            Files.getFileAttributeView(entryPath, PosixFileAttributeView.class).setGroup(group);
-          }
-
-          if (useOwner && entry.getUserName() != null && !entry.getUserName().trim().isEmpty()) {
-            UserPrincipal user = FileSystems.getDefault().getUserPrincipalLookupService().lookupPrincipalByName(entry.getUserName());
-            Files.getFileAttributeView(entryPath, PosixFileAttributeView.class).setOwner(user);
-          }
+          target.writeChecked(name, entry.getSize(), entry.getMode(), tis);
+        }
+      }
+    }
+  }
+
+  /**
+   * Untars the entries of a TAR (or tar.gz) file that are selected by the patterns. The patterns work the same as the
+   * patterns of a {@link FileSet} and are matched against the entry names. The data of the entries that aren't selected
+   * is skipped without being copied (it is still decompressed for tar.gz files, since GZIP streams can't seek).
+   *
+   * @param file            The TAR file.
+   * @param to              The directory to untar to.
+   * @param useGroup        Determines if the group name in the archive is used.
+   * @param useOwner        Determines if the owner name in the archive is used.
+   * @param includePatterns (Optional) The patterns of the entries to untar.
+   * @param excludePatterns (Optional) The patterns of the entries to skip.
+   * @throws IOException If the untar fails.
+   */
+  public static void untar(Path file, Path to, boolean useGroup, boolean useOwner, List<Pattern> includePatterns,
+                           List<Pattern> excludePatterns) throws IOException {
+    InputStream is = Files.newInputStream(file);
+    if (file.toString().endsWith(".gz")) {
+      is = new GZIPInputStream(is, 64 * 1024);
+    }
+
+    try (InputStream tar = is) {
+      untar(tar, to, useGroup, useOwner, includePatterns, excludePatterns);
+    }
+  }
+
+  /**
+   * Untars a TAR or tar.gz file from a stream (i.e. while it is being downloaded) without writing it to a file first.
+   * GZIP compressed streams are detected by their header. The stream is read to the end of the archive and isn't
+   * closed.
+   *
+   * @param stream   The stream of the TAR file.
+   * @param to       The directory to untar to.
+   * @param useGroup Determines if the group name in the archive is used.
+   * @param useOwner Determines if the owner name in the archive is used.
+   * @throws IOException If the untar fails.
+   */
+  public static void untar(InputStream stream, Path to, boolean useGroup, boolean useOwner) throws IOException {
+    // Leave the caller's stream open
+    InputStream is = new BufferedInputStream(new FilterInputStream(stream) {
+      @Override
+      public void close() {
+      }
+    }, 64 * 1024);
+
+    is.mark(2);
+    boolean gzip = is.read() == 0x1f && is.read() == 0x8b;
+    is.reset();
+    if (gzip) {
+      is = new GZIPInputStream(is, 64 * 1024);
+    }
+
+    try (InputStream tar = is) {
+      untar(tar, to, useGroup, useOwner, null, null);
+    }
+  }
+
+  /**
+   * Untars a TAR or tar.gz file from a channel without writing it to a file first. See
+   * {@link #untar(InputStream, Path, boolean, boolean)}.
+   *
+   * @param channel  The channel of the TAR file.
+   * @param to       The directory to untar to.
+   * @param useGroup Determines if the group name in the archive is used.
+   * @param useOwner Determines if the owner name in the archive is used.
+   * @throws IOException If the untar fails.
+   */
+  public static void untar(ReadableByteChannel channel, Path to, boolean useGroup, boolean useOwner) throws IOException {
+    untar(Channels.newInputStream(channel), to, useGroup, useOwner);
+  }
+
+  private static void untar(InputStream is, Path to, boolean useGroup, boolean useOwner, List<Pattern> includePatterns,
+                            List<Pattern> excludePatterns) throws IOException {
+    List<Pattern> includes = includePatterns != null ? includePatterns : Collections.emptyList();
+    List<Pattern> excludes = excludePatterns != null ? excludePatterns : Collections.emptyList();
+    boolean filter = !includes.isEmpty() || !excludes.isEmpty();
+    Extractor extractor = new Extractor(to);
+    extractor.manifest = ExtractionManifest.load(to);
+    Principals principals = new Principals();
+    TarArchiveInputStream tis = new TarArchiveInputStream(is);
+    TarArchiveEntry entry;
+    while ((entry = tis.getNextTarEntry()) != null) {
+      // The next call to getNextTarEntry skips the data of the entry
+      if (filter && !FileSet.matches(entry.getName(), includes, excludes)) {
+        continue;
+      }
+
+      Path entryPath = to.resolve(entry.getName());
+      if (entry.isDirectory()) {
+        // Skip directory entries that don't add any value
+        if (entry.getMode() == 0 && entry.getGroupName() == null && entry.getUserName() == null) {
+          continue;
         }
+
+        extractor.directory(entryPath, entry.getMode(), FileTime.fromMillis(entry.getModTime().getTime()));
+      } else {
+        // TAR files don't have checksums, so the CRC of the contents is computed before the file is written
+        if (!extractor.writeChecked(entryPath, entry.getSize(), entry.getMode(), FileTime.fromMillis(entry.getModTime().getTime()), tis)) {
+          continue;
+        }
+      }
+
+      if (useGroup && entry.getGroupName() != null && !entry.getGroupName().trim().isEmpty()) {
+        Files.getFileAttributeView(entryPath, PosixFileAttributeView.class).setGroup(principals.group(entry.getGroupName()));
       }
+
+      if (useOwner && entry.getUserName() != null && !entry.getUserName().trim().isEmpty()) {
+        Files.getFileAttributeView(entryPath, PosixFileAttributeView.class).setOwner(principals.user(entry.getUserName()));
+      }
+    }
+
+    extractor.restoreDirectoryTimes();
+    extractor.manifest.save();
+  }
+
+  /**
+   * Caches the lookups of the group and user names, because most TAR files only use one or two of each.
+   */
+  private static class Principals {
+    private final Map<String, GroupPrincipal> groups = new HashMap<>();
+
+    private final UserPrincipalLookupService lookupService = FileSystems.getDefault().getUserPrincipalLookupService();
+
+    private final Map<String, UserPrincipal> users = new HashMap<>();
+
+    GroupPrincipal group(String name) throws IOException {
+      GroupPrincipal group = groups.get(name);
+      if (group == null) {
+        group = lookupService.lookupPrincipalByGroupName(name);
+        groups.put(name, group);
+      }
+
+      return group;
+    }
+
+    UserPrincipal user(String name) throws IOException {
+      UserPrincipal user = users.get(name);
+      if (user == null) {
+        user = lookupService.lookupPrincipalByName(name);
+        users.put(name, user);
+      }
+
+      return user;
     }
   }
 }
@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.savantbuild.io.FileInfo;
+import org.savantbuild.io.GeneratedEntry;
+
+/**
+ * Collects the entries of a ZIP (or JAR) file from files, {@link GeneratedEntry}s and {@link ZipSource}s. Entries are indexed by name, so each
+ * duplicate is detected with a single hash lookup and resolved using the {@link DuplicatePolicy}, without sorting the
+ * entries. The entries that are left are written in name order, the same as the {@link org.savantbuild.io.tar.TarBuilder}
+ * writes its files. The entries from the sources are written last.
+ * <p>
+ * If a generated entry has the same name as a file, the generated entry replaces the file before the
+ * {@link DuplicatePolicy} is consulted, the same as the {@link org.savantbuild.io.tar.TarBuilder} does.
+ * <p>
+ * The contents of the entries are only read to resolve duplicates when the strategy is
+ * {@link DuplicatePolicy.Strategy#MERGE} or {@link DuplicatePolicy.Strategy#SKIP_IDENTICAL}. Merged entries are held
+ * in memory and compressed again when they are written.
+ * <p>
+ * Directory entries from the sources are never duplicates. If a directory was already added (or is added by the
+ * builder), the directory entry from the source is skipped.
+ *
+ * @author Brian Pontarelli
+ */
+public class ArchiveEntries implements Closeable {
+  public final DuplicatePolicy duplicatePolicy;
+
+  private final List<FileChannel> channels = new ArrayList<>();
+
+  private final Set<String> directories = new HashSet<>();
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  private final List<Pattern> reserved = new ArrayList<>();
+
+  public ArchiveEntries(DuplicatePolicy duplicatePolicy) {
+    this.duplicatePolicy = duplicatePolicy;
+  }
+
+  /**
+   * Adds the names of the directories that the builder writes itself.
+   *
+   * @param names The directory names. A slash is appended to the names if they don't end in one.
+   */
+  public void addDirectories(Collection<String> names) {
+    for (String name : names) {
+      directories.add(name.endsWith("/") ? name : name + "/");
+    }
+  }
+
+  /**
+   * Adds the files.
+   *
+   * @param fileInfos The files.
+   * @throws IOException If a file is a duplicate and the policy for it is to fail.
+   */
+  public void addFiles(Collection<FileInfo> fileInfos) throws IOException {
+    for (FileInfo fileInfo : fileInfos) {
+      add(fileInfo.relative.toString(), new Entry(fileInfo, null, null, null, fileInfo.origin.toString()));
+    }
+  }
+
+  /**
+   * Adds the generated entries. A generated entry replaces the file with the same name.
+   *
+   * @param generatedEntries The generated entries.
+   * @throws IOException If an entry is a duplicate of another generated entry and the policy for it is to fail.
+   */
+  public void addGenerated(Collection<GeneratedEntry> generatedEntries) throws IOException {
+    for (GeneratedEntry generated : generatedEntries) {
+      Entry entry = new Entry(null, generated, null, null, "generated");
+      Entry existing = entries.get(generated.name);
+      if (existing != null && existing.isFiles()) {
+        entries.put(generated.name, entry);
+      } else {
+        add(generated.name, entry);
+      }
+    }
+  }
+
+  /**
+   * Adds the entries of the source ZIP file. The file stays open until this is closed.
+   *
+   * @param source The source.
+   * @throws IOException If the file isn't a ZIP file or an entry is a duplicate and the policy for it is to fail.
+   */
+  public void addSource(ZipSource source) throws IOException {
+    FileChannel channel = FileChannel.open(source.file, StandardOpenOption.READ);
+    channels.add(channel);
+
+    for (RawZipEntry entry : ZipCentralDirectory.read(channel)) {
+      if (!source.includes(entry.name) || isReserved(entry.name)) {
+        continue;
+      }
+
+      if (entry.isDirectory()) {
+        if (directories.add(entry.name)) {
+          entries.put(entry.name, new Entry(null, null, channel, entry, source.toString()));
+        }
+
+        continue;
+      }
+
+      add(entry.name, new Entry(null, null, channel, entry, source.toString()));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    for (FileChannel channel : channels) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        exception = e;
+      }
+    }
+
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  /**
+   * Reserves the names that match the pattern for the entries that the builder writes itself (i.e. the JAR manifest).
+   * Entries from the sources with these names are skipped.
+   *
+   * @param pattern The pattern.
+   */
+  public void reserve(Pattern pattern) {
+    reserved.add(pattern);
+  }
+
+  /**
+   * @return The number of entries.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Writes the entries. The files are written in name order, in runs (using
+   * {@link ZipArchiveWriter#writeFiles(Collection, Function)} so they can be compressed in parallel), and the generated
+   * and merged entries are compressed and written between the runs, in name order. The entries from the sources are then
+   * copied in the order they were added.
+   *
+   * @param writer                The writer.
+   * @param entryFactory          Creates the entry (name, timestamps, mode) for each file.
+   * @param generatedEntryFactory Creates the entry (name, timestamps, mode) for each generated entry.
+   * @return The number of entries written.
+   * @throws IOException If the write fails.
+   */
+  public int write(ZipArchiveWriter writer, Function<FileInfo, RawZipEntry> entryFactory,
+                   Function<GeneratedEntry, RawZipEntry> generatedEntryFactory) throws IOException {
+    List<Map.Entry<String, Entry>> files = new ArrayList<>();
+    List<Map.Entry<String, Entry>> composed = new ArrayList<>();
+    List<Map.Entry<String, Entry>> copied = new ArrayList<>();
+    for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+      Entry entry = mapEntry.getValue();
+      if (entry.fileInfo != null) {
+        files.add(mapEntry);
+      } else if (entry.zipEntry != null) {
+        copied.add(mapEntry);
+      } else {
+        composed.add(mapEntry);
+      }
+    }
+
+    // The files of each FileSet are already sorted, so this only merges the sorted runs
+    files.sort(Map.Entry.comparingByKey());
+    composed.sort(Map.Entry.comparingByKey());
+
+    int count = 0;
+    int next = 0;
+    List<FileInfo> run = new ArrayList<>();
+    for (Map.Entry<String, Entry> file : files) {
+      if (next < composed.size() && composed.get(next).getKey().compareTo(file.getKey()) < 0) {
+        count += writeFiles(writer, run, entryFactory);
+        while (next < composed.size() && composed.get(next).getKey().compareTo(file.getKey()) < 0) {
+          count += write(writer, composed.get(next++), entryFactory, generatedEntryFactory);
+        }
+      }
+
+      run.add(file.getValue().fileInfo);
+    }
+
+    count += writeFiles(writer, run, entryFactory);
+    while (next < composed.size()) {
+      count += write(writer, composed.get(next++), entryFactory, generatedEntryFactory);
+    }
+
+    for (Map.Entry<String, Entry> mapEntry : copied) {
+      writer.copy(mapEntry.getValue().channel, mapEntry.getValue().zipEntry);
+      count++;
+    }
+
+    return count;
+  }
+
+  private int write(ZipArchiveWriter writer, Map.Entry<String, Entry> mapEntry, Function<FileInfo, RawZipEntry> entryFactory,
+                    Function<GeneratedEntry, RawZipEntry> generatedEntryFactory) throws IOException {
+    // The metadata of merged entries comes from the first part
+    Entry entry = mapEntry.getValue();
+    Entry first = entry.parts != null ? entry.parts.get(0) : entry;
+    RawZipEntry zipEntry;
+    if (first.fileInfo != null) {
+      zipEntry = entryFactory.apply(first.fileInfo);
+    } else if (first.generated != null) {
+      zipEntry = generatedEntryFactory.apply(first.generated);
+    } else {
+      zipEntry = new RawZipEntry(mapEntry.getKey());
+      zipEntry.dosTime = first.zipEntry.dosTime;
+      zipEntry.externalAttributes = first.zipEntry.externalAttributes;
+      zipEntry.lastModifiedTime = first.zipEntry.lastModifiedTime;
+      zipEntry.versionMadeBy = first.zipEntry.versionMadeBy;
+    }
+
+    writer.write(zipEntry, contents(entry));
+    return 1;
+  }
+
+  private static int writeFiles(ZipArchiveWriter writer, List<FileInfo> run, Function<FileInfo, RawZipEntry> entryFactory)
+      throws IOException {
+    if (run.isEmpty()) {
+      return 0;
+    }
+
+    int count = writer.writeFiles(run, entryFactory);
+    run.clear();
+    return count;
+  }
+
+  private void add(String name, Entry entry) throws IOException {
+    Entry existing = entries.get(name);
+    if (existing == null) {
+      entries.put(name, entry);
+      return;
+    }
+
+    switch (duplicatePolicy.strategyFor(name)) {
+      case FAIL:
+        throw new IOException("The entry [" + name + "] from [" + entry.origin + "] is a duplicate of the entry from [" + existing.origin + "]");
+      case LAST:
+        entries.put(name, entry);
+        break;
+      case MERGE:
+        entries.put(name, existing.merge(entry));
+        break;
+      case SKIP_IDENTICAL:
+        boolean sizesDiffer = existing.size() != -1 && entry.size() != -1 && existing.size() != entry.size();
+        if (sizesDiffer || !Arrays.equals(digest(existing), digest(entry))) {
+          throw new IOException("The entry [" + name + "] from [" + entry.origin + "] is a duplicate of the entry from [" + existing.origin + "] and the contents are different");
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private byte[] contents(Entry entry) throws IOException {
+    if (entry.parts != null) {
+      ByteArrayOutputStream merged = new ByteArrayOutputStream();
+      byte last = '\n';
+      for (Entry part : entry.parts) {
+        byte[] bytes = contents(part);
+        if (bytes.length == 0) {
+          continue;
+        }
+
+        if (last != '\n') {
+          merged.write('\n');
+        }
+
+        merged.write(bytes);
+        last = bytes[bytes.length - 1];
+      }
+
+      return merged.toByteArray();
+    }
+
+    if (entry.fileInfo != null) {
+      return Files.readAllBytes(entry.fileInfo.origin);
+    }
+
+    if (entry.generated != null) {
+      return entry.generated.toBytes();
+    }
+
+    RawZipEntry zipEntry = entry.zipEntry;
+    long position = ZipCentralDirectory.dataOffset(entry.channel, zipEntry);
+    ByteBuffer data = ZipCentralDirectory.readFully(entry.channel, position, Math.toIntExact(zipEntry.compressedSize));
+    if (zipEntry.isStored()) {
+      return data.array();
+    }
+
+    if (zipEntry.method != RawZipEntry.DEFLATED) {
+      throw new ZipException("The entry [" + zipEntry.name + "] in [" + entry.origin + "] uses the unsupported compression method [" + zipEntry.method + "]");
+    }
+
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(data.array(), 0, data.limit());
+      byte[] result = new byte[Math.toIntExact(zipEntry.size)];
+      int length = 0;
+      while (length < result.length && !inflater.finished() && !inflater.needsInput()) {
+        length += inflater.inflate(result, length, result.length - length);
+      }
+
+      if (length != result.length) {
+        throw new ZipException("The entry [" + zipEntry.name + "] in [" + entry.origin + "] is truncated");
+      }
+
+      return result;
+    } catch (DataFormatException e) {
+      throw new ZipException("The entry [" + zipEntry.name + "] in [" + entry.origin + "] is corrupt");
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private byte[] digest(Entry entry) throws IOException {
+    if (entry.digest == null) {
+      try {
+        entry.digest = MessageDigest.getInstance("SHA-256").digest(contents(entry));
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    return entry.digest;
+  }
+
+  private boolean isReserved(String name) {
+    for (Pattern pattern : reserved) {
+      if (pattern.matcher(name).find()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * An entry, which is a file, a generated entry, an entry of a source ZIP file or the merge of other entries.
+   */
+  private static class Entry {
+    public final FileChannel channel;
+
+    public final FileInfo fileInfo;
+
+    public final GeneratedEntry generated;
+
+    public final String origin;
+
+    public final List<Entry> parts;
+
+    public final RawZipEntry zipEntry;
+
+    public byte[] digest;
+
+    Entry(FileInfo fileInfo, GeneratedEntry generated, FileChannel channel, RawZipEntry zipEntry, String origin) {
+      this.fileInfo = fileInfo;
+      this.generated = generated;
+      this.channel = channel;
+      this.zipEntry = zipEntry;
+      this.origin = origin;
+      this.parts = null;
+    }
+
+    Entry(List<Entry> parts) {
+      this.fileInfo = null;
+      this.generated = null;
+      this.channel = null;
+      this.zipEntry = null;
+      this.origin = parts.get(0).origin;
+      this.parts = parts;
+    }
+
+    /**
+     * @return True if this is a file or the merge of files only.
+     */
+    boolean isFiles() {
+      return parts != null ? parts.stream().allMatch((part) -> part.fileInfo != null) : fileInfo != null;
+    }
+
+    Entry merge(Entry other) {
+      List<Entry> merged = new ArrayList<>(parts != null ? parts : List.of(this));
+      merged.add(other);
+      return new Entry(merged);
+    }
+
+    /**
+     * @return The uncompressed size or -1 if it isn't known without reading the contents.
+     */
+    long size() {
+      if (fileInfo != null && fileInfo.size != null) {
+        return fileInfo.size;
+      }
+
+      if (generated != null) {
+        return generated.size();
+      }
+
+      return zipEntry != null ? zipEntry.size : -1;
+    }
+  }
+}
@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A read-only view of a ZIP (or JAR) file that reads entries in place without extracting them. The archive is memory
+ * mapped and the central directory is parsed once into an index of primitive arrays that is sorted by the entry names.
+ * The names themselves are never decoded, they are compared as UTF-8 bytes directly in the mapped central directory,
+ * so the index doesn't contain any per-entry objects and the lookups are binary searches (O(log n)).
+ * <p>
+ * STORED entries are returned as slices of the mapped archive (zero copy). Compressed entries are returned as streams
+ * that inflate the mapped data. Archives larger than 2GB can't be mapped as a single buffer, so the data of each entry
+ * is mapped separately when it is opened.
+ * <p>
+ * The entries can also be accessed by their index in the sorted order (0 through {@link #count()} - 1). Duplicate
+ * entries are kept in central directory order, and the lookups by name use the last one. This is the same entry that
+ * is kept when the archive is extracted.
+ * <p>
+ * This class is thread safe. The buffers that it returns remain valid after the view is closed, until they are garbage
+ * collected.
+ *
+ * @author Brian Pontarelli
+ */
+public class ArchiveView implements Closeable {
+  public final Path file;
+
+  private final FileChannel channel;
+
+  private final ByteBuffer archive;
+
+  private final ByteBuffer centralDirectory;
+
+  private final long[] compressedSizes;
+
+  private final int[] headers;
+
+  private final long[] localHeaderOffsets;
+
+  private final long[] sizes;
+
+  private ArchiveView(Path file, FileChannel channel, ByteBuffer archive, ByteBuffer centralDirectory, int[] headers,
+                      long[] sizes, long[] compressedSizes, long[] localHeaderOffsets) {
+    this.file = file;
+    this.channel = channel;
+    this.archive = archive;
+    this.centralDirectory = centralDirectory;
+    this.headers = headers;
+    this.sizes = sizes;
+    this.compressedSizes = compressedSizes;
+    this.localHeaderOffsets = localHeaderOffsets;
+  }
+
+  /**
+   * Maps the ZIP file and indexes its central directory.
+   *
+   * @param file The ZIP file.
+   * @return The view, which must be closed.
+   * @throws IOException If the file can't be mapped or isn't a ZIP file.
+   */
+  public static ArchiveView open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long[] location = ZipCentralDirectory.locate(channel);
+      int count = Math.toIntExact(location[0]);
+      long offset = location[1];
+      int size = Math.toIntExact(location[2]);
+
+      ByteBuffer archive = null;
+      ByteBuffer centralDirectory;
+      if (channel.size() <= Integer.MAX_VALUE) {
+        archive = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        centralDirectory = archive.slice((int) offset, size).order(ByteOrder.LITTLE_ENDIAN);
+      } else {
+        centralDirectory = channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+      }
+
+      int[] headers = new int[count];
+      int position = 0;
+      for (int i = 0; i < count; i++) {
+        if (position + 46 > size || centralDirectory.getInt(position) != ZipCentralDirectory.CENTRAL_HEADER_SIGNATURE) {
+          throw new ZipException("Invalid central directory header at offset [" + (offset + position) + "]");
+        }
+
+        headers[i] = position;
+        position += 46 + (centralDirectory.getShort(position + 28) & 0xFFFF) + (centralDirectory.getShort(position + 30) & 0xFFFF) +
+            (centralDirectory.getShort(position + 32) & 0xFFFF);
+      }
+
+      sort(centralDirectory, headers);
+
+      long[] sizes = new long[count];
+      long[] compressedSizes = new long[count];
+      long[] localHeaderOffsets = new long[count];
+      for (int i = 0; i < count; i++) {
+        int header = headers[i];
+        sizes[i] = centralDirectory.getInt(header + 24) & 0xFFFFFFFFL;
+        compressedSizes[i] = centralDirectory.getInt(header + 20) & 0xFFFFFFFFL;
+        localHeaderOffsets[i] = centralDirectory.getInt(header + 42) & 0xFFFFFFFFL;
+        applyZip64(centralDirectory, header, i, sizes, compressedSizes, localHeaderOffsets);
+      }
+
+      return new ArchiveView(file, channel, archive, centralDirectory, headers, sizes, compressedSizes, localHeaderOffsets);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Applies the sizes and offset of the ZIP64 extra field of the entry, if it has one.
+   */
+  private static void applyZip64(ByteBuffer centralDirectory, int header, int index, long[] sizes, long[] compressedSizes,
+                                 long[] localHeaderOffsets) {
+    int position = header + 46 + (centralDirectory.getShort(header + 28) & 0xFFFF);
+    int end = position + (centralDirectory.getShort(header + 30) & 0xFFFF);
+    while (position + 4 <= end) {
+      int id = centralDirectory.getShort(position) & 0xFFFF;
+      int length = centralDirectory.getShort(position + 2) & 0xFFFF;
+      int next = Math.min(position + 4 + length, end);
+      if (id == 0x0001) {
+        int field = position + 4;
+        if (sizes[index] == 0xFFFFFFFFL && field + 8 <= next) {
+          sizes[index] = centralDirectory.getLong(field);
+          field += 8;
+        }
+        if (compressedSizes[index] == 0xFFFFFFFFL && field + 8 <= next) {
+          compressedSizes[index] = centralDirectory.getLong(field);
+          field += 8;
+        }
+        if (localHeaderOffsets[index] == 0xFFFFFFFFL && field + 8 <= next) {
+          localHeaderOffsets[index] = centralDirectory.getLong(field);
+        }
+        return;
+      }
+
+      position = next;
+    }
+  }
+
+  /**
+   * Compares the name of the entry at the header to the bytes as unsigned bytes, which is the same as comparing the
+   * code points of the UTF-8 strings.
+   *
+   * @return The comparison, or 2 if the name starts with the bytes but is longer (which is also greater than 0).
+   */
+  private static int compare(ByteBuffer centralDirectory, int header, byte[] bytes) {
+    int nameLength = centralDirectory.getShort(header + 28) & 0xFFFF;
+    int length = Math.min(nameLength, bytes.length);
+    for (int i = 0; i < length; i++) {
+      int result = Integer.compare(centralDirectory.get(header + 46 + i) & 0xFF, bytes[i] & 0xFF);
+      if (result != 0) {
+        return result;
+      }
+    }
+
+    return nameLength == bytes.length ? 0 : nameLength > bytes.length ? 2 : -1;
+  }
+
+  private static int compare(ByteBuffer centralDirectory, int first, int second) {
+    int firstLength = centralDirectory.getShort(first + 28) & 0xFFFF;
+    int secondLength = centralDirectory.getShort(second + 28) & 0xFFFF;
+    int length = Math.min(firstLength, secondLength);
+    for (int i = 0; i < length; i++) {
+      int result = Integer.compare(centralDirectory.get(first + 46 + i) & 0xFF, centralDirectory.get(second + 46 + i) & 0xFF);
+      if (result != 0) {
+        return result;
+      }
+    }
+
+    return Integer.compare(firstLength, secondLength);
+  }
+
+  /**
+   * Sorts the header offsets by name using a merge sort, which is stable, so the first of any duplicate entries stays
+   * first.
+   */
+  private static void sort(ByteBuffer centralDirectory, int[] headers) {
+    int[] source = headers;
+    int[] target = new int[headers.length];
+    for (int width = 1; width < headers.length; width *= 2) {
+      for (int start = 0; start < headers.length; start += 2 * width) {
+        int middle = Math.min(start + width, headers.length);
+        int end = Math.min(start + 2 * width, headers.length);
+        int left = start, right = middle;
+        for (int i = start; i < end; i++) {
+          if (left < middle && (right >= end || compare(centralDirectory, source[left], source[right]) <= 0)) {
+            target[i] = source[left++];
+          } else {
+            target[i] = source[right++];
+          }
+        }
+      }
+
+      int[] swap = source;
+      source = target;
+      target = swap;
+    }
+
+    if (source != headers) {
+      System.arraycopy(source, 0, headers, 0, headers.length);
+    }
+  }
+
+  /**
+   * Returns the data of a STORED entry without copying it.
+   *
+   * @param name The name of the entry.
+   * @return A read-only buffer of the entry data or null if the entry is compressed.
+   * @throws IOException If the entry doesn't exist or the archive is invalid.
+   */
+  public ByteBuffer buffer(String name) throws IOException {
+    int index = require(name);
+    if (method(index) != RawZipEntry.STORED) {
+      return null;
+    }
+
+    return data(index, name);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * @return The number of entries in the archive.
+   */
+  public int count() {
+    return headers.length;
+  }
+
+  /**
+   * Returns the CRC-32 of the (uncompressed) entry data.
+   *
+   * @param name The name of the entry.
+   * @return The CRC.
+   * @throws IOException If the entry doesn't exist.
+   */
+  public long crc(String name) throws IOException {
+    return crc(require(name));
+  }
+
+  /**
+   * Returns the CRC-32 of the (uncompressed) data of the entry at the index.
+   *
+   * @param index The index of the entry.
+   * @return The CRC.
+   */
+  public long crc(int index) {
+    return centralDirectory.getInt(headers[index] + 16) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Determines if the archive contains the entry.
+   *
+   * @param name The name of the entry (directories end with a slash).
+   * @return True if the entry exists.
+   */
+  public boolean exists(String name) {
+    return find(name) >= 0;
+  }
+
+  /**
+   * Lists the names of the entries that start with the prefix, in sorted order. The prefix isn't a directory, so the
+   * prefix <code>META-INF/</code> lists all of the entries below that directory (including the directory itself).
+   *
+   * @param prefix The prefix.
+   * @return The names.
+   */
+  public List<String> list(String prefix) {
+    byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = headers.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compare(centralDirectory, headers[middle], bytes) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    List<String> names = new ArrayList<>();
+    for (int i = low; i < headers.length; i++) {
+      int result = compare(centralDirectory, headers[i], bytes);
+      if (result != 0 && result != 2) {
+        break;
+      }
+
+      names.add(name(i));
+    }
+
+    return names;
+  }
+
+  /**
+   * Returns the POSIX mode of the entry.
+   *
+   * @param name The name of the entry.
+   * @return The mode or 0 if the entry was not created on a UNIX platform.
+   * @throws IOException If the entry doesn't exist.
+   */
+  public int mode(String name) throws IOException {
+    return mode(require(name));
+  }
+
+  /**
+   * Returns the POSIX mode of the entry at the index.
+   *
+   * @param index The index of the entry.
+   * @return The mode or 0 if the entry was not created on a UNIX platform.
+   */
+  public int mode(int index) {
+    int header = headers[index];
+    if ((centralDirectory.getShort(header + 4) & 0xFFFF) >> 8 != 3) {
+      return 0;
+    }
+
+    return (centralDirectory.getInt(header + 38) >>> 16) & 0xFFFF;
+  }
+
+  /**
+   * Returns the name of the entry at the index.
+   *
+   * @param index The index of the entry.
+   * @return The name.
+   */
+  public String name(int index) {
+    int header = headers[index];
+    byte[] bytes = new byte[centralDirectory.getShort(header + 28) & 0xFFFF];
+    centralDirectory.get(header + 46, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Opens a stream of the (uncompressed) entry data. STORED entries are read directly from the mapped archive.
+   *
+   * @param name The name of the entry.
+   * @return The stream.
+   * @throws IOException If the entry doesn't exist, uses an unsupported compression method or the archive is invalid.
+   */
+  public InputStream open(String name) throws IOException {
+    return open(require(name));
+  }
+
+  /**
+   * Opens a stream of the (uncompressed) data of the entry at the index. See {@link #open(String)}.
+   *
+   * @param index The index of the entry.
+   * @return The stream.
+   * @throws IOException If the entry uses an unsupported compression method or the archive is invalid.
+   */
+  public InputStream open(int index) throws IOException {
+    String name = name(index);
+    int method = method(index);
+    if (method == RawZipEntry.STORED) {
+      return new BufferInputStream(data(index, name), false);
+    } else if (method != RawZipEntry.DEFLATED) {
+      throw new ZipException("Unsupported compression method [" + method + "] for the entry [" + name + "]");
+    }
+
+    // The raw inflater can need one more byte to finish, the same as the ZipFile adds
+    Inflater inflater = new Inflater(true);
+    return new InflaterInputStream(new BufferInputStream(data(index, name), true), inflater, 8192) {
+      private boolean closed;
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          inflater.end();
+          super.close();
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the uncompressed size of the entry.
+   *
+   * @param name The name of the entry.
+   * @return The size.
+   * @throws IOException If the entry doesn't exist.
+   */
+  public long size(String name) throws IOException {
+    return sizes[require(name)];
+  }
+
+  /**
+   * Returns the uncompressed size of the entry at the index.
+   *
+   * @param index The index of the entry.
+   * @return The size.
+   */
+  public long size(int index) {
+    return sizes[index];
+  }
+
+  private ByteBuffer data(int index, String name) throws IOException {
+    long localHeader = localHeaderOffsets[index];
+    long length = compressedSizes[index];
+    long dataOffset;
+    ByteBuffer data;
+    if (archive != null) {
+      if (localHeader + 30 > archive.limit() || archive.getInt((int) localHeader) != ZipCentralDirectory.LOCAL_HEADER_SIGNATURE) {
+        throw new ZipException("Invalid local header for entry [" + name + "]");
+      }
+
+      dataOffset = localHeader + 30 + (archive.getShort((int) localHeader + 26) & 0xFFFF) + (archive.getShort((int) localHeader + 28) & 0xFFFF);
+      if (dataOffset + length > archive.limit()) {
+        throw new ZipException("Unexpected end of the ZIP file while reading the entry [" + name + "]");
+      }
+
+      data = archive.slice((int) dataOffset, (int) length);
+    } else {
+      RawZipEntry entry = new RawZipEntry(name);
+      entry.localHeaderOffset = localHeader;
+      dataOffset = ZipCentralDirectory.dataOffset(channel, entry);
+      data = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, length);
+    }
+
+    return data.asReadOnlyBuffer();
+  }
+
+  private int find(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = headers.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int result = compare(centralDirectory, headers[middle], bytes);
+      if (result < 0) {
+        low = middle + 1;
+      } else if (result > 0) {
+        high = middle - 1;
+      } else {
+        // Use the last of any duplicates
+        while (middle < headers.length - 1 && compare(centralDirectory, headers[middle + 1], bytes) == 0) {
+          middle++;
+        }
+        return middle;
+      }
+    }
+
+    return -1;
+  }
+
+  private int method(int index) {
+    return centralDirectory.getShort(headers[index] + 10) & 0xFFFF;
+  }
+
+  private int require(String name) throws IOException {
+    int index = find(name);
+    if (index < 0) {
+      throw new IOException("The entry [" + name + "] does not exist in [" + file + "]");
+    }
+
+    return index;
+  }
+
+  /**
+   * Reads a buffer, optionally followed by a single dummy byte for the raw inflater.
+   */
+  private static class BufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private boolean dummy;
+
+    BufferInputStream(ByteBuffer buffer, boolean dummy) {
+      this.buffer = buffer;
+      this.dummy = dummy;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining() + (dummy ? 1 : 0);
+    }
+
+    @Override
+    public int read() {
+      if (buffer.hasRemaining()) {
+        return buffer.get() & 0xFF;
+      }
+
+      if (dummy) {
+        dummy = false;
+        return 0;
+      }
+
+      return -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+
+      if (!buffer.hasRemaining()) {
+        int read = read();
+        if (read == -1) {
+          return -1;
+        }
+
+        b[off] = (byte) read;
+        return 1;
+      }
+
+      int length = Math.min(len, buffer.remaining());
+      buffer.get(b, off, length);
+      return length;
+    }
+
+    @Override
+    public long skip(long n) {
+      int length = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + length);
+      return length;
+    }
+  }
+}
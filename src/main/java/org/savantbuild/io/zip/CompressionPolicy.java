@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+
+import org.savantbuild.io.BuildCache;
+
+/**
+ * Determines how each entry of a ZIP (or JAR) file is compressed. The level of an entry is determined by (in order):
+ * <ol>
+ *   <li>The {@link #storeAll} flag, which stores every entry without compression (fast development builds)</li>
+ *   <li>The first rule whose pattern matches the entry name</li>
+ *   <li>The {@link #storedExtensions}, which are formats that are already compressed</li>
+ *   <li>The default {@link #level}</li>
+ * </ol>
+ * <p>
+ * A level of 0 means the entry is STORED rather than deflated. Entries that are deflated can still end up STORED if a
+ * sample of the entry doesn't compress to less than the {@link #minimumRatio} or if the compressed data is larger than
+ * the original data.
+ *
+ * @author Brian Pontarelli
+ */
+public class CompressionPolicy {
+  public static final Set<String> DEFAULT_STORED_EXTENSIONS = Set.of(
+      "7z", "aar", "br", "bz2", "ear", "gif", "gz", "jar", "jmod", "jpeg", "jpg", "lz4", "mp3", "mp4", "png", "rar",
+      "tgz", "war", "webp", "woff", "woff2", "xz", "zip", "zst"
+  );
+
+  public static final int STORED = 0;
+
+  public final List<Rule> rules = new ArrayList<>();
+
+  public final Set<String> storedExtensions = new HashSet<>(DEFAULT_STORED_EXTENSIONS);
+
+  public int level = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * The ratio (compressed size divided by the original size) that a sample must reach for the entry to be deflated.
+   * Entries that don't compress at least this well are STORED. Set this to 1 or more to disable sampling.
+   */
+  public double minimumRatio = 0.95;
+
+  /**
+   * The number of bytes from the start of each entry that are compressed to determine the ratio. Entries that are this
+   * size or smaller are not sampled, they are compressed and then STORED if that didn't make them smaller.
+   */
+  public int sampleSize = 64 * 1024;
+
+  public boolean storeAll;
+
+  /**
+   * @return A policy that stores every entry without compression.
+   */
+  public static CompressionPolicy stored() {
+    return new CompressionPolicy().storeAll(true);
+  }
+
+  /**
+   * Adds the settings of this policy to the fingerprint of a build.
+   *
+   * @param fingerprint The fingerprint.
+   */
+  public void addTo(BuildCache.Fingerprint fingerprint) {
+    fingerprint.add(level).add(storeAll ? 1 : 0).add(Double.doubleToLongBits(minimumRatio)).add(sampleSize).add(rules.size());
+    for (Rule rule : rules) {
+      fingerprint.add(rule.pattern.pattern()).add(rule.level);
+    }
+
+    fingerprint.add(new TreeSet<>(storedExtensions).toString());
+  }
+
+  /**
+   * Determines the compression level of the entry with the given name.
+   *
+   * @param name The name of the entry.
+   * @return The level, which is {@link #STORED} (0) if the entry should not be compressed.
+   */
+  public int levelFor(String name) {
+    if (storeAll) {
+      return STORED;
+    }
+
+    for (Rule rule : rules) {
+      if (rule.pattern.matcher(name).find()) {
+        return rule.level;
+      }
+    }
+
+    int dot = name.lastIndexOf('.');
+    if (dot >= 0 && dot > name.lastIndexOf('/') && storedExtensions.contains(name.substring(dot + 1).toLowerCase())) {
+      return STORED;
+    }
+
+    return level;
+  }
+
+  public CompressionPolicy level(int level) {
+    this.level = level;
+    return this;
+  }
+
+  public CompressionPolicy minimumRatio(double minimumRatio) {
+    this.minimumRatio = minimumRatio;
+    return this;
+  }
+
+  /**
+   * Adds a rule. Rules are checked in the order they are added and the first rule whose pattern is found in the entry
+   * name determines the level.
+   *
+   * @param pattern The regular expression.
+   * @param level   The level for matching entries, 0 (STORED) through 9.
+   * @return This.
+   */
+  public CompressionPolicy rule(Pattern pattern, int level) {
+    rules.add(new Rule(pattern, level));
+    return this;
+  }
+
+  public CompressionPolicy rule(String pattern, int level) {
+    return rule(Pattern.compile(pattern), level);
+  }
+
+  public CompressionPolicy storeAll(boolean storeAll) {
+    this.storeAll = storeAll;
+    return this;
+  }
+
+  public CompressionPolicy storedExtensions(String... extensions) {
+    storedExtensions.addAll(Arrays.asList(extensions));
+    return this;
+  }
+
+  /**
+   * A compression level for the entries whose names match a pattern.
+   */
+  public static class Rule {
+    public final int level;
+
+    public final Pattern pattern;
+
+    public Rule(Pattern pattern, int level) {
+      this.pattern = pattern;
+      this.level = level;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.savantbuild.io.BuildCache;
+
+/**
+ * Determines what happens when more than one source contributes an entry with the same name. The strategy of an entry
+ * is determined by the first rule whose pattern matches the entry name, or the default {@link #strategy}.
+ * <p>
+ * The {@link #forJar()} policy merges service provider files (<code>META-INF/services/*</code>) and keeps the first of
+ * any other duplicate.
+ *
+ * @author Brian Pontarelli
+ */
+public class DuplicatePolicy {
+  public final List<Rule> rules = new ArrayList<>();
+
+  public Strategy strategy = Strategy.FIRST;
+
+  /**
+   * @return A policy that merges the service provider files and keeps the first entry of any other duplicate.
+   */
+  public static DuplicatePolicy forJar() {
+    return new DuplicatePolicy().rule("^META-INF/services/[^/]+$", Strategy.MERGE);
+  }
+
+  /**
+   * Adds the settings of this policy to the fingerprint of a build.
+   *
+   * @param fingerprint The fingerprint.
+   */
+  public void addTo(BuildCache.Fingerprint fingerprint) {
+    fingerprint.add(strategy.name()).add(rules.size());
+    for (Rule rule : rules) {
+      fingerprint.add(rule.pattern.pattern()).add(rule.strategy.name());
+    }
+  }
+
+  /**
+   * Adds a rule. Rules are checked in the order they are added and the first rule whose pattern is found in the entry
+   * name determines the strategy.
+   *
+   * @param pattern  The regular expression.
+   * @param strategy The strategy for matching entries.
+   * @return This.
+   */
+  public DuplicatePolicy rule(Pattern pattern, Strategy strategy) {
+    rules.add(new Rule(pattern, strategy));
+    return this;
+  }
+
+  public DuplicatePolicy rule(String pattern, Strategy strategy) {
+    return rule(Pattern.compile(pattern), strategy);
+  }
+
+  public DuplicatePolicy strategy(Strategy strategy) {
+    this.strategy = strategy;
+    return this;
+  }
+
+  /**
+   * Determines the strategy for the entry with the given name.
+   *
+   * @param name The name of the entry.
+   * @return The strategy.
+   */
+  public Strategy strategyFor(String name) {
+    for (Rule rule : rules) {
+      if (rule.pattern.matcher(name).find()) {
+        return rule.strategy;
+      }
+    }
+
+    return strategy;
+  }
+
+  /**
+   * The ways that duplicate entries are handled.
+   */
+  public enum Strategy {
+    /**
+     * The build fails.
+     */
+    FAIL,
+
+    /**
+     * The entry that was added first is kept.
+     */
+    FIRST,
+
+    /**
+     * The entry that was added last is kept.
+     */
+    LAST,
+
+    /**
+     * The contents of the entries are concatenated in the order they were added. A new line is inserted between the
+     * contents if the previous contents don't end with one. This is used for service files.
+     */
+    MERGE,
+
+    /**
+     * The entry that was added first is kept if the other entries have the same contents (determined by a digest).
+     * Otherwise, the build fails.
+     */
+    SKIP_IDENTICAL
+  }
+
+  /**
+   * A strategy for the entries whose names match a pattern.
+   */
+  public static class Rule {
+    public final Pattern pattern;
+
+    public final Strategy strategy;
+
+    public Rule(Pattern pattern, Strategy strategy) {
+      this.pattern = pattern;
+      this.strategy = strategy;
+    }
+  }
+}
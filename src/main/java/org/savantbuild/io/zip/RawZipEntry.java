@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.nio.file.attribute.FileTime;
+import java.time.DateTimeException;
+
+/**
+ * A single record from the central directory of a ZIP file. This exposes the raw values stored in the archive,
+ * including the location of the entry's local header, so that the entry data can be read (or copied) without going
+ * through an inflater.
+ * <p>
+ * This is also used to describe the entries written by the {@link ZipArchiveWriter}. When the timestamps are set, the
+ * writer computes the DOS time and the extended timestamp extra field from them, otherwise it uses the {@link #dosTime}.
+ *
+ * @author Brian Pontarelli
+ */
+public class RawZipEntry {
+  public static final int DEFLATED = 8;
+
+  public static final int STORED = 0;
+
+  public long compressedSize;
+
+  public long crc;
+
+  public FileTime creationTime;
+
+  public long dosTime;
+
+  public long externalAttributes;
+
+  public byte[] extra;
+
+  public int flags;
+
+  public FileTime lastAccessTime;
+
+  public FileTime lastModifiedTime;
+
+  public long localHeaderOffset;
+
+  public int method;
+
+  public String name;
+
+  public long size;
+
+  public int versionMadeBy;
+
+  public RawZipEntry() {
+  }
+
+  public RawZipEntry(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return True if the name of this entry ends with a slash.
+   */
+  public boolean isDirectory() {
+    return name.endsWith("/");
+  }
+
+  /**
+   * @return True if the entry data is stored without compression.
+   */
+  public boolean isStored() {
+    return method == STORED;
+  }
+
+  /**
+   * @return The POSIX mode of the entry or 0 if the entry was not created on a UNIX platform.
+   */
+  public int unixMode() {
+    if ((versionMadeBy >> 8) != 3) {
+      return 0;
+    }
+
+    return (int) ((externalAttributes >> 16) & 0xFFFF);
+  }
+
+  /**
+   * Sets the POSIX mode of the entry. This marks the entry as being created on a UNIX platform and stores the mode in
+   * the upper bits of the external attributes, the same as Ant and Info-ZIP do.
+   *
+   * @param mode The POSIX mode bit map.
+   */
+  public void setUnixMode(int mode) {
+    versionMadeBy = (3 << 8) | (versionMadeBy & 0xFF);
+    externalAttributes = ((long) mode << 16) | ((mode & 0200) == 0 ? 1 : 0) | (isDirectory() ? 0x10 : 0);
+  }
+
+  /**
+   * @return The modification time of the entry from the extended timestamp (which is UTC and has seconds precision) or
+   *     from the DOS time (which is local time and has two seconds precision). Null if the entry has neither.
+   */
+  public FileTime toLastModifiedTime() {
+    if (lastModifiedTime != null) {
+      return lastModifiedTime;
+    }
+
+    if (dosTime == 0) {
+      return null;
+    }
+
+    try {
+      return FileTime.fromMillis(ZipArchiveWriter.fromDosTime(dosTime));
+    } catch (DateTimeException e) {
+      // An invalid DOS time is ignored
+      return null;
+    }
+  }
+
+  public String toString() {
+    return name;
+  }
+}
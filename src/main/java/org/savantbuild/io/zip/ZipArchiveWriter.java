@@ -0,0 +1,1030 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import org.savantbuild.io.ChannelOutputStream;
+import org.savantbuild.io.FileInfo;
+import org.savantbuild.io.FilePrefetcher;
+
+/**
+ * Writes ZIP (and JAR) files. Unlike the ZipOutputStream implementations, this writer separates compressing an entry
+ * from writing it. This allows entries to be compressed concurrently (scatter) and then written in their original order
+ * (gather), and it allows entries that are already compressed to be written as-is.
+ * <p>
+ * Compressing the same bytes at the same level always produces the same output, regardless of which thread does the
+ * work, so the parallel mode produces byte-identical files to the sequential mode.
+ * <p>
+ * The {@link CompressionPolicy} determines the level of each entry and which entries are STORED. STORED entries always
+ * have their CRC and size in the local header. Files larger than the {@link #inMemoryLimit} are written directly to the
+ * output on the calling thread. Deflated files use a data descriptor, STORED files are read twice (once to compute the
+ * CRC). The writer never seeks, so the output can be any stream (i.e. an upload or an entry of another archive).
+ * <p>
+ * If a previous version of the archive is given to {@link #reuse(Path)}, files whose size, modification time and CRC
+ * match the previous entry are not compressed again. Instead, their compressed data is copied from the previous
+ * archive. ZIP64 extensions are written when entries, offsets or the entry count exceed the limits of the original
+ * format.
+ *
+ * @author Brian Pontarelli
+ */
+public class ZipArchiveWriter implements Closeable {
+  public static final long DEFAULT_IN_MEMORY_LIMIT = 8L * 1024 * 1024;
+
+  private static final int EXTENDED_TIMESTAMP_ID = 0x5455;
+
+  private static final int JAR_MAGIC_ID = 0xCAFE;
+
+  private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+
+  // Streamed entries don't know their compressed size up front, so leave room for deflate's worst case expansion
+  private static final long ZIP64_STREAMING_THRESHOLD = 0xFF000000L;
+
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+
+  private final List<RawZipEntry> entries = new ArrayList<>();
+
+  private final Map<Integer, Queue<Deflater>> deflaters = new ConcurrentHashMap<>();
+
+  private final OutputStream out;
+
+  private Map<String, RawZipEntry> previousEntries = new HashMap<>();
+
+  private FileChannel previousChannel;
+
+  public CompressionPolicy compressionPolicy = new CompressionPolicy();
+
+  public long inMemoryLimit = DEFAULT_IN_MEMORY_LIMIT;
+
+  /**
+   * Adds the JAR magic extra field to the first entry, the same as the JarOutputStream.
+   */
+  public boolean jarMarker;
+
+  /**
+   * The maximum number of bytes of the files that are being read, compressed or waiting to be written by
+   * {@link #writeFiles(Collection, Function)} when it uses a pipeline.
+   */
+  public long inFlightLimit = FilePrefetcher.DEFAULT_IN_FLIGHT_LIMIT;
+
+  public int parallelism = 1;
+
+  /**
+   * The number of threads that read the files ahead of the compression in {@link #writeFiles(Collection, Function)}.
+   */
+  public int prefetchThreads;
+
+  /**
+   * The number of entries whose compressed data was copied from the previous archive.
+   */
+  public int reusedEntries;
+
+  private boolean finished;
+
+  private long offset;
+
+  public ZipArchiveWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Converts the DOS time to a Java time in the default time zone. This is the inverse of {@link #toDosTime(long)}.
+   *
+   * @param dosTime The DOS time.
+   * @return The Java time.
+   * @throws java.time.DateTimeException If the DOS time is invalid.
+   */
+  public static long fromDosTime(long dosTime) {
+    LocalDateTime time = LocalDateTime.of((int) ((dosTime >> 25) & 0x7F) + 1980, (int) ((dosTime >> 21) & 0x0F),
+        (int) ((dosTime >> 16) & 0x1F), (int) ((dosTime >> 11) & 0x1F), (int) ((dosTime >> 5) & 0x3F), (int) ((dosTime << 1) & 0x3E));
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  /**
+   * Converts the Java time to a DOS time in the default time zone. Times before 1980 are clamped to 1980-01-01.
+   *
+   * @param millis The Java time.
+   * @return The DOS time.
+   */
+  public static long toDosTime(long millis) {
+    LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    int year = time.getYear();
+    if (year < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+
+    return ((long) (year - 1980) << 25) | ((long) time.getMonthValue() << 21) | ((long) time.getDayOfMonth() << 16) |
+        ((long) time.getHour() << 11) | ((long) time.getMinute() << 5) | ((long) time.getSecond() >> 1);
+  }
+
+  /**
+   * Finishes the ZIP file (if it isn't already) and closes the underlying stream and the previous archive.
+   *
+   * @throws IOException If the close fails.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (!finished) {
+        finish();
+      }
+    } finally {
+      try {
+        out.close();
+      } finally {
+        if (previousChannel != null) {
+          previousChannel.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Compresses the given bytes using the compression policy of this writer. This is thread safe and can be called from
+   * worker threads. The result can be written using {@link #write(CompressedEntry)}.
+   *
+   * @param entry  The entry. The method, CRC and sizes are set by this method.
+   * @param data   The uncompressed bytes.
+   * @param length The number of bytes to use from the array.
+   * @return The compressed entry, which might be STORED.
+   */
+  public CompressedEntry compress(RawZipEntry entry, byte[] data, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, length);
+    entry.crc = crc.getValue();
+    entry.size = length;
+
+    int level = compressionPolicy.levelFor(entry.name);
+    if (level == CompressionPolicy.STORED || (length > compressionPolicy.sampleSize && !compresses(level, data, compressionPolicy.sampleSize))) {
+      return store(entry, data, length);
+    }
+
+    Deflater deflater = borrowDeflater(level);
+    try {
+      deflater.setInput(data, 0, length);
+      deflater.finish();
+
+      byte[] buffer = new byte[Math.max(64, length / 2 + 64)];
+      int compressed = 0;
+      while (!deflater.finished()) {
+        if (compressed == buffer.length) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        compressed += deflater.deflate(buffer, compressed, buffer.length - compressed);
+      }
+
+      if (compressed >= length) {
+        return store(entry, data, length);
+      }
+
+      entry.method = RawZipEntry.DEFLATED;
+      entry.flags = (entry.flags & ~6) | deflateOption(level);
+      entry.compressedSize = compressed;
+      return new CompressedEntry(entry, buffer, compressed);
+    } finally {
+      returnDeflater(level, deflater);
+    }
+  }
+
+  /**
+   * Copies an entry from another ZIP file without decompressing it. The name, times, attributes and extra fields of
+   * the entry are kept. The data descriptor flag is cleared because the sizes and CRC are written in the local header.
+   *
+   * @param channel The channel of the other ZIP file.
+   * @param entry   The entry from the central directory of the other ZIP file.
+   * @throws IOException If the copy fails.
+   */
+  public void copy(FileChannel channel, RawZipEntry entry) throws IOException {
+    long position = ZipCentralDirectory.dataOffset(channel, entry);
+    entry.flags &= ~8;
+    writeLocalHeader(entry, false);
+    transfer(channel, position, entry.compressedSize, entry.name);
+    entries.add(entry);
+  }
+
+  /**
+   * Writes the central directory and the end of central directory records. No entries can be written after this is
+   * called.
+   *
+   * @throws IOException If the write fails.
+   */
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+
+    finished = true;
+    long centralDirectoryOffset = offset;
+    for (RawZipEntry entry : entries) {
+      writeCentralHeader(entry);
+    }
+
+    long centralDirectorySize = offset - centralDirectoryOffset;
+    int count = entries.size();
+    boolean zip64 = count >= 0xFFFF || centralDirectoryOffset >= ZIP64_LIMIT || centralDirectorySize >= ZIP64_LIMIT;
+    if (zip64) {
+      long zip64Offset = offset;
+      ByteBuffer record = newBuffer(56 + 20);
+      record.putInt(ZipCentralDirectory.ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+      record.putLong(44);
+      record.putShort((short) 45);
+      record.putShort((short) 45);
+      record.putInt(0);
+      record.putInt(0);
+      record.putLong(count);
+      record.putLong(count);
+      record.putLong(centralDirectorySize);
+      record.putLong(centralDirectoryOffset);
+      record.putInt(ZipCentralDirectory.ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+      record.putInt(0);
+      record.putLong(zip64Offset);
+      record.putInt(1);
+      writeBuffer(record);
+    }
+
+    ByteBuffer record = newBuffer(22);
+    record.putInt(ZipCentralDirectory.END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    record.putShort((short) 0);
+    record.putShort((short) 0);
+    record.putShort((short) Math.min(count, 0xFFFF));
+    record.putShort((short) Math.min(count, 0xFFFF));
+    record.putInt((int) Math.min(centralDirectorySize, ZIP64_LIMIT));
+    record.putInt((int) Math.min(centralDirectoryOffset, ZIP64_LIMIT));
+    record.putShort((short) 0);
+    writeBuffer(record);
+    out.flush();
+
+    for (Queue<Deflater> pool : deflaters.values()) {
+      Deflater deflater;
+      while ((deflater = pool.poll()) != null) {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * Opens a previous version of the archive (which must not be the file being written) so that the compressed data of
+   * the files that haven't changed can be copied rather than compressed again. Only files written using
+   * {@link #writeFiles(Collection, Function)} are compared to the previous archive.
+   *
+   * @param previous The previous archive.
+   * @throws IOException If the previous archive can't be read.
+   */
+  public void reuse(Path previous) throws IOException {
+    FileChannel channel = FileChannel.open(previous, StandardOpenOption.READ);
+    try {
+      Map<String, RawZipEntry> entries = new HashMap<>();
+      for (RawZipEntry entry : ZipCentralDirectory.read(channel)) {
+        entries.put(entry.name, entry);
+      }
+
+      previousEntries = entries;
+      previousChannel = channel;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Writes an entry that has already been compressed.
+   *
+   * @param compressed The compressed entry.
+   * @throws IOException If the write fails.
+   */
+  public void write(CompressedEntry compressed) throws IOException {
+    writeRaw(compressed.entry, compressed.data, 0, compressed.length);
+    if (compressed.reused) {
+      reusedEntries++;
+    }
+  }
+
+  /**
+   * Compresses and writes the given bytes as an entry.
+   *
+   * @param entry The entry.
+   * @param data  The uncompressed bytes.
+   * @throws IOException If the write fails.
+   */
+  public void write(RawZipEntry entry, byte[] data) throws IOException {
+    write(compress(entry, data, data.length));
+  }
+
+  /**
+   * Compresses (or stores) and writes the contents of the given file as an entry. Files larger than the
+   * {@link #inMemoryLimit} are streamed to the output.
+   *
+   * @param entry The entry.
+   * @param file  The file.
+   * @throws IOException If the write fails.
+   */
+  public void write(RawZipEntry entry, Path file) throws IOException {
+    if (Files.size(file) > inMemoryLimit) {
+      writeLarge(entry, file);
+    } else {
+      byte[] data = Files.readAllBytes(file);
+      write(compress(entry, data, data.length));
+    }
+  }
+
+  /**
+   * Writes a directory entry.
+   *
+   * @param entry The entry. The name must end with a slash.
+   * @throws IOException If the write fails.
+   */
+  public void writeDirectory(RawZipEntry entry) throws IOException {
+    entry.method = RawZipEntry.STORED;
+    entry.crc = 0;
+    entry.size = 0;
+    entry.compressedSize = 0;
+    writeLocalHeader(entry, false);
+    entries.add(entry);
+  }
+
+  /**
+   * Writes all of the files in the order of the given collection.
+   * <p>
+   * If the {@link #prefetchThreads} or the {@link #parallelism} is greater than zero or one respectively, the files are
+   * written by a pipeline. The files are read ahead by the prefetch threads (see {@link FilePrefetcher}), compressed
+   * by a pool of worker threads (or the calling thread if the parallelism is one) and written in order by the calling
+   * thread. The bytes of the files that are being read, compressed or waiting to be written are bounded by the
+   * {@link #inFlightLimit}. Otherwise, each file is read, compressed and written in turn by the calling thread.
+   *
+   * @param fileInfos    The files.
+   * @param entryFactory Creates the entry (name, timestamps, mode) for each file.
+   * @return The number of entries written.
+   * @throws IOException If any file can't be read or the write fails.
+   */
+  public int writeFiles(Collection<FileInfo> fileInfos, Function<FileInfo, RawZipEntry> entryFactory)
+      throws IOException {
+    List<RawZipEntry> zipEntries = new ArrayList<>(fileInfos.size());
+    List<Long> sizes = new ArrayList<>(fileInfos.size());
+    for (FileInfo fileInfo : fileInfos) {
+      zipEntries.add(entryFactory.apply(fileInfo));
+      sizes.add(fileInfo.size != null ? fileInfo.size : Files.size(fileInfo.origin));
+    }
+
+    if (prefetchThreads <= 0 && parallelism <= 1) {
+      int index = 0;
+      for (FileInfo fileInfo : fileInfos) {
+        RawZipEntry entry = zipEntries.get(index);
+        long size = sizes.get(index++);
+        RawZipEntry previous = previousEntry(entry, size);
+        if (size > inMemoryLimit) {
+          writeLarge(entry, fileInfo.origin, previous);
+        } else {
+          byte[] data = Files.readAllBytes(fileInfo.origin);
+          write(prepare(entry, data, data.length, previous));
+        }
+      }
+
+      return fileInfos.size();
+    }
+
+    ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+    try (FilePrefetcher prefetcher = new FilePrefetcher(prefetchThreads, inFlightLimit)) {
+      int index = 0;
+      for (FileInfo fileInfo : fileInfos) {
+        long size = sizes.get(index++);
+        if (size <= inMemoryLimit) {
+          prefetcher.add(fileInfo.origin, size);
+        }
+      }
+
+      Deque<InFlight> window = new ArrayDeque<>();
+      index = 0;
+      for (FileInfo fileInfo : fileInfos) {
+        RawZipEntry entry = zipEntries.get(index);
+        long size = sizes.get(index++);
+        RawZipEntry previous = previousEntry(entry, size);
+        if (size > inMemoryLimit) {
+          // Preserve the order by writing everything that is in flight first
+          while (!window.isEmpty()) {
+            write(window.poll(), prefetcher);
+          }
+
+          writeLarge(entry, fileInfo.origin, previous);
+          continue;
+        }
+
+        // Writing the oldest entries releases their buffers so that the next file can be read
+        while (!window.isEmpty() && (!prefetcher.available() || window.peek().future.isDone())) {
+          write(window.poll(), prefetcher);
+        }
+
+        FilePrefetcher.Buffer buffer = prefetcher.next();
+        if (executor == null) {
+          write(prepare(entry, buffer.data, buffer.length, previous));
+          prefetcher.release(buffer);
+          continue;
+        }
+
+        window.add(new InFlight(buffer, executor.submit(() -> prepare(entry, buffer.data, buffer.length, previous))));
+      }
+
+      while (!window.isEmpty()) {
+        write(window.poll(), prefetcher);
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+
+    return fileInfos.size();
+  }
+
+  /**
+   * Writes an entry whose data is already in its final (stored or compressed) form. The method, CRC and sizes of the
+   * entry must describe the data.
+   *
+   * @param entry  The entry.
+   * @param data   The data.
+   * @param offset The offset into the data array.
+   * @param length The number of bytes of data.
+   * @throws IOException If the write fails.
+   */
+  public void writeRaw(RawZipEntry entry, byte[] data, int offset, int length) throws IOException {
+    writeLocalHeader(entry, false);
+    out.write(data, offset, length);
+    this.offset += length;
+    entries.add(entry);
+  }
+
+  private static CompressedEntry await(Future<CompressedEntry> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing entries", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+
+      throw new IOException("Unable to compress an entry", e.getCause());
+    }
+  }
+
+  private static long crc(Path file) throws IOException {
+    try (CheckedInputStream is = new CheckedInputStream(Files.newInputStream(file), new CRC32())) {
+      is.transferTo(OutputStream.nullOutputStream());
+      return is.getChecksum().getValue();
+    }
+  }
+
+  private static ByteBuffer newBuffer(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Removes the extra fields that this writer manages from a raw extra field block.
+   */
+  private static byte[] stripManagedExtra(byte[] extra, boolean keepTimestamps) {
+    if (extra == null || extra.length == 0) {
+      return new byte[0];
+    }
+
+    ByteArrayOutputStream result = new ByteArrayOutputStream(extra.length);
+    ByteBuffer buffer = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.remaining() >= 4) {
+      int start = buffer.position();
+      int id = buffer.getShort() & 0xFFFF;
+      int length = Math.min(buffer.getShort() & 0xFFFF, buffer.remaining());
+      buffer.position(buffer.position() + length);
+      if (id == ZIP64_EXTRA_ID || id == JAR_MAGIC_ID || (id == EXTENDED_TIMESTAMP_ID && !keepTimestamps)) {
+        continue;
+      }
+
+      result.write(extra, start, 4 + length);
+    }
+
+    return result.toByteArray();
+  }
+
+  private static int toUnixTime(FileTime time) {
+    long seconds = time.toMillis() / 1000;
+    return seconds >= Integer.MIN_VALUE && seconds <= Integer.MAX_VALUE ? (int) seconds : 0;
+  }
+
+  private static void reuseData(RawZipEntry entry, RawZipEntry previous) {
+    entry.method = previous.method;
+    entry.flags = (entry.flags & ~6) | (previous.flags & 6);
+    entry.crc = previous.crc;
+    entry.size = previous.size;
+    entry.compressedSize = previous.compressedSize;
+  }
+
+  private static CompressedEntry store(RawZipEntry entry, byte[] data, int length) {
+    entry.method = RawZipEntry.STORED;
+    entry.compressedSize = length;
+    return new CompressedEntry(entry, data, length);
+  }
+
+  private Deflater borrowDeflater(int level) {
+    Deflater deflater = deflaters.computeIfAbsent(level, (key) -> new ConcurrentLinkedQueue<>()).poll();
+    if (deflater == null) {
+      deflater = new Deflater(level, true);
+    }
+
+    return deflater;
+  }
+
+  /**
+   * Compresses the start of the data to determine if the entry is worth compressing.
+   */
+  private boolean compresses(int level, byte[] data, int length) {
+    if (compressionPolicy.minimumRatio >= 1) {
+      return true;
+    }
+
+    int limit = (int) (length * compressionPolicy.minimumRatio);
+    byte[] buffer = new byte[Math.max(64, limit)];
+    Deflater deflater = borrowDeflater(level);
+    try {
+      deflater.setInput(data, 0, length);
+      deflater.finish();
+      int compressed = 0;
+      while (!deflater.finished() && compressed < limit) {
+        compressed += deflater.deflate(buffer, compressed, buffer.length - compressed);
+      }
+
+      return deflater.finished() && compressed < limit;
+    } finally {
+      returnDeflater(level, deflater);
+    }
+  }
+
+  private byte[] buildExtra(RawZipEntry entry, boolean local, boolean zip64) {
+    boolean first = entries.isEmpty() && local;
+    boolean timestamps = entry.lastModifiedTime != null || entry.lastAccessTime != null || entry.creationTime != null;
+    byte[] other = stripManagedExtra(entry.extra, !timestamps);
+
+    ByteBuffer buffer = newBuffer(4 + 17 + 4 + 28 + other.length);
+    if (jarMarker && (first || (!local && entry == entries.get(0)))) {
+      buffer.putShort((short) JAR_MAGIC_ID);
+      buffer.putShort((short) 0);
+    }
+
+    if (timestamps) {
+      int flags = (entry.lastModifiedTime != null ? 1 : 0) | (entry.lastAccessTime != null ? 2 : 0) | (entry.creationTime != null ? 4 : 0);
+      buffer.putShort((short) EXTENDED_TIMESTAMP_ID);
+      if (local) {
+        buffer.putShort((short) (1 + 4 * Integer.bitCount(flags)));
+        buffer.put((byte) flags);
+        if (entry.lastModifiedTime != null) {
+          buffer.putInt(toUnixTime(entry.lastModifiedTime));
+        }
+        if (entry.lastAccessTime != null) {
+          buffer.putInt(toUnixTime(entry.lastAccessTime));
+        }
+        if (entry.creationTime != null) {
+          buffer.putInt(toUnixTime(entry.creationTime));
+        }
+      } else {
+        // The central directory only contains the modification time
+        buffer.putShort((short) (entry.lastModifiedTime != null ? 5 : 1));
+        buffer.put((byte) flags);
+        if (entry.lastModifiedTime != null) {
+          buffer.putInt(toUnixTime(entry.lastModifiedTime));
+        }
+      }
+    }
+
+    buffer.put(other);
+
+    if (zip64) {
+      if (local) {
+        buffer.putShort((short) ZIP64_EXTRA_ID);
+        buffer.putShort((short) 16);
+        buffer.putLong(entry.size);
+        buffer.putLong(entry.compressedSize);
+      } else {
+        int length = (entry.size >= ZIP64_LIMIT ? 8 : 0) + (entry.compressedSize >= ZIP64_LIMIT ? 8 : 0) +
+            (entry.localHeaderOffset >= ZIP64_LIMIT ? 8 : 0);
+        buffer.putShort((short) ZIP64_EXTRA_ID);
+        buffer.putShort((short) length);
+        if (entry.size >= ZIP64_LIMIT) {
+          buffer.putLong(entry.size);
+        }
+        if (entry.compressedSize >= ZIP64_LIMIT) {
+          buffer.putLong(entry.compressedSize);
+        }
+        if (entry.localHeaderOffset >= ZIP64_LIMIT) {
+          buffer.putLong(entry.localHeaderOffset);
+        }
+      }
+    }
+
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  /**
+   * Copies the compressed data of an entry from the previous archive. This is used for entries that are too large to
+   * hold in memory.
+   */
+  private void copyPrevious(RawZipEntry entry, RawZipEntry previous) throws IOException {
+    long position = ZipCentralDirectory.dataOffset(previousChannel, previous);
+    reuseData(entry, previous);
+    writeLocalHeader(entry, false);
+    transfer(previousChannel, position, previous.compressedSize, previous.name);
+    entries.add(entry);
+    reusedEntries++;
+  }
+
+  /**
+   * Compresses the contents of a file, unless the file is the same as the previous entry, in which case the compressed
+   * data of the previous entry is used.
+   */
+  private CompressedEntry prepare(RawZipEntry entry, byte[] data, int length, RawZipEntry previous) throws IOException {
+    if (previous != null && length == previous.size) {
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      if (crc.getValue() == previous.crc) {
+        long position = ZipCentralDirectory.dataOffset(previousChannel, previous);
+        ByteBuffer buffer = ZipCentralDirectory.readFully(previousChannel, position, Math.toIntExact(previous.compressedSize));
+        reuseData(entry, previous);
+        return new CompressedEntry(entry, buffer.array(), buffer.limit(), true);
+      }
+    }
+
+    return compress(entry, data, length);
+  }
+
+  /**
+   * Finds the entry in the previous archive that might contain the same data as the file. The size and modification
+   * time of the new entry must match. The CRC is checked once the file is read.
+   * <p>
+   * The previous entry must also have been compressed the way the compression policy compresses the entry now. A ZIP
+   * file only records the method and the deflate option (normal, maximum, fast or super fast) of each entry, so an
+   * entry is only reused if those match the level of the policy. Entries that were STORED are only reused if the
+   * policy stores the entry, because they might have been STORED by a different policy.
+   */
+  private RawZipEntry previousEntry(RawZipEntry entry, long size) {
+    RawZipEntry previous = previousEntries.get(entry.name);
+    if (previous == null || previous.size != size || entry.lastModifiedTime == null || (previous.flags & 1) != 0 ||
+        (previous.method != RawZipEntry.STORED && previous.method != RawZipEntry.DEFLATED)) {
+      return null;
+    }
+
+    int level = compressionPolicy.levelFor(entry.name);
+    boolean sameCompression = level == CompressionPolicy.STORED ?
+        previous.method == RawZipEntry.STORED :
+        previous.method == RawZipEntry.DEFLATED && (previous.flags & 6) == deflateOption(level);
+    if (!sameCompression) {
+      return null;
+    }
+
+    boolean sameTime = previous.lastModifiedTime != null ?
+        toUnixTime(previous.lastModifiedTime) == toUnixTime(entry.lastModifiedTime) :
+        previous.dosTime == toDosTime(entry.lastModifiedTime.toMillis());
+    return sameTime ? previous : null;
+  }
+
+  /**
+   * Converts a deflate level to the bits 1 and 2 of the general purpose flags, which record the deflate option.
+   */
+  private static int deflateOption(int level) {
+    switch (level) {
+      case 8:
+      case 9:
+        return 2;
+      case 2:
+        return 4;
+      case 1:
+        return 6;
+      default:
+        return 0;
+    }
+  }
+
+  private void returnDeflater(int level, Deflater deflater) {
+    deflater.reset();
+    deflaters.get(level).offer(deflater);
+  }
+
+  private int versionNeeded(RawZipEntry entry, boolean zip64) {
+    if (zip64) {
+      return 45;
+    }
+
+    return entry.method == RawZipEntry.DEFLATED || (entry.flags & 8) != 0 ? 20 : 10;
+  }
+
+  private void transfer(FileChannel channel, long position, long length, String name) throws IOException {
+    if (out instanceof ChannelOutputStream) {
+      if (((ChannelOutputStream) out).transferFrom(channel, position, length) != length) {
+        throw new ZipException("Unexpected end of the ZIP file while copying the entry [" + name + "]");
+      }
+
+      offset += length;
+      return;
+    }
+
+    long remaining = length;
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    while (remaining > 0) {
+      buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new ZipException("Unexpected end of the ZIP file while copying the entry [" + name + "]");
+      }
+
+      out.write(buffer.array(), 0, read);
+      position += read;
+      remaining -= read;
+    }
+
+    offset += length;
+  }
+
+  private void write(InFlight inFlight, FilePrefetcher prefetcher) throws IOException {
+    write(await(inFlight.future));
+    prefetcher.release(inFlight.buffer);
+  }
+
+  private void writeBuffer(ByteBuffer buffer) throws IOException {
+    out.write(buffer.array(), 0, buffer.position());
+    offset += buffer.position();
+  }
+
+  private void writeCentralHeader(RawZipEntry entry) throws IOException {
+    boolean zip64 = entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT || entry.localHeaderOffset >= ZIP64_LIMIT;
+    byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+    byte[] extra = buildExtra(entry, false, zip64);
+    int versionNeeded = versionNeeded(entry, zip64);
+
+    ByteBuffer header = newBuffer(46 + name.length + extra.length);
+    header.putInt(ZipCentralDirectory.CENTRAL_HEADER_SIGNATURE);
+    header.putShort((short) ((entry.versionMadeBy & 0xFF00) | Math.max(entry.versionMadeBy & 0xFF, versionNeeded)));
+    header.putShort((short) versionNeeded);
+    header.putShort((short) entry.flags);
+    header.putShort((short) entry.method);
+    header.putInt((int) entry.dosTime);
+    header.putInt((int) entry.crc);
+    header.putInt((int) Math.min(entry.compressedSize, ZIP64_LIMIT));
+    header.putInt((int) Math.min(entry.size, ZIP64_LIMIT));
+    header.putShort((short) name.length);
+    header.putShort((short) extra.length);
+    header.putShort((short) 0);
+    header.putShort((short) 0);
+    header.putShort((short) 0);
+    header.putInt((int) entry.externalAttributes);
+    header.putInt((int) Math.min(entry.localHeaderOffset, ZIP64_LIMIT));
+    header.put(name);
+    header.put(extra);
+    writeBuffer(header);
+  }
+
+  private void writeLocalHeader(RawZipEntry entry, boolean forceZip64) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("The ZIP file has already been finished");
+    }
+
+    if (entry.lastModifiedTime != null) {
+      entry.dosTime = toDosTime(entry.lastModifiedTime.toMillis());
+    } else if (entry.dosTime == 0) {
+      entry.dosTime = toDosTime(System.currentTimeMillis());
+    }
+
+    // Names are always UTF-8
+    entry.flags |= 0x800;
+    entry.localHeaderOffset = offset;
+
+    boolean zip64 = forceZip64 || entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT;
+    boolean descriptor = (entry.flags & 8) != 0;
+    byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+    byte[] extra = buildExtra(entry, true, zip64);
+
+    ByteBuffer header = newBuffer(30 + name.length + extra.length);
+    header.putInt(ZipCentralDirectory.LOCAL_HEADER_SIGNATURE);
+    header.putShort((short) versionNeeded(entry, zip64));
+    header.putShort((short) entry.flags);
+    header.putShort((short) entry.method);
+    header.putInt((int) entry.dosTime);
+    header.putInt(descriptor ? 0 : (int) entry.crc);
+    header.putInt(zip64 ? (int) ZIP64_LIMIT : descriptor ? 0 : (int) entry.compressedSize);
+    header.putInt(zip64 ? (int) ZIP64_LIMIT : descriptor ? 0 : (int) entry.size);
+    header.putShort((short) name.length);
+    header.putShort((short) extra.length);
+    header.put(name);
+    header.put(extra);
+    writeBuffer(header);
+  }
+
+  /**
+   * Writes a file that is too large to hold in memory, unless it is the same as the previous entry.
+   */
+  private void writeLarge(RawZipEntry entry, Path file, RawZipEntry previous) throws IOException {
+    if (previous != null && crc(file) == previous.crc) {
+      copyPrevious(entry, previous);
+    } else {
+      writeLarge(entry, file);
+    }
+  }
+
+  private void writeLarge(RawZipEntry entry, Path file) throws IOException {
+    int level = compressionPolicy.levelFor(entry.name);
+    if (level != CompressionPolicy.STORED) {
+      byte[] sample;
+      try (InputStream is = Files.newInputStream(file)) {
+        sample = is.readNBytes(compressionPolicy.sampleSize);
+      }
+
+      if (compresses(level, sample, sample.length)) {
+        writeStreamed(entry, file, level);
+        return;
+      }
+    }
+
+    writeStored(entry, file);
+  }
+
+  private void writeStored(RawZipEntry entry, Path file) throws IOException {
+    // The CRC must be in the local header because many readers can't handle STORED entries with data descriptors
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[64 * 1024];
+    long size = 0;
+    try (InputStream is = Files.newInputStream(file)) {
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+        size += read;
+      }
+    }
+
+    entry.method = RawZipEntry.STORED;
+    entry.flags &= ~8;
+    entry.crc = crc.getValue();
+    entry.size = size;
+    entry.compressedSize = size;
+    writeLocalHeader(entry, false);
+
+    long remaining = size;
+    try (InputStream is = Files.newInputStream(file)) {
+      int read;
+      while (remaining > 0 && (read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+        out.write(buffer, 0, read);
+        remaining -= read;
+      }
+    }
+
+    if (remaining != 0) {
+      throw new ZipException("The file [" + file + "] changed while it was being added to the ZIP file");
+    }
+
+    offset += size;
+    entries.add(entry);
+  }
+
+  private void writeStreamed(RawZipEntry entry, Path file, int level) throws IOException {
+    boolean zip64 = Files.size(file) >= ZIP64_STREAMING_THRESHOLD;
+    entry.method = RawZipEntry.DEFLATED;
+    entry.flags = (entry.flags & ~6) | deflateOption(level) | 8;
+    entry.crc = 0;
+    entry.size = 0;
+    entry.compressedSize = 0;
+    writeLocalHeader(entry, zip64);
+
+    CRC32 crc = new CRC32();
+    Deflater deflater = borrowDeflater(level);
+    byte[] input = new byte[64 * 1024];
+    byte[] output = new byte[64 * 1024];
+    long size = 0;
+    try (InputStream is = Files.newInputStream(file)) {
+      int read;
+      while ((read = is.read(input)) != -1) {
+        crc.update(input, 0, read);
+        size += read;
+        deflater.setInput(input, 0, read);
+        while (!deflater.needsInput()) {
+          int length = deflater.deflate(output);
+          out.write(output, 0, length);
+          offset += length;
+        }
+      }
+
+      deflater.finish();
+      while (!deflater.finished()) {
+        int length = deflater.deflate(output);
+        out.write(output, 0, length);
+        offset += length;
+      }
+
+      entry.crc = crc.getValue();
+      entry.size = size;
+      entry.compressedSize = deflater.getBytesWritten();
+    } finally {
+      returnDeflater(level, deflater);
+    }
+
+    if (!zip64 && (entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT)) {
+      throw new ZipException("The file [" + file + "] grew while it was being added to the ZIP file");
+    }
+
+    ByteBuffer descriptor = newBuffer(24);
+    descriptor.putInt(ZipCentralDirectory.DATA_DESCRIPTOR_SIGNATURE);
+    descriptor.putInt((int) entry.crc);
+    if (zip64) {
+      descriptor.putLong(entry.compressedSize);
+      descriptor.putLong(entry.size);
+    } else {
+      descriptor.putInt((int) entry.compressedSize);
+      descriptor.putInt((int) entry.size);
+    }
+
+    writeBuffer(descriptor);
+    entries.add(entry);
+  }
+
+  /**
+   * A file whose buffer is held until its compressed entry is written.
+   */
+  private static class InFlight {
+    public final FilePrefetcher.Buffer buffer;
+
+    public final Future<CompressedEntry> future;
+
+    InFlight(FilePrefetcher.Buffer buffer, Future<CompressedEntry> future) {
+      this.buffer = buffer;
+      this.future = future;
+    }
+  }
+
+  /**
+   * An entry whose data has been compressed and is ready to be written.
+   */
+  public static class CompressedEntry {
+    public final byte[] data;
+
+    public final RawZipEntry entry;
+
+    public final int length;
+
+    /**
+     * True if the data was copied from the previous archive rather than compressed.
+     */
+    public final boolean reused;
+
+    public CompressedEntry(RawZipEntry entry, byte[] data, int length) {
+      this(entry, data, length, false);
+    }
+
+    public CompressedEntry(RawZipEntry entry, byte[] data, int length, boolean reused) {
+      this.entry = entry;
+      this.data = data;
+      this.length = length;
+      this.reused = reused;
+    }
+  }
+}
@@ -16,20 +16,32 @@
 package org.savantbuild.io.zip;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.zip.ZipException;
 
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipOutputStream;
+import org.savantbuild.io.BuildCache;
+import org.savantbuild.io.ChannelOutputStream;
+import org.savantbuild.io.Checksum;
 import org.savantbuild.io.Directory;
+import org.savantbuild.io.DirectoryIndex;
 import org.savantbuild.io.FileInfo;
+import org.savantbuild.io.FilePrefetcher;
 import org.savantbuild.io.FileSet;
-import org.savantbuild.io.FileTools;
+import org.savantbuild.io.GeneratedEntry;
+
+import static java.util.Arrays.asList;
 
 /**
  * Helps build Zip files.
@@ -37,12 +49,94 @@ import org.savantbuild.io.FileTools;
  * @author Brian Pontarelli
  */
 public class ZipBuilder {
-  public final List<Directory> directories = new ArrayList<>();
+  /**
+   * The directories of the archive, sorted by name. The directories of the FileSets are added to this when the archive
+   * is built, unless a directory with the same name has already been added.
+   */
+  public final DirectoryIndex directories = new DirectoryIndex();
 
   public final Path file;
 
   public final List<FileSet> fileSets = new ArrayList<>();
 
+  /**
+   * Entries whose contents are generated by the build. These are written directly into the ZIP file, in name order
+   * with the files of all of the FileSets. If a file has the same name as a generated entry, the generated entry
+   * replaces it.
+   */
+  public final List<GeneratedEntry> generatedEntries = new ArrayList<>();
+
+  /**
+   * Existing ZIP and JAR files whose entries are copied into the ZIP file without being decompressed.
+   */
+  public final List<ZipSource> zipSources = new ArrayList<>();
+
+  /**
+   * If set, the ZIP file is restored from this cache when the cache contains a ZIP file with the same fingerprint.
+   * Otherwise the ZIP file is built and added to the cache.
+   */
+  public BuildCache cache;
+
+  /**
+   * The checksums that are computed from the bytes of the ZIP file while it is written.
+   */
+  public final Set<Checksum> checksums = EnumSet.noneOf(Checksum.class);
+
+  /**
+   * If true, a sidecar file is written next to the ZIP file for each of the checksums (i.e. <code>foo.zip.sha1</code>).
+   */
+  public boolean checksumFiles = true;
+
+  /**
+   * The hex encoded digests of the checksums, which are set when the archive is built.
+   */
+  public Map<Checksum, String> digests;
+
+  /**
+   * The size of the buffer between the ZIP file and its FileChannel.
+   */
+  public int bufferSize = ChannelOutputStream.DEFAULT_BUFFER_SIZE;
+
+  /**
+   * If true and the ZIP file already exists, the files whose size, modification time and CRC haven't changed are
+   * copied from the existing ZIP file without compressing them again. The new ZIP file is built in a temporary file
+   * and then moved over the existing file.
+   */
+  public boolean incremental;
+
+  /**
+   * Determines the compression level of each entry and which entries are STORED.
+   */
+  public CompressionPolicy compressionPolicy = new CompressionPolicy();
+
+  /**
+   * Determines which entry is kept when the files and the zip sources contain more than one entry with the same name.
+   */
+  public DuplicatePolicy duplicatePolicy = new DuplicatePolicy();
+
+  /**
+   * If set, this is used for the timestamps of all of the entries, rather than the timestamps of the files. This makes
+   * the ZIP file reproducible and allows the cache to be used even if the files are touched.
+   */
+  public FileTime timestamp;
+
+  /**
+   * The number of threads used to compress the files. Values greater than one compress the files concurrently, but the
+   * output is identical to the sequential build.
+   */
+  public int parallelism = 1;
+
+  /**
+   * The number of threads that read the files ahead of the compression. If this is greater than zero (or the
+   * parallelism is greater than one), reading, compressing and writing the files overlap.
+   */
+  public int prefetchThreads;
+
+  /**
+   * The maximum number of bytes of the files that are being read, compressed or waiting to be written at once.
+   */
+  public long inFlightLimit = FilePrefetcher.DEFAULT_IN_FLIGHT_LIMIT;
+
   public ZipBuilder(String file) {
     this(Paths.get(file));
   }
@@ -51,8 +145,21 @@ public class ZipBuilder {
     this.file = file;
   }
 
+  /**
+   * Creates a builder without a file. The archive can only be built into a stream or channel.
+   */
+  public ZipBuilder() {
+    this((Path) null);
+  }
+
   public int build() throws IOException {
-    if (Files.exists(file)) {
+    if (file == null) {
+      throw new IOException("The [file] is not set. Use build(OutputStream) or build(WritableByteChannel) instead");
+    }
+
+    digests = null;
+    boolean reuse = incremental && Files.isRegularFile(file);
+    if (!reuse && Files.exists(file)) {
       Files.delete(file);
     }
 
@@ -60,47 +167,182 @@ public class ZipBuilder {
       Files.createDirectories(file.getParent());
     }
 
-    // Sort the file infos and add the directories
-    Set<FileInfo> fileInfos = new TreeSet<>();
-    for (FileSet fileSet : fileSets) {
-      Set<Directory> dirs = fileSet.toDirectories();
-      dirs.removeAll(directories);
-      for (Directory dir : dirs) {
-        directories.add(dir);
+    List<FileInfo> fileInfos = collect();
+    try (ArchiveEntries entries = entries(fileInfos)) {
+      String key = null;
+      if (cache != null) {
+        key = fingerprint(fileInfos);
+        if (cache.restore(key, file)) {
+          writeChecksums();
+          return directories.size() + entries.size();
+        }
+      }
+
+      int count = write(entries, reuse);
+      if (cache != null) {
+        cache.store(key, file);
       }
 
-      fileInfos.addAll(fileSet.toFileInfos());
+      writeChecksums();
+
+      return count;
     }
+  }
 
-    int count = 0;
+  /**
+   * Builds the ZIP file into the stream, which is flushed but not closed. See {@link #build(WritableByteChannel)}.
+   *
+   * @param out The stream.
+   * @return The number of entries written.
+   * @throws IOException If the build fails.
+   */
+  public int build(OutputStream out) throws IOException {
+    int count = build(Channels.newChannel(out));
+    out.flush();
+    return count;
+  }
 
-    try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(file))) {
-      for (Directory directory : directories) {
-        String name = directory.name;
-        ZipEntry entry = new ZipEntry(name.endsWith("/") ? name : name + "/");
-        if (directory.mode != null) {
-          entry.setUnixMode(FileTools.toMode(directory.mode));
-        }
-        zos.putNextEntry(entry);
-        zos.closeEntry();
-        count++;
+  /**
+   * Builds the ZIP file into the channel, which is not closed. The output is written strictly in order, so entries
+   * whose sizes aren't known before they are compressed use data descriptors. The file, cache, incremental and
+   * checksum file options only apply to {@link #build()}. The checksums are still computed into the {@link #digests}.
+   *
+   * @param channel The channel.
+   * @return The number of entries written.
+   * @throws IOException If the build fails.
+   */
+  public int build(WritableByteChannel channel) throws IOException {
+    digests = null;
+    try (ArchiveEntries entries = entries(collect())) {
+      ChannelOutputStream os = new ChannelOutputStream(channel, bufferSize, false);
+      os.addChecksums(checksums);
+      int count;
+      try (ZipArchiveWriter writer = new ZipArchiveWriter(os)) {
+        count = write(writer, entries);
       }
 
-      for (FileInfo fileInfo : fileInfos) {
-        ZipEntry entry = new ZipEntry(fileInfo.relative.toString());
-        entry.setLastAccessTime(fileInfo.lastAccessTime);
-        entry.setLastModifiedTime(fileInfo.lastModifiedTime);
-        entry.setSize(fileInfo.size);
-        entry.setUnixMode(fileInfo.toMode());
-        zos.putNextEntry(entry);
-        Files.copy(fileInfo.origin, zos);
-        zos.flush();
-        zos.closeEntry();
-        count++;
+      digests = checksums.isEmpty() ? null : os.checksums();
+      return count;
+    }
+  }
+
+  public ZipBuilder bufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+    return this;
+  }
+
+  public ZipBuilder cache(BuildCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  public ZipBuilder checksumFiles(boolean checksumFiles) {
+    this.checksumFiles = checksumFiles;
+    return this;
+  }
+
+  public ZipBuilder checksums(Checksum... checksums) {
+    this.checksums.addAll(asList(checksums));
+    return this;
+  }
+
+  /**
+   * Sets the default compression level (0 through 9) of the entries. A level of 0 STORES the entries.
+   *
+   * @param level The level.
+   * @return This.
+   */
+  public ZipBuilder compressionLevel(int level) {
+    compressionPolicy.level(level);
+    return this;
+  }
+
+  public ZipBuilder compressionPolicy(CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
+    return this;
+  }
+
+  public ZipBuilder inFlightLimit(long inFlightLimit) {
+    this.inFlightLimit = inFlightLimit;
+    return this;
+  }
+
+  public ZipBuilder incremental(boolean incremental) {
+    this.incremental = incremental;
+    return this;
+  }
+
+  /**
+   * Collects the files of the FileSets and adds their directories.
+   */
+  private List<FileInfo> collect() throws IOException {
+    List<FileInfo> fileInfos = new ArrayList<>();
+    for (FileSet fileSet : fileSets) {
+      List<FileInfo> infos = fileSet.toFileInfos();
+      directories.addAll(fileSet, infos);
+      fileInfos.addAll(infos);
+    }
+
+    return fileInfos;
+  }
+
+  /**
+   * Adds everything to the ArchiveEntries, which resolves the duplicates.
+   */
+  private ArchiveEntries entries(List<FileInfo> fileInfos) throws IOException {
+    ArchiveEntries entries = new ArchiveEntries(duplicatePolicy);
+    try {
+      entries.addDirectories(directories.names());
+      entries.addFiles(fileInfos);
+      entries.addGenerated(generatedEntries);
+      for (ZipSource zipSource : zipSources) {
+        entries.addSource(zipSource);
       }
+    } catch (IOException | RuntimeException e) {
+      entries.close();
+      throw e;
     }
 
-    return count;
+    return entries;
+  }
+
+  /**
+   * Fingerprints everything that ends up in the ZIP file. Access times are left out, because reading the files
+   * changes them.
+   */
+  private String fingerprint(List<FileInfo> fileInfos) throws IOException {
+    BuildCache.Fingerprint fingerprint = BuildCache.fingerprint("zip").add(timestamp);
+    compressionPolicy.addTo(fingerprint);
+    duplicatePolicy.addTo(fingerprint);
+    fingerprint.add(zipSources.size());
+    for (ZipSource zipSource : zipSources) {
+      zipSource.addTo(fingerprint);
+    }
+
+    fingerprint.add(directories.size());
+    for (Directory directory : directories) {
+      fingerprint.add(DirectoryIndex.normalize(directory.name)).add(directory.mode).add(timestamp != null ? null : directory.lastModifiedTime);
+    }
+
+    fingerprint.add(fileInfos.size());
+    for (FileInfo fileInfo : fileInfos) {
+      fingerprint.add(fileInfo.relative.toString())
+                 .add(fileInfo.toMode())
+                 .add(timestamp != null ? null : fileInfo.lastModifiedTime)
+                 .addContents(fileInfo.origin);
+    }
+
+    fingerprint.add(generatedEntries.size());
+    for (GeneratedEntry generatedEntry : generatedEntries) {
+      generatedEntry.addTo(fingerprint, timestamp);
+    }
+
+    return fingerprint.toKey();
+  }
+
+  public ZipBuilder duplicatePolicy(DuplicatePolicy duplicatePolicy) {
+    this.duplicatePolicy = duplicatePolicy;
+    return this;
   }
 
   public ZipBuilder directory(Directory directory) throws IOException {
@@ -108,6 +350,15 @@ public class ZipBuilder {
     return this;
   }
 
+  public ZipBuilder entry(GeneratedEntry generatedEntry) {
+    generatedEntries.add(generatedEntry);
+    return this;
+  }
+
+  public ZipBuilder entry(String name, byte[] contents) {
+    return entry(new GeneratedEntry(name, contents));
+  }
+
   public ZipBuilder fileSet(Path directory) throws IOException {
     return fileSet(new FileSet(directory));
   }
@@ -129,6 +380,34 @@ public class ZipBuilder {
     return this;
   }
 
+  public ZipBuilder parallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public ZipBuilder prefetchThreads(int prefetchThreads) {
+    this.prefetchThreads = prefetchThreads;
+    return this;
+  }
+
+  public ZipBuilder timestamp(FileTime timestamp) {
+    this.timestamp = timestamp;
+    return this;
+  }
+
+  public ZipBuilder zipSource(Path file) throws IOException {
+    return zipSource(new ZipSource(file));
+  }
+
+  public ZipBuilder zipSource(ZipSource zipSource) throws IOException {
+    if (!Files.isRegularFile(zipSource.file)) {
+      throw new IOException("The [zipSource.file] path [" + zipSource.file + "] does not exist or is not a file");
+    }
+
+    zipSources.add(zipSource);
+    return this;
+  }
+
   public ZipBuilder optionalFileSet(Path directory) throws IOException {
     return optionalFileSet(new FileSet(directory));
   }
@@ -149,4 +428,89 @@ public class ZipBuilder {
 
     return this;
   }
+
+  private void writeChecksums() throws IOException {
+    if (checksums.isEmpty()) {
+      return;
+    }
+
+    if (digests == null) {
+      // The archive was restored from the cache
+      digests = Checksum.compute(file, checksums);
+    }
+
+    if (checksumFiles) {
+      Checksum.writeSidecars(file, digests);
+    }
+  }
+
+  private int write(ArchiveEntries entries, boolean reuse) throws IOException {
+    int count;
+
+    Path target = reuse ? Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp") : file;
+    ChannelOutputStream os = ChannelOutputStream.open(target, bufferSize);
+    os.addChecksums(checksums);
+    try (ZipArchiveWriter writer = new ZipArchiveWriter(os)) {
+      if (reuse) {
+        try {
+          writer.reuse(file);
+        } catch (ZipException e) {
+          // The existing file is not a valid ZIP file, so everything is compressed
+        }
+      }
+
+      count = write(writer, entries);
+    } catch (IOException | RuntimeException e) {
+      if (reuse) {
+        Files.deleteIfExists(target);
+      }
+
+      throw e;
+    }
+
+    if (reuse) {
+      Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    digests = checksums.isEmpty() ? null : os.checksums();
+    return count;
+  }
+
+  private int write(ZipArchiveWriter writer, ArchiveEntries entries) throws IOException {
+    int count = 0;
+
+    writer.compressionPolicy = compressionPolicy;
+    writer.parallelism = parallelism;
+    writer.prefetchThreads = prefetchThreads;
+    writer.inFlightLimit = inFlightLimit;
+
+    FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+    for (Directory directory : directories) {
+      RawZipEntry entry = new RawZipEntry(DirectoryIndex.normalize(directory.name));
+      entry.lastModifiedTime = timestamp != null ? timestamp : directory.lastModifiedTime;
+      if (directory.mode != 0) {
+        entry.setUnixMode(directory.toMode());
+      }
+      writer.writeDirectory(entry);
+      count++;
+    }
+
+    count += entries.write(writer, (fileInfo) -> {
+      RawZipEntry entry = new RawZipEntry(fileInfo.relative.toString());
+      if (timestamp != null) {
+        entry.lastModifiedTime = timestamp;
+      } else {
+        entry.lastModifiedTime = fileInfo.lastModifiedTime;
+      }
+      entry.setUnixMode(fileInfo.toMode());
+      return entry;
+    }, (generatedEntry) -> {
+      RawZipEntry entry = new RawZipEntry(generatedEntry.name);
+      entry.lastModifiedTime = timestamp != null ? timestamp : generatedEntry.lastModifiedTime != null ? generatedEntry.lastModifiedTime : now;
+      entry.setUnixMode(generatedEntry.toMode());
+      return entry;
+    });
+
+    return count;
+  }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the central directory of a ZIP (or JAR) file directly from a FileChannel. This gives access to the raw entry
+ * records (compression method, CRC, sizes and local header offsets) that the ZipFile implementations keep private.
+ * ZIP64 archives are supported. If an entry has an extended timestamp, its modification time is used for the
+ * {@link RawZipEntry#lastModifiedTime}.
+ *
+ * @author Brian Pontarelli
+ */
+public class ZipCentralDirectory implements Iterable<RawZipEntry> {
+  public static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+  public static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+  public static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+  public static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+  public static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+  public static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+
+  private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+
+  private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+  public final List<RawZipEntry> entries;
+
+  public final long offset;
+
+  private ZipCentralDirectory(List<RawZipEntry> entries, long offset) {
+    this.entries = entries;
+    this.offset = offset;
+  }
+
+  /**
+   * Reads the central directory from the given channel. Only positional reads are used.
+   *
+   * @param channel The channel of the ZIP file.
+   * @return The central directory.
+   * @throws IOException If the file can't be read or isn't a ZIP file.
+   */
+  public static ZipCentralDirectory read(FileChannel channel) throws IOException {
+    long[] location = locate(channel);
+    long count = location[0];
+    long offset = location[1];
+    long size = location[2];
+
+    ByteBuffer buffer = readFully(channel, offset, Math.toIntExact(size));
+    List<RawZipEntry> entries = new ArrayList<>((int) Math.min(count, Integer.MAX_VALUE));
+    int position = 0;
+    for (long i = 0; i < count; i++) {
+      if (buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+        throw new ZipException("Invalid central directory header at offset [" + (offset + position) + "]");
+      }
+
+      RawZipEntry entry = new RawZipEntry();
+      entry.versionMadeBy = buffer.getShort(position + 4) & 0xFFFF;
+      entry.flags = buffer.getShort(position + 8) & 0xFFFF;
+      entry.method = buffer.getShort(position + 10) & 0xFFFF;
+      entry.dosTime = buffer.getInt(position + 12) & 0xFFFFFFFFL;
+      entry.crc = buffer.getInt(position + 16) & 0xFFFFFFFFL;
+      entry.compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+      entry.size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+      int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+      int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+      int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+      entry.externalAttributes = buffer.getInt(position + 38) & 0xFFFFFFFFL;
+      entry.localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+
+      byte[] name = new byte[nameLength];
+      buffer.get(position + 46, name);
+      entry.name = new String(name, StandardCharsets.UTF_8);
+
+      entry.extra = new byte[extraLength];
+      buffer.get(position + 46 + nameLength, entry.extra);
+      applyExtra(entry);
+
+      entries.add(entry);
+      position += 46 + nameLength + extraLength + commentLength;
+    }
+
+    return new ZipCentralDirectory(entries, offset);
+  }
+
+  /**
+   * Determines the position of the first byte of the entry's data by reading its local header.
+   *
+   * @param channel The channel of the ZIP file.
+   * @param entry   The entry.
+   * @return The position of the entry data in the file.
+   * @throws IOException If the local header is invalid.
+   */
+  public static long dataOffset(FileChannel channel, RawZipEntry entry) throws IOException {
+    ByteBuffer header = readFully(channel, entry.localHeaderOffset, 30);
+    if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new ZipException("Invalid local header for entry [" + entry.name + "]");
+    }
+
+    int nameLength = header.getShort(26) & 0xFFFF;
+    int extraLength = header.getShort(28) & 0xFFFF;
+    return entry.localHeaderOffset + 30 + nameLength + extraLength;
+  }
+
+  /**
+   * Locates the central directory using the end of central directory record (and the ZIP64 record if there is one).
+   *
+   * @param channel The channel of the ZIP file.
+   * @return The number of entries, the offset and the size of the central directory.
+   * @throws IOException If the file can't be read or isn't a ZIP file.
+   */
+  static long[] locate(FileChannel channel) throws IOException {
+    long fileSize = channel.size();
+    int tailLength = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH);
+    ByteBuffer tail = readFully(channel, fileSize - tailLength, tailLength);
+
+    int eocd = -1;
+    for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i--) {
+      if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+        eocd = i;
+        break;
+      }
+    }
+
+    if (eocd == -1) {
+      throw new ZipException("Unable to locate the end of the central directory. The file is not a ZIP file");
+    }
+
+    long count = tail.getShort(eocd + 10) & 0xFFFF;
+    long size = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+    long offset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+
+    long eocdPosition = fileSize - tailLength + eocd;
+    if ((count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) && eocdPosition >= 20) {
+      ByteBuffer locator = readFully(channel, eocdPosition - 20, 20);
+      if (locator.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+        ByteBuffer zip64 = readFully(channel, locator.getLong(8), 56);
+        if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+          throw new ZipException("Invalid ZIP64 end of central directory record");
+        }
+
+        count = zip64.getLong(32);
+        size = zip64.getLong(40);
+        offset = zip64.getLong(48);
+      }
+    }
+
+    return new long[]{count, offset, size};
+  }
+
+  static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        throw new EOFException("Unexpected end of the ZIP file");
+      }
+    }
+
+    return buffer.flip();
+  }
+
+  /**
+   * Applies the ZIP64 sizes and offset and the modification time from the extended timestamp.
+   */
+  private static void applyExtra(RawZipEntry entry) {
+    ByteBuffer extra = ByteBuffer.wrap(entry.extra).order(ByteOrder.LITTLE_ENDIAN);
+    while (extra.remaining() >= 4) {
+      int id = extra.getShort() & 0xFFFF;
+      int length = Math.min(extra.getShort() & 0xFFFF, extra.remaining());
+      int next = extra.position() + length;
+      if (id == 0x0001) {
+        if (entry.size == 0xFFFFFFFFL && extra.position() + 8 <= next) {
+          entry.size = extra.getLong();
+        }
+        if (entry.compressedSize == 0xFFFFFFFFL && extra.position() + 8 <= next) {
+          entry.compressedSize = extra.getLong();
+        }
+        if (entry.localHeaderOffset == 0xFFFFFFFFL && extra.position() + 8 <= next) {
+          entry.localHeaderOffset = extra.getLong();
+        }
+      } else if (id == 0x5455 && length >= 5 && (extra.get() & 1) != 0) {
+        entry.lastModifiedTime = FileTime.from(extra.getInt(), TimeUnit.SECONDS);
+      }
+
+      extra.position(next);
+    }
+  }
+
+  @Override
+  public Iterator<RawZipEntry> iterator() {
+    return entries.iterator();
+  }
+}
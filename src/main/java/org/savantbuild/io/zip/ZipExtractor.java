@@ -0,0 +1,912 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.savantbuild.io.ChunkedFileCopier;
+import org.savantbuild.io.ExtractionManifest;
+import org.savantbuild.io.ExtractionTarget;
+import org.savantbuild.io.Extractor;
+import org.savantbuild.io.FileSet;
+
+/**
+ * Extracts ZIP (and JAR) files, optionally using a pool of threads. The central directory is read once and the entries
+ * are then extracted independently: every worker has its own Inflater and buffers and reads the entry data from a single
+ * shared FileChannel using positional reads only. The files are written by an {@link Extractor}. The JAR signatures are
+ * never verified.
+ * <p>
+ * The directories are all created on the calling thread before any entries are extracted, so each directory is created
+ * exactly once and the workers never race to create them. The workers claim the entries in central directory order. If
+ * an entry fails, its partial file is deleted, the workers stop claiming entries and the error of the first failed entry
+ * in central directory order is thrown. Since every entry before a failed entry has already been claimed, this is
+ * always the same error no matter how the entries were scheduled.
+ * <p>
+ * The modification times of the entries (from the extended timestamp or the DOS time) are restored. The workers set
+ * the time of each file after it is written and the times of the directory entries are set at the end, in a single
+ * pass over the directories.
+ * <p>
+ * The entries can be selected with include and exclude patterns, which work the same as the patterns of a
+ * {@link FileSet} and are matched against the entry names. The entries are selected using only the central directory,
+ * so the data of the entries that aren't selected is never read.
+ * <p>
+ * ZIP files can also be extracted from streams (i.e. while they are being downloaded) without writing them to a file
+ * first. The streams are read once, front to back, using the local headers and data descriptors. Since the central
+ * directory is at the end, the entries are extracted on a single thread, without their permissions (which are only in
+ * the central directory) and without the {@link ExtractionManifest}. The modification times are taken from the local
+ * headers. STORED entries that use a data descriptor can't be
+ * streamed, because their end can't be found.
+ * <p>
+ * Many ZIP files can be extracted as a batch (see {@link #extract(Map)}). The central directories of all of the files
+ * are read first and the entries of all of the files are then extracted by a single pool of workers, which share the
+ * directory cache, buffers and inflaters. This removes the per-file overhead when many small files (i.e. the JAR files
+ * of the dependencies of a project) are extracted.
+ * <p>
+ * ZIP files can also be extracted to any {@link ExtractionTarget} (i.e. a {@link org.savantbuild.io.MemoryTree}), in
+ * which case the entries are read in place from the mapped file by an {@link ArchiveView} on the calling thread.
+ *
+ * @author Brian Pontarelli
+ */
+public class ZipExtractor {
+  public final Set<Pattern> excludePatterns = new HashSet<>();
+
+  public final Set<Pattern> includePatterns = new HashSet<>();
+
+  /**
+   * The copier used for STORED entries whose size is at or above its threshold.
+   */
+  public ChunkedFileCopier largeFileCopier = new ChunkedFileCopier();
+
+  /**
+   * The number of threads that extract entries.
+   */
+  public int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Determines if an {@link ExtractionManifest} is used to skip the entries that are unchanged since the last
+   * extraction to the same directory.
+   */
+  public boolean useManifest = true;
+
+  public ZipExtractor() {
+  }
+
+  public ZipExtractor(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Extracts the ZIP file to the directory. If {@link #useManifest} is true, the entries that are unchanged since the
+   * last extraction are skipped.
+   *
+   * @param file The ZIP file.
+   * @param to   The directory to extract to.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(Path file, Path to) throws IOException {
+    Extractor extractor = new Extractor(to);
+    if (useManifest) {
+      extractor.manifest = ExtractionManifest.load(to);
+    }
+
+    extract(file, extractor);
+
+    if (useManifest) {
+      extractor.manifest.save();
+    }
+  }
+
+  /**
+   * Extracts the ZIP file using the given Extractor, which shares its directory cache and buffers with any other
+   * extractions that use it.
+   *
+   * @param file      The ZIP file.
+   * @param extractor The Extractor.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(Path file, Extractor extractor) throws IOException {
+    extract(List.of(new Archive(file, extractor)), extractor);
+  }
+
+  /**
+   * Extracts the ZIP file to the target on the calling thread. The entries are passed to the target in sorted order and
+   * the CRC of each file is verified after the target has read it. The {@link #useManifest} flag is ignored.
+   *
+   * @param file   The ZIP file.
+   * @param target The target.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(Path file, ExtractionTarget target) throws IOException {
+    boolean filter = !includePatterns.isEmpty() || !excludePatterns.isEmpty();
+    try (ArchiveView view = ArchiveView.open(file)) {
+      int count = view.count();
+      String next = count > 0 ? view.name(0) : null;
+      for (int i = 0; i < count; i++) {
+        String name = next;
+        next = i + 1 < count ? view.name(i + 1) : null;
+
+        // Duplicates are in central directory order and the last one is kept, the same as when extracting to a directory
+        if (name.equals(next) || (filter && !FileSet.matches(name, includePatterns, excludePatterns))) {
+          continue;
+        }
+
+        if (name.endsWith("/")) {
+          target.directory(name.substring(0, name.length() - 1), view.mode(i));
+          continue;
+        }
+
+        long crc = view.crc(i);
+        try (CheckedInputStream is = new CheckedInputStream(view.open(i), new CRC32())) {
+          if (target.write(name, crc, view.size(i), view.mode(i), is) && is.getChecksum().getValue() != crc) {
+            throw new ZipException("Invalid CRC for the entry [" + name + "]");
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Extracts a batch of ZIP files, each to its own directory. The files and directories are extracted in the iteration
+   * order of the map (i.e. a LinkedHashMap) and the result is the same as extracting them one after another: if two
+   * files contain the same entry for the same directory, the entry of the later file is kept. If any entries fail, the
+   * error of the first failed entry of the first failed file is thrown.
+   * <p>
+   * All of the entries are extracted by a single pool of {@link #parallelism} threads. If {@link #useManifest} is true,
+   * the manifest of each directory is saved after all of the files are extracted.
+   *
+   * @param archives The ZIP files and the directories to extract them to.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(Map<Path, Path> archives) throws IOException {
+    Map<Path, Extractor> extractors = new LinkedHashMap<>();
+    List<Archive> batch = new ArrayList<>();
+    Extractor shared = null;
+    for (Map.Entry<Path, Path> pair : archives.entrySet()) {
+      Extractor extractor = extractors.get(pair.getValue());
+      if (extractor == null) {
+        extractor = shared == null ? new Extractor(pair.getValue()) : new Extractor(pair.getValue(), shared);
+        if (useManifest) {
+          extractor.manifest = ExtractionManifest.load(pair.getValue());
+        }
+
+        shared = shared == null ? extractor : shared;
+        extractors.put(pair.getValue(), extractor);
+      }
+
+      batch.add(new Archive(pair.getKey(), extractor));
+    }
+
+    if (shared == null) {
+      return;
+    }
+
+    extract(batch, shared);
+
+    if (useManifest) {
+      for (Extractor extractor : extractors.values()) {
+        extractor.manifest.save();
+      }
+    }
+  }
+
+  /**
+   * Extracts the archives using a single pool of workers. The central directories are read (on the pool when there are
+   * many archives), the directories are created on the calling thread and the entries are then claimed by the workers
+   * in order.
+   */
+  private void extract(List<Archive> archives, Extractor shared) throws IOException {
+    ExecutorService executor = null;
+    try {
+      if (archives.size() > 1 && parallelism > 1) {
+        executor = Executors.newFixedThreadPool(Math.min(parallelism, archives.size()));
+        List<Future<Void>> reads = new ArrayList<>();
+        for (Archive archive : archives) {
+          reads.add(executor.submit(() -> {
+            archive.read();
+            return null;
+          }));
+        }
+
+        for (int i = 0; i < reads.size(); i++) {
+          await(reads.get(i), archives.get(i).file);
+        }
+      } else {
+        for (Archive archive : archives) {
+          archive.read();
+        }
+      }
+
+      // Only the last entry for each file is extracted, the same as if the archives were extracted one at a time
+      Map<Path, Task> last = new HashMap<>();
+      List<Task> candidates = new ArrayList<>();
+      TreeSet<Path> directories = new TreeSet<>();
+      boolean filter = !includePatterns.isEmpty() || !excludePatterns.isEmpty();
+      for (Archive archive : archives) {
+        for (RawZipEntry entry : archive.centralDirectory) {
+          if (filter && !FileSet.matches(entry.name, includePatterns, excludePatterns)) {
+            continue;
+          }
+
+          Path entryPath = archive.extractor.to.resolve(entry.name);
+          if (entry.isDirectory()) {
+            directories.add(entryPath);
+            archive.extractor.directoryTime(entryPath, entry.toLastModifiedTime());
+          } else {
+            directories.add(entryPath.getParent());
+            Task task = new Task(archive, entry, entryPath);
+            last.put(entryPath, task);
+            candidates.add(task);
+          }
+        }
+      }
+
+      List<Task> tasks = new ArrayList<>(last.size());
+      for (Task task : candidates) {
+        if (last.get(task.path) == task) {
+          tasks.add(task);
+        }
+      }
+
+      // Parents sort before their children, so each directory is created by a single call
+      for (Path directory : directories) {
+        shared.directory(directory);
+      }
+
+      AtomicInteger next = new AtomicInteger();
+      Failure failure = new Failure();
+      int threads = Math.max(1, Math.min(parallelism, tasks.size()));
+      if (threads == 1) {
+        work(shared, tasks, next, failure);
+      } else {
+        if (executor == null) {
+          executor = Executors.newFixedThreadPool(threads);
+        }
+
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+          workers.add(executor.submit(() -> {
+            work(shared, tasks, next, failure);
+            return null;
+          }));
+        }
+
+        for (Future<Void> future : workers) {
+          await(future, archives.get(0).file);
+        }
+      }
+
+      if (failure.isSet()) {
+        failure.rethrow(tasks.get(failure.index()).archive.file);
+      }
+
+      Set<Extractor> extractors = new HashSet<>();
+      for (Archive archive : archives) {
+        if (extractors.add(archive.extractor)) {
+          archive.extractor.restoreDirectoryTimes();
+        }
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+
+      for (Archive archive : archives) {
+        archive.close();
+      }
+    }
+  }
+
+  private static void await(Future<Void> future, Path file) throws IOException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while extracting [" + file + "]", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+
+      throw new IOException("Unable to extract [" + file + "]", e.getCause());
+    }
+  }
+
+  /**
+   * Extracts the ZIP file from the stream to the directory. The stream is read up to the central directory and isn't
+   * closed.
+   *
+   * @param stream The stream of the ZIP file.
+   * @param to     The directory to extract to.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(InputStream stream, Path to) throws IOException {
+    extract(stream, new Extractor(to));
+  }
+
+  /**
+   * Extracts the ZIP file from the channel to the directory. The channel is read up to the central directory and isn't
+   * closed.
+   *
+   * @param channel The channel of the ZIP file.
+   * @param to      The directory to extract to.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(ReadableByteChannel channel, Path to) throws IOException {
+    extract(Channels.newInputStream(channel), to);
+  }
+
+  /**
+   * Extracts the ZIP file from the stream using the given Extractor. See {@link #extract(InputStream, Path)}.
+   *
+   * @param stream    The stream of the ZIP file.
+   * @param extractor The Extractor.
+   * @throws IOException If the extraction fails.
+   */
+  public void extract(InputStream stream, Extractor extractor) throws IOException {
+    PushbackInputStream is = new PushbackInputStream(new BufferedInputStream(stream, 64 * 1024), Extractor.BUFFER_SIZE);
+    boolean filter = !includePatterns.isEmpty() || !excludePatterns.isEmpty();
+    StreamWorker worker = new StreamWorker(is, extractor);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+      while (true) {
+        if (!worker.readFully(header.array(), 0, 4, true)) {
+          throw new ZipException("Unexpected end of the ZIP stream before the central directory");
+        }
+
+        int signature = header.getInt(0);
+        if (signature == ZipCentralDirectory.CENTRAL_HEADER_SIGNATURE || signature == ZipCentralDirectory.END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+          extractor.restoreDirectoryTimes();
+          return;
+        } else if (signature != ZipCentralDirectory.LOCAL_HEADER_SIGNATURE) {
+          throw new ZipException("Invalid local header in the ZIP stream");
+        }
+
+        worker.readFully(header.array(), 4, 26, false);
+        RawZipEntry entry = new RawZipEntry();
+        entry.flags = header.getShort(6) & 0xFFFF;
+        entry.method = header.getShort(8) & 0xFFFF;
+        entry.dosTime = header.getInt(10) & 0xFFFFFFFFL;
+        entry.crc = header.getInt(14) & 0xFFFFFFFFL;
+        entry.compressedSize = header.getInt(18) & 0xFFFFFFFFL;
+        entry.size = header.getInt(22) & 0xFFFFFFFFL;
+        byte[] name = new byte[header.getShort(26) & 0xFFFF];
+        entry.extra = new byte[header.getShort(28) & 0xFFFF];
+        worker.readFully(name, 0, name.length, false);
+        worker.readFully(entry.extra, 0, entry.extra.length, false);
+        entry.name = new String(name, StandardCharsets.UTF_8);
+        boolean zip64 = applyExtra(entry);
+
+        Path entryPath = extractor.to.resolve(entry.name);
+        boolean selected = !filter || FileSet.matches(entry.name, includePatterns, excludePatterns);
+        if (entry.isDirectory() && selected) {
+          extractor.directory(entryPath);
+          extractor.directoryTime(entryPath, entry.toLastModifiedTime());
+        }
+
+        try {
+          worker.extract(entry, selected && !entry.isDirectory() ? entryPath : null, zip64);
+        } catch (IOException | RuntimeException e) {
+          if (selected && !entry.isDirectory()) {
+            Files.deleteIfExists(entryPath);
+          }
+          throw e;
+        }
+      }
+    } finally {
+      worker.close();
+    }
+  }
+
+  /**
+   * Applies the sizes of the ZIP64 extra field and the modification time of the extended timestamp of a local header.
+   *
+   * @return True if the local header has a ZIP64 extra field, in which case the data descriptor uses 8 byte sizes.
+   */
+  private static boolean applyExtra(RawZipEntry entry) {
+    boolean zip64 = false;
+    ByteBuffer extra = ByteBuffer.wrap(entry.extra).order(ByteOrder.LITTLE_ENDIAN);
+    while (extra.remaining() >= 4) {
+      int id = extra.getShort() & 0xFFFF;
+      int length = Math.min(extra.getShort() & 0xFFFF, extra.remaining());
+      int next = extra.position() + length;
+      if (id == 0x0001) {
+        if (length >= 8) {
+          entry.size = extra.getLong();
+        }
+        if (length >= 16) {
+          entry.compressedSize = extra.getLong();
+        }
+        zip64 = true;
+      } else if (id == 0x5455 && length >= 5 && (extra.get() & 1) != 0) {
+        entry.lastModifiedTime = FileTime.from(extra.getInt(), TimeUnit.SECONDS);
+      }
+
+      extra.position(next);
+    }
+
+    return zip64;
+  }
+
+  /**
+   * Sets the excludePatterns.
+   *
+   * @param excludePatterns The excludePatterns.
+   * @return This.
+   */
+  public ZipExtractor withExcludePatterns(List<Pattern> excludePatterns) {
+    this.excludePatterns.clear();
+    if (excludePatterns != null) {
+      this.excludePatterns.addAll(excludePatterns);
+    }
+    return this;
+  }
+
+  /**
+   * Sets the includePatterns.
+   *
+   * @param includePatterns The includePatterns.
+   * @return This.
+   */
+  public ZipExtractor withIncludePatterns(List<Pattern> includePatterns) {
+    this.includePatterns.clear();
+    if (includePatterns != null) {
+      this.includePatterns.addAll(includePatterns);
+    }
+    return this;
+  }
+
+  /**
+   * Extracts entries until there aren't any left or an entry has failed.
+   */
+  private void work(Extractor shared, List<Task> tasks, AtomicInteger next, Failure failure) throws IOException {
+    Worker worker = new Worker(shared);
+    try {
+      int index;
+      while (!failure.isSet() && (index = next.getAndIncrement()) < tasks.size()) {
+        Task task = tasks.get(index);
+        try {
+          worker.extract(task);
+        } catch (IOException | RuntimeException e) {
+          Files.deleteIfExists(task.path);
+          failure.set(index, e);
+        }
+      }
+    } finally {
+      worker.close();
+    }
+  }
+
+  /**
+   * A ZIP file of a batch and the Extractor for its directory. The channel is shared by all of the workers.
+   */
+  private static class Archive {
+    final Extractor extractor;
+
+    final Path file;
+
+    FileChannel channel;
+
+    ZipCentralDirectory centralDirectory;
+
+    Archive(Path file, Extractor extractor) {
+      this.file = file;
+      this.extractor = extractor;
+    }
+
+    void close() throws IOException {
+      if (channel != null) {
+        channel.close();
+      }
+    }
+
+    void read() throws IOException {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      centralDirectory = ZipCentralDirectory.read(channel);
+    }
+  }
+
+  /**
+   * A single entry to extract.
+   */
+  private static class Task {
+    final Archive archive;
+
+    final RawZipEntry entry;
+
+    final Path path;
+
+    Task(Archive archive, RawZipEntry entry, Path path) {
+      this.archive = archive;
+      this.entry = entry;
+      this.path = path;
+    }
+  }
+
+  /**
+   * The error of the failed entry that is first in central directory order (and batch order).
+   */
+  private static class Failure {
+    private Exception exception;
+
+    private int index = Integer.MAX_VALUE;
+
+    synchronized int index() {
+      return index;
+    }
+
+    synchronized boolean isSet() {
+      return exception != null;
+    }
+
+    synchronized void rethrow(Path file) throws IOException {
+      if (exception instanceof IOException) {
+        throw (IOException) exception;
+      } else if (exception != null) {
+        throw new IOException("Unable to extract [" + file + "]", exception);
+      }
+    }
+
+    synchronized void set(int index, Exception exception) {
+      if (index < this.index) {
+        this.index = index;
+        this.exception = exception;
+      }
+    }
+  }
+
+  /**
+   * Extracts the entries of a stream. The bytes that the inflater reads past the end of an entry are pushed back into
+   * the stream, so that the next header can be read.
+   */
+  private static class StreamWorker {
+    final CRC32 crc = new CRC32();
+
+    final Extractor extractor;
+
+    final Inflater inflater = new Inflater(true);
+
+    final byte[] input;
+
+    final PushbackInputStream is;
+
+    final byte[] output;
+
+    StreamWorker(PushbackInputStream is, Extractor extractor) {
+      this.is = is;
+      this.extractor = extractor;
+      this.input = extractor.acquire();
+      this.output = extractor.acquire();
+    }
+
+    void close() {
+      inflater.end();
+      extractor.release(input);
+      extractor.release(output);
+    }
+
+    /**
+     * Reads the data of the entry and its data descriptor. If the path is null, the data is only read past.
+     */
+    void extract(RawZipEntry entry, Path entryPath, boolean zip64) throws IOException {
+      boolean descriptor = (entry.flags & 8) != 0;
+      if (entry.isStored() && descriptor) {
+        throw new ZipException("The STORED entry [" + entry.name + "] uses a data descriptor and can't be extracted from a stream");
+      } else if (!entry.isStored() && entry.method != RawZipEntry.DEFLATED) {
+        throw new ZipException("Unsupported compression method [" + entry.method + "] for the entry [" + entry.name + "]");
+      }
+
+      FileChannel target = entryPath != null ? extractor.open(entryPath, entry.crc, entry.size, 0) : null;
+      long written;
+      crc.reset();
+      try {
+        written = entry.isStored() ? copy(entry, target) : inflate(entry, target, descriptor);
+      } finally {
+        if (target != null) {
+          target.close();
+        }
+      }
+
+      if (descriptor) {
+        // The signature of the data descriptor is optional
+        byte[] bytes = new byte[zip64 ? 24 : 16];
+        readFully(bytes, 0, 4, false);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.getInt(0) == ZipCentralDirectory.DATA_DESCRIPTOR_SIGNATURE ? 4 : 0;
+        readFully(bytes, 4, bytes.length - 8 + start, false);
+        entry.crc = buffer.getInt(start) & 0xFFFFFFFFL;
+        entry.size = zip64 ? buffer.getLong(start + 12) : buffer.getInt(start + 8) & 0xFFFFFFFFL;
+      }
+
+      if (entryPath == null) {
+        return;
+      }
+
+      if (written != entry.size) {
+        throw new ZipException("Invalid size for the entry [" + entry.name + "]. Expected [" + entry.size + "] but was [" + written + "]");
+      }
+
+      if (crc.getValue() != entry.crc) {
+        throw new ZipException("Invalid CRC for the entry [" + entry.name + "]");
+      }
+
+      extractor.written(entryPath, entry.crc, entry.size, entry.toLastModifiedTime());
+    }
+
+    boolean readFully(byte[] bytes, int offset, int length, boolean allowEOF) throws IOException {
+      int read = 0;
+      while (read < length) {
+        int count = is.read(bytes, offset + read, length - read);
+        if (count < 0) {
+          if (allowEOF && read == 0) {
+            return false;
+          }
+
+          throw new EOFException("Unexpected end of the ZIP stream");
+        }
+
+        read += count;
+      }
+
+      return true;
+    }
+
+    private long copy(RawZipEntry entry, FileChannel target) throws IOException {
+      long remaining = entry.compressedSize;
+      while (remaining > 0) {
+        int length = (int) Math.min(input.length, remaining);
+        readFully(input, 0, length, false);
+        if (target != null) {
+          crc.update(input, 0, length);
+          Extractor.write(target, input, length);
+        }
+        remaining -= length;
+      }
+
+      return entry.compressedSize;
+    }
+
+    private long inflate(RawZipEntry entry, FileChannel target, boolean descriptor) throws IOException {
+      inflater.reset();
+      long remaining = descriptor ? Long.MAX_VALUE : entry.compressedSize;
+      long written = 0;
+      int length = 0;
+      boolean dummy = false;
+      try {
+        while (!inflater.finished()) {
+          if (inflater.needsInput()) {
+            length = remaining > 0 ? is.read(input, 0, (int) Math.min(input.length, remaining)) : -1;
+            if (length > 0) {
+              inflater.setInput(input, 0, length);
+              remaining -= length;
+            } else if (!dummy && !descriptor) {
+              // The same dummy byte that the ZipFile adds, because the raw inflater can need one more byte to finish
+              inflater.setInput(new byte[1], 0, 1);
+              dummy = true;
+              length = 0;
+            } else {
+              throw new ZipException("Unexpected end of the compressed data for the entry [" + entry.name + "]");
+            }
+          }
+
+          if (inflater.needsDictionary()) {
+            throw new ZipException("Invalid compressed data for the entry [" + entry.name + "]");
+          }
+
+          int count = inflater.inflate(output);
+          if (target != null) {
+            crc.update(output, 0, count);
+            Extractor.write(target, output, count);
+          }
+          written += count;
+        }
+      } catch (DataFormatException e) {
+        throw new ZipException("Invalid compressed data for the entry [" + entry.name + "]: " + e.getMessage());
+      }
+
+      // Return the bytes after the end of the compressed data
+      int unused = inflater.getRemaining();
+      if (unused > 0 && !dummy) {
+        is.unread(input, length - unused, unused);
+      }
+
+      return written;
+    }
+  }
+
+  /**
+   * The state of a single worker thread. The buffers are taken from the shared pool of the Extractors and returned when
+   * the worker is closed. A worker extracts the entries of any of the archives of a batch.
+   */
+  private class Worker {
+    final CRC32 crc = new CRC32();
+
+    final Inflater inflater = new Inflater(true);
+
+    final ByteBuffer input;
+
+    final byte[] output;
+
+    final Extractor shared;
+
+    FileChannel channel;
+
+    Worker(Extractor shared) {
+      this.shared = shared;
+      this.input = ByteBuffer.wrap(shared.acquire());
+      this.output = shared.acquire();
+    }
+
+    void close() {
+      inflater.end();
+      shared.release(input.array());
+      shared.release(output);
+    }
+
+    void extract(Task task) throws IOException {
+      RawZipEntry entry = task.entry;
+      Path entryPath = task.path;
+      Extractor extractor = task.archive.extractor;
+      if (!entry.isStored() && entry.method != RawZipEntry.DEFLATED) {
+        throw new ZipException("Unsupported compression method [" + entry.method + "] for the entry [" + entry.name + "]");
+      }
+
+      // The large file copier opens the file once per range, so the file is created writable and the mode of the entry
+      // is applied after the copy
+      int mode = entry.unixMode();
+      boolean large = entry.isStored() && largeFileCopier.accepts(entry.size);
+      boolean readOnly = large && mode != 0 && (mode & 0200) == 0;
+      FileChannel target = extractor.open(entryPath, entry.crc, entry.size, readOnly ? mode | 0200 : mode);
+      if (target == null) {
+        return;
+      }
+
+      channel = task.archive.channel;
+      crc.reset();
+      try (target) {
+        long position = ZipCentralDirectory.dataOffset(channel, entry);
+        if (large) {
+          target.close();
+          largeFileCopier.copy(channel, position, entry.size, entryPath, null);
+          checksum(position, entry);
+        } else if (entry.isStored()) {
+          copy(position, entry, target);
+        } else {
+          inflate(position, entry, target);
+        }
+      }
+
+      if (crc.getValue() != entry.crc) {
+        throw new ZipException("Invalid CRC for the entry [" + entry.name + "]");
+      }
+
+      if (readOnly) {
+        extractor.permissions(entryPath, mode);
+      }
+
+      extractor.written(entryPath, entry.crc, entry.size, entry.toLastModifiedTime());
+    }
+
+    /**
+     * Computes the CRC of the data of a STORED entry that was copied without passing through the worker. The data was
+     * just read by the copy, so it is read again from the page cache.
+     */
+    private void checksum(long position, RawZipEntry entry) throws IOException {
+      long remaining = entry.size;
+      while (remaining > 0) {
+        int length = read(position, remaining, entry);
+        crc.update(input.array(), 0, length);
+        position += length;
+        remaining -= length;
+      }
+    }
+
+    private void copy(long position, RawZipEntry entry, FileChannel target) throws IOException {
+      long remaining = entry.size;
+      while (remaining > 0) {
+        int length = read(position, remaining, entry);
+        crc.update(input.array(), 0, length);
+        Extractor.write(target, input.array(), length);
+        position += length;
+        remaining -= length;
+      }
+    }
+
+    private void inflate(long position, RawZipEntry entry, FileChannel target) throws IOException {
+      inflater.reset();
+      long remaining = entry.compressedSize;
+      long written = 0;
+      boolean dummy = false;
+      try {
+        while (!inflater.finished()) {
+          if (inflater.needsInput()) {
+            if (remaining > 0) {
+              int length = read(position, remaining, entry);
+              inflater.setInput(input.array(), 0, length);
+              position += length;
+              remaining -= length;
+            } else if (!dummy) {
+              // The same dummy byte that the ZipFile adds, because the raw inflater can need one more byte to finish
+              inflater.setInput(new byte[1], 0, 1);
+              dummy = true;
+            } else {
+              throw new ZipException("Unexpected end of the compressed data for the entry [" + entry.name + "]");
+            }
+          }
+
+          if (inflater.needsDictionary()) {
+            throw new ZipException("Invalid compressed data for the entry [" + entry.name + "]");
+          }
+
+          int length = inflater.inflate(output);
+          crc.update(output, 0, length);
+          Extractor.write(target, output, length);
+          written += length;
+        }
+      } catch (DataFormatException e) {
+        throw new ZipException("Invalid compressed data for the entry [" + entry.name + "]: " + e.getMessage());
+      }
+
+      if (written != entry.size) {
+        throw new ZipException("Invalid size for the entry [" + entry.name + "]. Expected [" + entry.size + "] but was [" + written + "]");
+      }
+    }
+
+    private int read(long position, long remaining, RawZipEntry entry) throws IOException {
+      input.clear().limit((int) Math.min(input.capacity(), remaining));
+      while (input.hasRemaining()) {
+        if (channel.read(input, position + input.position()) < 0) {
+          throw new ZipException("Unexpected end of the ZIP file while reading the entry [" + entry.name + "]");
+        }
+      }
+
+      return input.position();
+    }
+  }
+}
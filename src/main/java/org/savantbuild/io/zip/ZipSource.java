@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.savantbuild.io.BuildCache;
+import org.savantbuild.io.FileSet;
+
+/**
+ * An existing ZIP (or JAR) file whose entries are added to the ZIP or JAR file being built. The compressed data of the
+ * entries is copied as-is, so the entries are never decompressed or compressed again.
+ * <p>
+ * The include and exclude patterns work the same as the patterns of a {@link org.savantbuild.io.FileSet}, except that
+ * they are matched against the entry names.
+ *
+ * @author Brian Pontarelli
+ */
+public class ZipSource {
+  public final Set<Pattern> excludePatterns = new HashSet<>();
+
+  public final Path file;
+
+  public final Set<Pattern> includePatterns = new HashSet<>();
+
+  public ZipSource(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Constructs a new ZipSource with the given file and patterns.
+   *
+   * @param file            The ZIP file.
+   * @param includePatterns (Optional) A list of regular expression Pattern objects that list the entries to include.
+   * @param excludePatterns (Optional) A list of regular expression Pattern objects that list the entries to exclude.
+   */
+  public ZipSource(Path file, Collection<Pattern> includePatterns, Collection<Pattern> excludePatterns) {
+    this.file = file;
+    if (includePatterns != null) {
+      this.includePatterns.addAll(includePatterns);
+    }
+    if (excludePatterns != null) {
+      this.excludePatterns.addAll(excludePatterns);
+    }
+  }
+
+  /**
+   * Adds the contents and patterns of this source to the fingerprint of a build.
+   *
+   * @param fingerprint The fingerprint.
+   * @throws IOException If the file can't be read.
+   */
+  public void addTo(BuildCache.Fingerprint fingerprint) throws IOException {
+    fingerprint.addContents(file)
+               .add(new TreeSet<>(includePatterns.stream().map(Pattern::pattern).collect(Collectors.toSet())).toString())
+               .add(new TreeSet<>(excludePatterns.stream().map(Pattern::pattern).collect(Collectors.toSet())).toString());
+  }
+
+  /**
+   * Determines if the entry with the given name should be added.
+   *
+   * @param name The name of the entry.
+   * @return True if the entry matches one of the include patterns (or there aren't any) and none of the exclude
+   *     patterns.
+   */
+  public boolean includes(String name) {
+    return FileSet.matches(name, includePatterns, excludePatterns);
+  }
+
+  public String toString() {
+    return file.toString();
+  }
+
+  /**
+   * Sets the excludePatterns.
+   *
+   * @param excludePatterns The excludePatterns.
+   * @return This.
+   */
+  public ZipSource withExcludePatterns(List<Pattern> excludePatterns) {
+    this.excludePatterns.clear();
+    if (excludePatterns != null) {
+      this.excludePatterns.addAll(excludePatterns);
+    }
+    return this;
+  }
+
+  /**
+   * Sets the includePatterns.
+   *
+   * @param includePatterns The includePatterns.
+   * @return This.
+   */
+  public ZipSource withIncludePatterns(List<Pattern> includePatterns) {
+    this.includePatterns.clear();
+    if (includePatterns != null) {
+      this.includePatterns.addAll(includePatterns);
+    }
+    return this;
+  }
+}
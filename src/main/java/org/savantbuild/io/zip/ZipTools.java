@@ -17,16 +17,14 @@ package org.savantbuild.io.zip;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
-import java.nio.file.attribute.PosixFilePermission;
-import java.util.Enumeration;
-import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipFile;
-import org.savantbuild.io.FileTools;
+import org.savantbuild.io.ChunkedFileCopier;
+import org.savantbuild.io.ExtractionTarget;
 
 /**
  * Collection of ZIP file tools.
@@ -35,56 +33,107 @@ import org.savantbuild.io.FileTools;
  */
 public class ZipTools {
   /**
-   * Unzips a ZIP file to a directory.
+   * Unzips a ZIP file to a directory. The entries that are unchanged since the last unzip to the same directory are
+   * skipped (see {@link org.savantbuild.io.ExtractionManifest}) and the modification times of the entries are
+   * restored.
    *
    * @param file The ZIP file to unzip.
    * @param to   The directory to unzip to.
    * @throws IOException If the unzip fails.
    */
   public static void unzip(Path file, Path to) throws IOException {
-    if (Files.notExists(to)) {
-      Files.createDirectories(to);
-    }
+    unzip(file, to, new ChunkedFileCopier());
+  }
 
-    ZipFile zipFile = new ZipFile(file.toFile());
-    Enumeration<ZipEntry> entries = zipFile.getEntries();
-    while (entries.hasMoreElements()) {
-      ZipEntry entry = entries.nextElement();
-      Path entryPath = to.resolve(entry.getName());
-      if (!entry.isDirectory()) {
-        if (Files.notExists(entryPath.getParent())) {
-          Files.createDirectories(entryPath.getParent());
-        }
+  /**
+   * Unzips a ZIP file to a target (i.e. a {@link org.savantbuild.io.MemoryTree}).
+   *
+   * @param file   The ZIP file to unzip.
+   * @param target The target.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(Path file, ExtractionTarget target) throws IOException {
+    new ZipExtractor().extract(file, target);
+  }
+
+  /**
+   * Unzips a ZIP file from a stream (i.e. while it is being downloaded) to a directory without writing it to a file
+   * first. The entries are read through their local headers and the permissions of the entries are not restored (see
+   * {@link ZipExtractor}). The stream isn't closed.
+   *
+   * @param stream The stream of the ZIP file.
+   * @param to     The directory to unzip to.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(InputStream stream, Path to) throws IOException {
+    new ZipExtractor().extract(stream, to);
+  }
 
-        if (Files.isRegularFile(entryPath)) {
-          if (Files.size(entryPath) == entry.getSize()) {
-            continue;
-          } else {
-            Files.delete(entryPath);
-          }
-        }
+  /**
+   * Unzips a ZIP file from a channel to a directory without writing it to a file first. See
+   * {@link #unzip(InputStream, Path)}.
+   *
+   * @param channel The channel of the ZIP file.
+   * @param to      The directory to unzip to.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(ReadableByteChannel channel, Path to) throws IOException {
+    new ZipExtractor().extract(channel, to);
+  }
 
-        Files.createFile(entryPath);
+  /**
+   * Unzips a batch of ZIP files, each to its own directory, using a single pool of threads for all of the entries. The
+   * result is the same as unzipping the files one after another in the iteration order of the map. See
+   * {@link ZipExtractor#extract(Map)}.
+   *
+   * @param archives The ZIP files and the directories to unzip them to.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(Map<Path, Path> archives) throws IOException {
+    new ZipExtractor().extract(archives);
+  }
 
-        try (OutputStream os = Files.newOutputStream(entryPath)) {
-          InputStream is = zipFile.getInputStream(entry);
-          byte[] ba = new byte[1024];
-          int read;
-          while ((read = is.read(ba)) != -1) {
-            if (read > 0) {
-              os.write(ba, 0, read);
-            }
-          }
-        }
+  /**
+   * Unzips a ZIP file to a directory using a pool of threads. See {@link ZipExtractor}.
+   *
+   * @param file        The ZIP file to unzip.
+   * @param to          The directory to unzip to.
+   * @param parallelism The number of threads that extract entries.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(Path file, Path to, int parallelism) throws IOException {
+    new ZipExtractor(parallelism).extract(file, to);
+  }
 
-        int unixMode = entry.getUnixMode();
-        if (unixMode != 0) {
-          Set<PosixFilePermission> permissions = FileTools.toPosixPermissions(unixMode);
-          Files.setPosixFilePermissions(entryPath, permissions);
-        }
-      }
-    }
+  /**
+   * Unzips the entries of a ZIP file that are selected by the patterns to a directory. The patterns work the same as
+   * the patterns of a {@link org.savantbuild.io.FileSet} and are matched against the entry names. The entries are
+   * selected using the central directory, so the entries that aren't selected are never read.
+   *
+   * @param file            The ZIP file to unzip.
+   * @param to              The directory to unzip to.
+   * @param includePatterns (Optional) The patterns of the entries to unzip.
+   * @param excludePatterns (Optional) The patterns of the entries to skip.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(Path file, Path to, List<Pattern> includePatterns, List<Pattern> excludePatterns) throws IOException {
+    new ZipExtractor().withIncludePatterns(includePatterns)
+                      .withExcludePatterns(excludePatterns)
+                      .extract(file, to);
+  }
 
-    zipFile.close();
+  /**
+   * Unzips a ZIP file to a directory. Large STORED entries are copied directly out of the ZIP file in concurrent chunks
+   * using the given ChunkedFileCopier.
+   *
+   * @param file            The ZIP file to unzip.
+   * @param to              The directory to unzip to.
+   * @param largeFileCopier The copier used for STORED entries whose size is at or above its threshold.
+   * @throws IOException If the unzip fails.
+   */
+  public static void unzip(Path file, Path to, ChunkedFileCopier largeFileCopier) throws IOException {
+    ZipExtractor extractor = new ZipExtractor(1);
+    extractor.largeFileCopier = largeFileCopier;
+    extractor.extract(file, to);
   }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the BuildCache.
+ *
+ * @author Brian Pontarelli
+ */
+public class BuildCacheTest extends BaseUnitTest {
+  @Test
+  public void fingerprint() throws Exception {
+    Path file = projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java");
+    String key = BuildCache.fingerprint("zip").add("Copier.java").add(0644).addContents(file).toKey();
+    assertEquals(key.length(), 64);
+    assertEquals(BuildCache.fingerprint("zip").add("Copier.java").add(0644).addContents(file).toKey(), key);
+    assertNotEquals(BuildCache.fingerprint("jar").add("Copier.java").add(0644).addContents(file).toKey(), key);
+
+    // Values can't run together
+    assertNotEquals(BuildCache.fingerprint("zip").add("ab").add("c").toKey(), BuildCache.fingerprint("zip").add("a").add("bc").toKey());
+  }
+
+  @Test
+  public void storeAndRestore() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/cache"));
+
+    BuildCache cache = new BuildCache(projectDir.resolve("build/test/cache"));
+    String key = BuildCache.fingerprint("zip").add("test").toKey();
+    Path target = projectDir.resolve("build/test/cache-output/test.zip");
+    assertFalse(cache.restore(key, target));
+
+    Files.createDirectories(target.getParent());
+    Files.write(target, "archive".getBytes());
+    cache.store(key, target);
+    cache.store(key, target);
+    Files.delete(target);
+
+    assertTrue(cache.restore(key, target));
+    assertEquals(Files.readAllBytes(target), "archive".getBytes());
+  }
+}
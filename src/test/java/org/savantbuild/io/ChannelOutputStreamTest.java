@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the ChannelOutputStream.
+ *
+ * @author Brian Pontarelli
+ */
+public class ChannelOutputStreamTest extends BaseUnitTest {
+  private static void writeTar(OutputStream os) throws IOException {
+    try (TarArchiveOutputStream tos = new TarArchiveOutputStream(os)) {
+      for (FileInfo fileInfo : new FileSet(projectDir.resolve("src")).toFileInfos()) {
+        TarArchiveEntry entry = new TarArchiveEntry(fileInfo.relative.toString());
+        entry.setSize(fileInfo.size);
+        entry.setModTime(fileInfo.lastModifiedTime.toMillis());
+        tos.putArchiveEntry(entry);
+        Files.copy(fileInfo.origin, tos);
+        tos.closeArchiveEntry();
+      }
+    }
+  }
+
+  /**
+   * Counts the writes (system calls) needed to write a TAR of the project sources straight to a file stream and
+   * through a ChannelOutputStream.
+   */
+  @Test
+  public void syscalls() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/channel"));
+    Files.createDirectories(projectDir.resolve("build/test/channel"));
+
+    Path unbuffered = projectDir.resolve("build/test/channel/unbuffered.tar");
+    long[] unbufferedWrites = new long[1];
+    writeTar(new FilterOutputStream(Files.newOutputStream(unbuffered)) {
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        unbufferedWrites[0]++;
+        out.write(b, off, len);
+      }
+    });
+
+    Path buffered = projectDir.resolve("build/test/channel/buffered.tar");
+    ChannelOutputStream os = ChannelOutputStream.open(buffered, ChannelOutputStream.DEFAULT_BUFFER_SIZE);
+    writeTar(os);
+
+    assertEquals(Files.readAllBytes(buffered), Files.readAllBytes(unbuffered));
+    assertTrue(os.writes() * 50 < unbufferedWrites[0], "Expected far fewer than [" + unbufferedWrites[0] + "] writes but there were [" + os.writes() + "]");
+    assertEquals(os.writes(), (Files.size(buffered) + ChannelOutputStream.DEFAULT_BUFFER_SIZE - 1) / ChannelOutputStream.DEFAULT_BUFFER_SIZE);
+  }
+
+  @Test
+  public void transferFrom() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/channel"));
+    Files.createDirectories(projectDir.resolve("build/test/channel"));
+
+    Path source = projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java");
+    Path file = projectDir.resolve("build/test/channel/transfer.txt");
+    try (ChannelOutputStream os = ChannelOutputStream.open(file, 1024);
+         FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      os.write('[');
+      assertEquals(os.transferFrom(channel, 10, 100), 100);
+      os.write(new byte[2048]);
+      assertEquals(os.transferFrom(channel, channel.size() - 10, 100), 10);
+    }
+
+    byte[] expected = Files.readAllBytes(source);
+    byte[] actual = Files.readAllBytes(file);
+    assertEquals(actual.length, 1 + 100 + 2048 + 10);
+    assertEquals(actual[0], '[');
+    assertEquals(new String(actual, 1, 100), new String(expected, 10, 100));
+    assertEquals(new String(actual, 2149, 10), new String(expected, expected.length - 10, 10));
+  }
+}
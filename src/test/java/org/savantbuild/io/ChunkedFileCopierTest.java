@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests the ChunkedFileCopier.
+ *
+ * @author Brian Pontarelli
+ */
+public class ChunkedFileCopierTest extends BaseUnitTest {
+  @Test
+  public void copy() throws Exception {
+    Path dir = projectDir.resolve("build/test/chunked");
+    FileTools.prune(dir);
+    Files.createDirectories(dir);
+
+    byte[] bytes = new byte[1024 * 1024 + 17];
+    new Random(42).nextBytes(bytes);
+    Path source = dir.resolve("source.bin");
+    Files.write(source, bytes);
+
+    // Write something larger to ensure the target is truncated
+    Path target = dir.resolve("target.bin");
+    Files.write(target, new byte[2 * 1024 * 1024]);
+
+    ChunkedFileCopier copier = new ChunkedFileCopier();
+    copier.chunkSize = 64 * 1024;
+    copier.parallelism = 4;
+    copier.copy(source, target);
+    assertEquals(Files.readAllBytes(target), bytes);
+    assertEquals(Files.getPosixFilePermissions(target), Files.getPosixFilePermissions(source));
+  }
+
+  @Test
+  public void copyReadOnly() throws Exception {
+    Path dir = projectDir.resolve("build/test/chunked");
+    FileTools.prune(dir);
+    Files.createDirectories(dir);
+
+    byte[] bytes = new byte[256 * 1024 + 5];
+    new Random(42).nextBytes(bytes);
+    Path source = dir.resolve("source.bin");
+    Files.write(source, bytes);
+    Files.setPosixFilePermissions(source, PosixFilePermissions.fromString("r--r--r--"));
+
+    ChunkedFileCopier copier = new ChunkedFileCopier();
+    copier.chunkSize = 16 * 1024;
+    copier.parallelism = 4;
+    Path target = dir.resolve("target.bin");
+    copier.copy(source, target);
+    assertEquals(Files.readAllBytes(target), bytes);
+    assertEquals(Files.getPosixFilePermissions(target), PosixFilePermissions.fromString("r--r--r--"));
+
+    // Again over the read-only target
+    copier.copy(source, target);
+    assertEquals(Files.readAllBytes(target), bytes);
+  }
+
+  @Test
+  public void copyRange() throws Exception {
+    Path dir = projectDir.resolve("build/test/chunked");
+    FileTools.prune(dir);
+    Files.createDirectories(dir);
+
+    byte[] bytes = new byte[300 * 1024];
+    new Random(42).nextBytes(bytes);
+    Path source = dir.resolve("source.bin");
+    Files.write(source, bytes);
+
+    ChunkedFileCopier copier = new ChunkedFileCopier();
+    copier.chunkSize = 7 * 1024;
+    Path target = dir.resolve("target.bin");
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      copier.copy(channel, 1000, 200 * 1024, target, null);
+    }
+
+    assertEquals(Files.readAllBytes(target), Arrays.copyOfRange(bytes, 1000, 1000 + 200 * 1024));
+  }
+}
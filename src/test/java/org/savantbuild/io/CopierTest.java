@@ -69,6 +69,23 @@ public class CopierTest extends BaseUnitTest {
             "Also the next line and this line and this one should be one line");
   }
 
+  @Test
+  public void copyLargeFiles() throws Exception {
+    Path toDir = BaseUnitTest.projectDir.resolve("build/test/copy");
+    FileTools.prune(toDir);
+
+    Copier copier = new Copier(BaseUnitTest.projectDir.resolve("build/test/copy"));
+    copier.chunkedFileCopier.chunkSize = 1024;
+    copier.largeFileThreshold(2048)
+          .fileSet(BaseUnitTest.projectDir.resolve("src/main/java"))
+          .copy();
+
+    Path original = BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/FileTools.java");
+    assertEquals(Files.readAllBytes(toDir.resolve("org/savantbuild/io/FileTools.java")), Files.readAllBytes(original));
+    assertEquals(Files.readAllBytes(toDir.resolve("org/savantbuild/io/Filter.java")),
+        Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/Filter.java")));
+  }
+
   @Test
   public void copyIncludePatterns() throws Exception {
     Path toDir = BaseUnitTest.projectDir.resolve("build/test/copy");
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the DirectoryIndex.
+ *
+ * @author Brian Pontarelli
+ */
+public class DirectoryIndexTest extends BaseUnitTest {
+  @Test
+  public void add() {
+    DirectoryIndex index = new DirectoryIndex();
+    assertTrue(index.add(new Directory("b", 0x755, null, null, null)));
+    assertTrue(index.add(new Directory("a/")));
+    assertFalse(index.add(new Directory("b/", 0x700, null, null, null)));
+    assertFalse(index.add(new Directory("a")));
+    assertTrue(index.add(new Directory("a-b")));
+
+    assertEquals(index.size(), 3);
+    assertEquals(index.names(), asList("a-b/", "a/", "b/"));
+    assertTrue(index.contains("b"));
+    assertEquals(index.iterator().next().name, "a-b");
+
+    // The first directory wins
+    for (Directory directory : index) {
+      if (directory.name.startsWith("b")) {
+        assertEquals(directory.mode, 0x755);
+      }
+    }
+  }
+
+  @Test
+  public void addAllFileSets() throws Exception {
+    DirectoryIndex index = new DirectoryIndex();
+    index.add(new Directory("org/savantbuild/io", 0x700, null, null, null));
+
+    FileSet main = new FileSet(projectDir.resolve("src/main/java"));
+    index.addAll(main, main.toFileInfos());
+    FileSet test = new ArchiveFileSet(projectDir.resolve("src/test/java"), "test").withDirMode(0x711);
+    index.addAll(test, test.toFileInfos());
+
+    List<String> names = index.names();
+    assertTrue(names.containsAll(asList("org/", "org/savantbuild/", "org/savantbuild/io/", "org/savantbuild/io/zip/",
+        "test/", "test/org/savantbuild/io/")));
+    assertEquals(names.stream().sorted().toList(), names);
+
+    for (Directory directory : index) {
+      if (directory.name.equals("org/savantbuild/io")) {
+        assertEquals(directory.mode, 0x700);
+      } else if (directory.name.startsWith("test")) {
+        assertEquals(directory.mode, 0x711);
+      }
+    }
+
+    // The same directories as the FileSet
+    assertEquals(main.toDirectories().size(), names.stream().filter((name) -> name.startsWith("org/")).count());
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.savantbuild.io.tar.TarBuilder;
+import org.savantbuild.io.tar.TarTools;
+import org.savantbuild.io.zip.ZipBuilder;
+import org.savantbuild.io.zip.ZipTools;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the ExtractionStore.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExtractionStoreTest extends BaseUnitTest {
+  @Test
+  public void extract() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path zip = projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(zip).fileSet(projectDir.resolve("src/main/java")).build();
+
+    AtomicInteger unpacks = new AtomicInteger();
+    ExtractionStore store = new ExtractionStore(projectDir.resolve("build/test/store"));
+    ExtractionStore.Unpacker unzip = (archive, to) -> {
+      unpacks.incrementAndGet();
+      ZipTools.unzip(archive, to);
+    };
+
+    Path first = projectDir.resolve("build/test/workspace1/lib");
+    Path second = projectDir.resolve("build/test/workspace2/lib");
+    store.extract(zip, first, unzip);
+    store.extract(zip, second, unzip);
+    assertEquals(unpacks.get(), 1);
+
+    Path source = projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java");
+    Path file = Path.of("org/savantbuild/io/FileSet.java");
+    assertEquals(Files.readAllBytes(first.resolve(file)), Files.readAllBytes(source));
+    assertTrue(Files.isSameFile(first.resolve(file), second.resolve(file)));
+
+    // The target directory isn't left with the permissions of the temporary extraction directory
+    assertEquals(Files.getPosixFilePermissions(first), Files.getPosixFilePermissions(first.getParent()));
+
+    // Again only links the files that are missing
+    Files.delete(first.resolve(file));
+    store.extract(zip, first, unzip);
+    assertEquals(unpacks.get(), 1);
+    assertTrue(Files.isSameFile(first.resolve(file), second.resolve(file)));
+
+    // Identical files in different archives share storage
+    Path other = projectDir.resolve("build/test/other.zip");
+    new ZipBuilder(other).fileSet(projectDir.resolve("src/main/java"))
+                         .fileSet(new ArchiveFileSet(projectDir.resolve("src/test/java"), "test"))
+                         .build();
+    Path third = projectDir.resolve("build/test/workspace3/lib");
+    store.extract(other, third, ZipTools::unzip);
+    assertEquals(unpacks.get(), 1);
+    assertTrue(Files.isSameFile(first.resolve(file), third.resolve(file)));
+    assertTrue(Files.isRegularFile(third.resolve("test/org/savantbuild/io/ExtractionStoreTest.java")));
+
+    // A changed archive is extracted again
+    new ZipBuilder(zip).fileSet(projectDir.resolve("src/test/java")).build();
+    Path fourth = projectDir.resolve("build/test/workspace4/lib");
+    store.extract(zip, fourth, unzip);
+    assertEquals(unpacks.get(), 2);
+    assertTrue(Files.isRegularFile(fourth.resolve("org/savantbuild/io/ExtractionStoreTest.java")));
+    assertFalse(Files.exists(fourth.resolve(file)));
+  }
+
+  @Test
+  public void extractTimes() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    FileTime older = FileTime.from(Instant.parse("2020-02-03T04:05:06Z"));
+    FileTime newer = FileTime.from(Instant.parse("2021-02-03T04:05:06Z"));
+    Path first = projectDir.resolve("build/test/first.zip");
+    Path second = projectDir.resolve("build/test/second.zip");
+    new ZipBuilder(first).fileSet(projectDir.resolve("src/main/java")).timestamp(older).build();
+    new ZipBuilder(second).fileSet(projectDir.resolve("src/main/java")).timestamp(newer).build();
+
+    // The same files with different times are stored separately, so each keeps its restored time
+    ExtractionStore store = new ExtractionStore(projectDir.resolve("build/test/store"));
+    Path firstDir = projectDir.resolve("build/test/workspace1/lib");
+    Path secondDir = projectDir.resolve("build/test/workspace2/lib");
+    store.extract(first, firstDir, ZipTools::unzip);
+    store.extract(second, secondDir, ZipTools::unzip);
+
+    Path file = Path.of("org/savantbuild/io/FileSet.java");
+    assertEquals(Files.getLastModifiedTime(firstDir.resolve(file)), older);
+    assertEquals(Files.getLastModifiedTime(secondDir.resolve(file)), newer);
+    assertFalse(Files.isSameFile(firstDir.resolve(file), secondDir.resolve(file)));
+  }
+
+  @Test
+  public void extractOver() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path original = projectDir.resolve("build/test/original.zip");
+    Path changed = projectDir.resolve("build/test/changed.zip");
+    FileTime time = FileTime.from(Instant.parse("2020-02-03T04:05:06Z"));
+    new ZipBuilder(original).entry(new GeneratedEntry("a.txt", "original".getBytes()).withMode(0x644).withLastModifiedTime(time)).build();
+    new ZipBuilder(changed).entry(new GeneratedEntry("a.txt", "CHANGED!".getBytes()).withMode(0x600)).build();
+
+    ExtractionStore store = new ExtractionStore(projectDir.resolve("build/test/store"));
+    Path first = projectDir.resolve("build/test/workspace1/lib");
+    Path second = projectDir.resolve("build/test/workspace2/lib");
+    store.extract(original, first, ZipTools::unzip);
+    store.extract(original, second, ZipTools::unzip);
+    assertTrue(Files.isSameFile(first.resolve("a.txt"), second.resolve("a.txt")));
+
+    // Extracting over a directory of hard links replaces the files instead of writing the store
+    ZipTools.unzip(changed, first);
+    assertEquals(Files.readAllBytes(first.resolve("a.txt")), "CHANGED!".getBytes());
+    assertEquals(Files.readAllBytes(second.resolve("a.txt")), "original".getBytes());
+    assertEquals(Files.getLastModifiedTime(second.resolve("a.txt")), time);
+    assertEquals(FileModes.toOctal(Files.getPosixFilePermissions(second.resolve("a.txt"))), 0644);
+
+    // Extracting over a symbolic link replaces the link with a directory
+    store.symlinkDirectories = true;
+    Path third = projectDir.resolve("build/test/workspace3/lib");
+    store.extract(original, third, ZipTools::unzip);
+    assertTrue(Files.isSymbolicLink(third));
+    ZipTools.unzip(changed, third);
+    assertFalse(Files.isSymbolicLink(third));
+    assertEquals(Files.readAllBytes(third.resolve("a.txt")), "CHANGED!".getBytes());
+    assertEquals(Files.readAllBytes(second.resolve("a.txt")), "original".getBytes());
+
+    // The store still has the original tree
+    Path fourth = projectDir.resolve("build/test/workspace4/lib");
+    store.symlinkDirectories = false;
+    store.extract(original, fourth, ZipTools::unzip);
+    assertEquals(Files.readAllBytes(fourth.resolve("a.txt")), "original".getBytes());
+    assertEquals(Files.getLastModifiedTime(fourth.resolve("a.txt")), time);
+  }
+
+  @Test
+  public void extractSymlinks() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path tar = projectDir.resolve("build/test/test.tar");
+    new TarBuilder(tar).fileSet(projectDir.resolve("src/main/java")).build();
+
+    ExtractionStore store = new ExtractionStore(projectDir.resolve("build/test/store"));
+    store.symlinkDirectories = true;
+    Path first = projectDir.resolve("build/test/workspace1/lib");
+    store.extract(tar, first, (archive, to) -> TarTools.untar(archive, to, false, false));
+    assertTrue(Files.isSymbolicLink(first));
+    assertEquals(Files.readAllBytes(first.resolve("org/savantbuild/io/FileSet.java")), Files.readAllBytes(projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java")));
+
+    // The link is replaced by a directory of hard links
+    store.symlinkDirectories = false;
+    store.extract(tar, first, (archive, to) -> TarTools.untar(archive, to, false, false));
+    assertFalse(Files.isSymbolicLink(first));
+    assertEquals(Files.readAllBytes(first.resolve("org/savantbuild/io/FileSet.java")), Files.readAllBytes(projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java")));
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the Extractor.
+ *
+ * @author Brian Pontarelli
+ */
+public class ExtractorTest extends BaseUnitTest {
+  @Test
+  public void buffers() throws Exception {
+    Path dir = projectDir.resolve("build/test/extractor");
+    FileTools.prune(dir);
+
+    Extractor extractor = new Extractor(dir);
+    byte[] buffer = extractor.acquire();
+    assertEquals(buffer.length, Extractor.BUFFER_SIZE);
+    extractor.release(buffer);
+    assertSame(extractor.acquire(), buffer);
+  }
+
+  @Test
+  public void directory() throws Exception {
+    Path dir = projectDir.resolve("build/test/extractor");
+    FileTools.prune(dir);
+
+    Extractor extractor = new Extractor(dir);
+    assertTrue(Files.isDirectory(dir));
+
+    extractor.directory(dir.resolve("a/b/c"), 0777);
+    assertTrue(Files.isDirectory(dir.resolve("a/b/c")));
+    assertEquals(Files.getPosixFilePermissions(dir.resolve("a/b/c")), FileModes.toPermissions(0777));
+
+    // The directories are cached, so they aren't created again after they are deleted behind the extractor's back
+    Files.delete(dir.resolve("a/b/c"));
+    extractor.directory(dir.resolve("a/b/c"));
+    assertFalse(Files.exists(dir.resolve("a/b/c")));
+  }
+
+  @Test
+  public void write() throws Exception {
+    Path dir = projectDir.resolve("build/test/extractor");
+    FileTools.prune(dir);
+
+    Extractor extractor = new Extractor(dir);
+    Path file = dir.resolve("nested/file.txt");
+    assertTrue(extractor.write(file, 1, 5, 0777, new ByteArrayInputStream("hello".getBytes())));
+    assertEquals(Files.readAllBytes(file), "hello".getBytes());
+
+    // The umask doesn't apply to the entry's mode
+    assertEquals(Files.getPosixFilePermissions(file), FileModes.toPermissions(0777));
+
+    // Without a manifest, files are always written. Existing files are truncated and their permissions are replaced
+    assertTrue(extractor.write(file, 1, 2, 0640, new ByteArrayInputStream("hi".getBytes())));
+    assertEquals(Files.readAllBytes(file), "hi".getBytes());
+    assertEquals(Files.getPosixFilePermissions(file), FileModes.toPermissions(0640));
+
+    // Read-only files are replaced
+    Files.setPosixFilePermissions(file, FileModes.toPermissions(0444));
+    assertTrue(extractor.write(file, 1, 9, 0444, new ByteArrayInputStream("read-only".getBytes())));
+    assertEquals(Files.readAllBytes(file), "read-only".getBytes());
+    assertEquals(Files.getPosixFilePermissions(file), FileModes.toPermissions(0444));
+
+    // No mode uses the default permissions
+    Path other = dir.resolve("other.txt");
+    assertTrue(extractor.write(other, 1, 5, 0, new ByteArrayInputStream("other".getBytes())));
+    assertEquals(Files.readAllBytes(other), "other".getBytes());
+  }
+
+  @Test
+  public void writeManifest() throws Exception {
+    Path dir = projectDir.resolve("build/test/extractor");
+    FileTools.prune(dir);
+    Files.deleteIfExists(projectDir.resolve("build/test/extractor.extracted"));
+
+    Extractor extractor = new Extractor(dir);
+    extractor.manifest = ExtractionManifest.load(dir);
+    Path file = dir.resolve("file.txt");
+    assertTrue(extractor.write(file, 1, 5, 0, new ByteArrayInputStream("hello".getBytes())));
+    extractor.manifest.save();
+
+    // The file was written in the same clock tick as the manifest, so it isn't trusted
+    extractor = new Extractor(dir);
+    extractor.manifest = ExtractionManifest.load(dir);
+    assertEquals(extractor.manifest.size(), 1);
+    Files.setLastModifiedTime(extractor.manifest.file, Files.getLastModifiedTime(file));
+    extractor.manifest = ExtractionManifest.load(dir);
+    assertTrue(extractor.write(file, 1, 5, 0, new ByteArrayInputStream("hello".getBytes())));
+    extractor.manifest.save();
+
+    extractor = new Extractor(dir);
+    Files.setLastModifiedTime(projectDir.resolve("build/test/extractor.extracted"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+    extractor.manifest = ExtractionManifest.load(dir);
+    assertFalse(extractor.write(file, 1, 5, 0, new ByteArrayInputStream("world".getBytes())));
+    assertEquals(Files.readAllBytes(file), "hello".getBytes());
+
+    // A new version of the entry with the same size
+    assertTrue(extractor.write(file, 2, 5, 0, new ByteArrayInputStream("world".getBytes())));
+    assertEquals(Files.readAllBytes(file), "world".getBytes());
+    extractor.manifest.save();
+    Files.setLastModifiedTime(extractor.manifest.file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+    extractor.manifest = ExtractionManifest.load(dir);
+    assertFalse(extractor.write(file, 2, 5, 0, new ByteArrayInputStream("hello".getBytes())));
+
+    // The file was changed after it was extracted
+    Files.write(file, "other".getBytes());
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_500_000_000_000L));
+    assertTrue(extractor.write(file, 2, 5, 0, new ByteArrayInputStream("world".getBytes())));
+    assertEquals(Files.readAllBytes(file), "world".getBytes());
+
+    // The file was deleted
+    Files.delete(file);
+    assertTrue(extractor.write(file, 2, 5, 0, new ByteArrayInputStream("world".getBytes())));
+    assertEquals(Files.readAllBytes(file), "world".getBytes());
+  }
+}
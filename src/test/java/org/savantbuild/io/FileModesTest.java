@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import static java.nio.file.attribute.PosixFilePermission.GROUP_READ;
+import static java.nio.file.attribute.PosixFilePermission.OTHERS_READ;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_EXECUTE;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_READ;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_WRITE;
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the FileModes lookup tables.
+ *
+ * @author Brian Pontarelli
+ */
+public class FileModesTest extends BaseUnitTest {
+  @Test
+  public void hex() {
+    assertEquals(FileModes.hexToOctal(0x755), 0755);
+    assertEquals(FileModes.hexToOctal(0x644), 0644);
+    assertEquals(FileModes.hexToOctal(0x000), 0);
+    assertEquals(FileModes.octalToHex(0755), 0x755);
+    assertEquals(FileModes.octalToHex(0100644), 0x644);
+    for (int mode = 0; mode < 512; mode++) {
+      assertEquals(FileModes.hexToOctal(FileModes.octalToHex(mode)), mode);
+    }
+  }
+
+  @Test
+  public void permissions() {
+    assertEquals(FileModes.toPermissions(0744), new HashSet<>(asList(OWNER_READ, OWNER_WRITE, OWNER_EXECUTE, GROUP_READ, OTHERS_READ)));
+    assertSame(FileModes.toPermissions(0100644), FileModes.toPermissions(0644));
+
+    for (int mode = 0; mode < 512; mode++) {
+      Set<PosixFilePermission> permissions = FileModes.toPermissions(mode);
+      assertEquals(FileModes.toOctal(permissions), mode);
+      assertEquals(FileModes.toOctal(new HashSet<>(permissions)), mode);
+    }
+
+    assertEquals(PosixFilePermissions.toString(FileModes.toPermissions(0754)), "rwxr-xr--");
+
+    try {
+      FileModes.toPermissions(0755).add(PosixFilePermission.OTHERS_WRITE);
+      fail("Should have failed");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the FilePrefetcher.
+ *
+ * @author Brian Pontarelli
+ */
+public class FilePrefetcherTest extends BaseUnitTest {
+  @Test
+  public void limit() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/prefetch"));
+    Path dir = Files.createDirectories(projectDir.resolve("build/test/prefetch"));
+
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Path file = dir.resolve("file" + i);
+      byte[] contents = new byte[i * 1000];
+      Arrays.fill(contents, (byte) i);
+      files.add(Files.write(file, contents));
+    }
+
+    // Only two 16K buffers fit, so the consumer has to release buffers for the reads to continue
+    try (FilePrefetcher prefetcher = new FilePrefetcher(4, 32 * 1024)) {
+      for (Path file : files) {
+        prefetcher.add(file, Files.size(file));
+      }
+
+      for (int i = 0; i < 20; i++) {
+        FilePrefetcher.Buffer buffer = prefetcher.next();
+        assertEquals(buffer.file, files.get(i));
+        assertEquals(Arrays.copyOf(buffer.data, buffer.length), Files.readAllBytes(files.get(i)));
+        prefetcher.release(buffer);
+      }
+
+      assertFalse(prefetcher.available());
+    }
+  }
+
+  @Test
+  public void grownAndMissingFiles() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/prefetch"));
+    Path dir = Files.createDirectories(projectDir.resolve("build/test/prefetch"));
+    Path grown = Files.write(dir.resolve("grown"), new byte[10_000]);
+
+    try (FilePrefetcher prefetcher = new FilePrefetcher(1, 1024 * 1024)) {
+      prefetcher.add(grown, 10);
+      prefetcher.add(dir.resolve("missing"), 10);
+      assertTrue(prefetcher.available());
+
+      FilePrefetcher.Buffer buffer = prefetcher.next();
+      assertEquals(buffer.length, 10_000);
+      prefetcher.release(buffer);
+
+      try {
+        prefetcher.next();
+        fail("Should have failed");
+      } catch (NoSuchFileException e) {
+        // Expected
+      }
+    }
+  }
+
+  @Test
+  public void nothingLeft() throws Exception {
+    try (FilePrefetcher prefetcher = new FilePrefetcher(1, 1024)) {
+      prefetcher.next();
+      fail("Should have failed");
+    } catch (IllegalStateException e) {
+      // Expected
+    } catch (IOException e) {
+      fail("Should have thrown an IllegalStateException", e);
+    }
+  }
+}
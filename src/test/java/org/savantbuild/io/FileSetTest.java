@@ -40,34 +40,80 @@ public class FileSetTest extends BaseUnitTest {
     List<Path> actual = infos.stream().map((info) -> info.origin).collect(Collectors.toList());
     assertEquals(actual, Arrays.asList(
         projectDir.resolve("src/main/java/org/savantbuild/io/ArchiveFileSet.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/BuildCache.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ChannelOutputStream.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/Checksum.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ChunkedFileCopier.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Directory.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/DirectoryIndex.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionManifest.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionStore.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionTarget.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/Extractor.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileInfo.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/FileModes.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/FilePrefetcher.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileTools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Filter.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/GeneratedEntry.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/MemoryTree.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/TempWorkspace.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Tools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/jar/JarBuilder.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/jar/JarTools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarBuilder.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarTools.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ArchiveEntries.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ArchiveView.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/CompressionPolicy.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/DuplicatePolicy.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/RawZipEntry.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipArchiveWriter.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipBuilder.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipCentralDirectory.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipExtractor.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipSource.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipTools.java")
     ), "Actual is " + actual);
     assertEquals(infos.stream().map((info) -> info.relative).collect(Collectors.toList()), asList(
         Paths.get("org/savantbuild/io/ArchiveFileSet.java"),
+        Paths.get("org/savantbuild/io/BuildCache.java"),
+        Paths.get("org/savantbuild/io/ChannelOutputStream.java"),
+        Paths.get("org/savantbuild/io/Checksum.java"),
+        Paths.get("org/savantbuild/io/ChunkedFileCopier.java"),
         Paths.get("org/savantbuild/io/Copier.java"),
         Paths.get("org/savantbuild/io/Directory.java"),
+        Paths.get("org/savantbuild/io/DirectoryIndex.java"),
+        Paths.get("org/savantbuild/io/ExtractionManifest.java"),
+        Paths.get("org/savantbuild/io/ExtractionStore.java"),
+        Paths.get("org/savantbuild/io/ExtractionTarget.java"),
+        Paths.get("org/savantbuild/io/Extractor.java"),
         Paths.get("org/savantbuild/io/FileInfo.java"),
+        Paths.get("org/savantbuild/io/FileModes.java"),
+        Paths.get("org/savantbuild/io/FilePrefetcher.java"),
         Paths.get("org/savantbuild/io/FileSet.java"),
         Paths.get("org/savantbuild/io/FileTools.java"),
         Paths.get("org/savantbuild/io/Filter.java"),
+        Paths.get("org/savantbuild/io/GeneratedEntry.java"),
+        Paths.get("org/savantbuild/io/MemoryTree.java"),
+        Paths.get("org/savantbuild/io/TempWorkspace.java"),
         Paths.get("org/savantbuild/io/Tools.java"),
         Paths.get("org/savantbuild/io/jar/JarBuilder.java"),
         Paths.get("org/savantbuild/io/jar/JarTools.java"),
         Paths.get("org/savantbuild/io/tar/TarBuilder.java"),
         Paths.get("org/savantbuild/io/tar/TarTools.java"),
+        Paths.get("org/savantbuild/io/zip/ArchiveEntries.java"),
+        Paths.get("org/savantbuild/io/zip/ArchiveView.java"),
+        Paths.get("org/savantbuild/io/zip/CompressionPolicy.java"),
+        Paths.get("org/savantbuild/io/zip/DuplicatePolicy.java"),
+        Paths.get("org/savantbuild/io/zip/RawZipEntry.java"),
+        Paths.get("org/savantbuild/io/zip/ZipArchiveWriter.java"),
         Paths.get("org/savantbuild/io/zip/ZipBuilder.java"),
+        Paths.get("org/savantbuild/io/zip/ZipCentralDirectory.java"),
+        Paths.get("org/savantbuild/io/zip/ZipExtractor.java"),
+        Paths.get("org/savantbuild/io/zip/ZipSource.java"),
         Paths.get("org/savantbuild/io/zip/ZipTools.java")
     ));
   }
@@ -78,30 +124,76 @@ public class FileSetTest extends BaseUnitTest {
     List<FileInfo> infos = fileSet.toFileInfos();
     assertEquals(infos.stream().map((info) -> info.origin).collect(Collectors.toList()), Arrays.asList(
         projectDir.resolve("src/main/java/org/savantbuild/io/ArchiveFileSet.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/BuildCache.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ChannelOutputStream.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/Checksum.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ChunkedFileCopier.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Directory.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/DirectoryIndex.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionManifest.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionStore.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionTarget.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/Extractor.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileInfo.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/FileModes.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/FilePrefetcher.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileTools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Filter.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/GeneratedEntry.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/MemoryTree.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/TempWorkspace.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Tools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarBuilder.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarTools.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ArchiveEntries.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ArchiveView.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/CompressionPolicy.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/DuplicatePolicy.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/RawZipEntry.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipArchiveWriter.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipBuilder.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipCentralDirectory.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipExtractor.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipSource.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipTools.java")
     ));
     assertEquals(infos.stream().map((info) -> info.relative).collect(Collectors.toList()), asList(
         Paths.get("org/savantbuild/io/ArchiveFileSet.java"),
+        Paths.get("org/savantbuild/io/BuildCache.java"),
+        Paths.get("org/savantbuild/io/ChannelOutputStream.java"),
+        Paths.get("org/savantbuild/io/Checksum.java"),
+        Paths.get("org/savantbuild/io/ChunkedFileCopier.java"),
         Paths.get("org/savantbuild/io/Copier.java"),
         Paths.get("org/savantbuild/io/Directory.java"),
+        Paths.get("org/savantbuild/io/DirectoryIndex.java"),
+        Paths.get("org/savantbuild/io/ExtractionManifest.java"),
+        Paths.get("org/savantbuild/io/ExtractionStore.java"),
+        Paths.get("org/savantbuild/io/ExtractionTarget.java"),
+        Paths.get("org/savantbuild/io/Extractor.java"),
         Paths.get("org/savantbuild/io/FileInfo.java"),
+        Paths.get("org/savantbuild/io/FileModes.java"),
+        Paths.get("org/savantbuild/io/FilePrefetcher.java"),
         Paths.get("org/savantbuild/io/FileSet.java"),
         Paths.get("org/savantbuild/io/FileTools.java"),
         Paths.get("org/savantbuild/io/Filter.java"),
+        Paths.get("org/savantbuild/io/GeneratedEntry.java"),
+        Paths.get("org/savantbuild/io/MemoryTree.java"),
+        Paths.get("org/savantbuild/io/TempWorkspace.java"),
         Paths.get("org/savantbuild/io/Tools.java"),
         Paths.get("org/savantbuild/io/tar/TarBuilder.java"),
         Paths.get("org/savantbuild/io/tar/TarTools.java"),
+        Paths.get("org/savantbuild/io/zip/ArchiveEntries.java"),
+        Paths.get("org/savantbuild/io/zip/ArchiveView.java"),
+        Paths.get("org/savantbuild/io/zip/CompressionPolicy.java"),
+        Paths.get("org/savantbuild/io/zip/DuplicatePolicy.java"),
+        Paths.get("org/savantbuild/io/zip/RawZipEntry.java"),
+        Paths.get("org/savantbuild/io/zip/ZipArchiveWriter.java"),
         Paths.get("org/savantbuild/io/zip/ZipBuilder.java"),
+        Paths.get("org/savantbuild/io/zip/ZipCentralDirectory.java"),
+        Paths.get("org/savantbuild/io/zip/ZipExtractor.java"),
+        Paths.get("org/savantbuild/io/zip/ZipSource.java"),
         Paths.get("org/savantbuild/io/zip/ZipTools.java")
     ));
   }
@@ -111,31 +203,77 @@ public class FileSetTest extends BaseUnitTest {
     FileSet fileSet = new FileSet(projectDir.resolve("src/main/java"), asList(Pattern.compile(".*/io/.*")), asList(Pattern.compile(".*FileSet\\.java")));
     List<FileInfo> infos = fileSet.toFileInfos();
     assertEquals(infos.stream().map((info) -> info.origin).collect(Collectors.toList()), Arrays.asList(
+        projectDir.resolve("src/main/java/org/savantbuild/io/BuildCache.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ChannelOutputStream.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/Checksum.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ChunkedFileCopier.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Directory.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/DirectoryIndex.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionManifest.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionStore.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/ExtractionTarget.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/Extractor.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileInfo.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/FileModes.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/FilePrefetcher.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/FileTools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Filter.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/GeneratedEntry.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/MemoryTree.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/TempWorkspace.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/Tools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/jar/JarBuilder.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/jar/JarTools.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarBuilder.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarTools.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ArchiveEntries.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ArchiveView.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/CompressionPolicy.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/DuplicatePolicy.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/RawZipEntry.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipArchiveWriter.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipBuilder.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipCentralDirectory.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipExtractor.java"),
+        projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipSource.java"),
         projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipTools.java")
     ));
     assertEquals(infos.stream().map((info) -> info.relative).collect(Collectors.toList()), asList(
+        Paths.get("org/savantbuild/io/BuildCache.java"),
+        Paths.get("org/savantbuild/io/ChannelOutputStream.java"),
+        Paths.get("org/savantbuild/io/Checksum.java"),
+        Paths.get("org/savantbuild/io/ChunkedFileCopier.java"),
         Paths.get("org/savantbuild/io/Copier.java"),
         Paths.get("org/savantbuild/io/Directory.java"),
+        Paths.get("org/savantbuild/io/DirectoryIndex.java"),
+        Paths.get("org/savantbuild/io/ExtractionManifest.java"),
+        Paths.get("org/savantbuild/io/ExtractionStore.java"),
+        Paths.get("org/savantbuild/io/ExtractionTarget.java"),
+        Paths.get("org/savantbuild/io/Extractor.java"),
         Paths.get("org/savantbuild/io/FileInfo.java"),
+        Paths.get("org/savantbuild/io/FileModes.java"),
+        Paths.get("org/savantbuild/io/FilePrefetcher.java"),
         Paths.get("org/savantbuild/io/FileTools.java"),
         Paths.get("org/savantbuild/io/Filter.java"),
+        Paths.get("org/savantbuild/io/GeneratedEntry.java"),
+        Paths.get("org/savantbuild/io/MemoryTree.java"),
+        Paths.get("org/savantbuild/io/TempWorkspace.java"),
         Paths.get("org/savantbuild/io/Tools.java"),
         Paths.get("org/savantbuild/io/jar/JarBuilder.java"),
         Paths.get("org/savantbuild/io/jar/JarTools.java"),
         Paths.get("org/savantbuild/io/tar/TarBuilder.java"),
         Paths.get("org/savantbuild/io/tar/TarTools.java"),
+        Paths.get("org/savantbuild/io/zip/ArchiveEntries.java"),
+        Paths.get("org/savantbuild/io/zip/ArchiveView.java"),
+        Paths.get("org/savantbuild/io/zip/CompressionPolicy.java"),
+        Paths.get("org/savantbuild/io/zip/DuplicatePolicy.java"),
+        Paths.get("org/savantbuild/io/zip/RawZipEntry.java"),
+        Paths.get("org/savantbuild/io/zip/ZipArchiveWriter.java"),
         Paths.get("org/savantbuild/io/zip/ZipBuilder.java"),
+        Paths.get("org/savantbuild/io/zip/ZipCentralDirectory.java"),
+        Paths.get("org/savantbuild/io/zip/ZipExtractor.java"),
+        Paths.get("org/savantbuild/io/zip/ZipSource.java"),
         Paths.get("org/savantbuild/io/zip/ZipTools.java")
     ));
   }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.savantbuild.io.tar.TarBuilder;
+import org.savantbuild.io.tar.TarTools;
+import org.savantbuild.io.zip.ArchiveView;
+import org.savantbuild.io.zip.RawZipEntry;
+import org.savantbuild.io.zip.ZipArchiveWriter;
+import org.savantbuild.io.zip.ZipBuilder;
+import org.savantbuild.io.zip.ZipTools;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the MemoryTree.
+ *
+ * @author Brian Pontarelli
+ */
+public class MemoryTreeTest extends BaseUnitTest {
+  @Test
+  public void unzip() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path zip = projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(zip).fileSet(new ArchiveFileSet(projectDir.resolve("src/main/java"), "", 0x755, null, null, null, null, null, null, null))
+                       .build();
+
+    try (MemoryTree tree = new MemoryTree(true)) {
+      ZipTools.unzip(zip, tree);
+      Path source = projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java");
+      assertEquals(bytes(tree.read("org/savantbuild/io/FileSet.java")), Files.readAllBytes(source));
+      assertNull(tree.read("org/savantbuild/io/Missing.java"));
+      assertTrue(tree.directories().containsKey("org/savantbuild/io/zip"));
+      try (ArchiveView view = ArchiveView.open(zip)) {
+        assertEquals(tree.size() + tree.directories().size(), view.count());
+      }
+
+      // Repackage a subset of the tree without writing it to disk
+      Path repackaged = projectDir.resolve("build/test/repackaged.zip");
+      ZipBuilder builder = new ZipBuilder(repackaged);
+      List<GeneratedEntry> entries = tree.toGeneratedEntries(asList(Pattern.compile("/tar/")), asList());
+      entries.forEach(builder::entry);
+      builder.build();
+
+      try (ArchiveView view = ArchiveView.open(repackaged)) {
+        assertEquals(view.count(), entries.size());
+        assertTrue(view.exists("org/savantbuild/io/tar/TarBuilder.java"));
+        assertFalse(view.exists("org/savantbuild/io/FileSet.java"));
+        assertEquals(view.mode("org/savantbuild/io/tar/TarBuilder.java"), 0100755);
+      }
+    }
+
+    // The pooled slabs are reused and cleared by the next tree
+    try (MemoryTree tree = new MemoryTree(true)) {
+      tree.write("small.txt", 0, 5, 0644, new ByteArrayInputStream("small".getBytes()));
+      assertEquals(bytes(tree.read("small.txt")), "small".getBytes());
+      assertEquals(tree.names(), asList("small.txt"));
+    }
+  }
+
+  @Test
+  public void unzipDuplicates() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Files.createDirectories(projectDir.resolve("build/test"));
+    Path zip = projectDir.resolve("build/test/duplicates.zip");
+    try (ZipArchiveWriter writer = new ZipArchiveWriter(Files.newOutputStream(zip))) {
+      writer.write(new RawZipEntry("a.txt"), "a".getBytes());
+      writer.write(new RawZipEntry("file.txt"), "first".getBytes());
+      writer.write(new RawZipEntry("file.txt"), "second, which is longer".getBytes());
+      writer.write(new RawZipEntry("z.txt"), "z".getBytes());
+    }
+
+    // The last duplicate is kept, the same as when extracting to a directory
+    Path to = projectDir.resolve("build/test/unzip");
+    ZipTools.unzip(zip, to);
+    assertEquals(Files.readAllBytes(to.resolve("file.txt")), "second, which is longer".getBytes());
+    try (MemoryTree tree = new MemoryTree(); ArchiveView view = ArchiveView.open(zip)) {
+      ZipTools.unzip(zip, tree);
+      assertEquals(tree.names(), asList("a.txt", "file.txt", "z.txt"));
+      assertEquals(bytes(tree.read("file.txt")), "second, which is longer".getBytes());
+      assertEquals(view.size("file.txt"), "second, which is longer".length());
+    }
+  }
+
+  @Test
+  public void untar() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path tar = projectDir.resolve("build/test/test.tar.gz");
+    new TarBuilder(tar).fileSet(projectDir.resolve("src/main/java")).build();
+
+    try (MemoryTree tree = new MemoryTree()) {
+      TarTools.untar(tar, tree);
+      Path source = projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java");
+      assertEquals(bytes(tree.read("org/savantbuild/io/FileSet.java")), Files.readAllBytes(source));
+
+      // Copy the tree with the files of a directory
+      Path to = projectDir.resolve("build/test/copy");
+      int count = new Copier(to).fileSet(projectDir.resolve("src/test/java")).tree(tree).copy();
+      assertEquals(count, new FileSet(projectDir.resolve("src/test/java")).toFileInfos().size() + tree.size());
+      assertEquals(Files.readAllBytes(to.resolve("org/savantbuild/io/FileSet.java")), Files.readAllBytes(source));
+      assertTrue(Files.isRegularFile(to.resolve("org/savantbuild/io/MemoryTreeTest.java")));
+    }
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
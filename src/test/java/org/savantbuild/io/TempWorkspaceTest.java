@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the TempWorkspace.
+ *
+ * @author Brian Pontarelli
+ */
+public class TempWorkspaceTest extends BaseUnitTest {
+  @Test
+  public void lifecycle() throws Exception {
+    TempWorkspace workspace = TempWorkspace.create("test");
+    assertEquals(workspace.directory.getParent(), TempWorkspace.sessionRoot());
+
+    Path dir = workspace.newDirectory("classes");
+    Path file = workspace.newFile("test", ".jar");
+    assertNotEquals(workspace.newDirectory("classes"), dir);
+    assertTrue(Files.isDirectory(dir));
+    assertTrue(Files.isRegularFile(file));
+    assertTrue(file.getFileName().toString().endsWith(".jar"));
+
+    // Nested content, including a deep tree
+    TempWorkspace child = workspace.child("child");
+    Path deep = Files.createDirectories(child.directory.resolve("a/b/c/d"));
+    Files.write(deep.resolve("file.txt"), "Testing 123".getBytes());
+
+    workspace.closeAsync().get();
+    assertFalse(Files.exists(workspace.directory));
+    assertFalse(Files.exists(child.directory));
+    assertTrue(Files.isDirectory(TempWorkspace.sessionRoot()));
+
+    try {
+      workspace.newFile("test", ".txt");
+      fail("Should have failed");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    // Closing the child after the parent is a no-op
+    child.closeAsync().get();
+  }
+
+  @Test
+  public void tryWithResources() throws Exception {
+    Path dir;
+    TempWorkspace reference;
+    try (TempWorkspace workspace = TempWorkspace.create("test")) {
+      reference = workspace;
+      dir = workspace.newDirectory("output");
+      Files.write(dir.resolve("file.txt"), "Testing 123".getBytes());
+    }
+
+    reference.closeAsync().get();
+    assertFalse(Files.exists(dir));
+  }
+}
@@ -19,19 +19,30 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
+import java.util.stream.Collectors;
 
 import org.savantbuild.io.BaseUnitTest;
+import org.savantbuild.io.BuildCache;
+import org.savantbuild.io.Checksum;
 import org.savantbuild.io.Directory;
 import org.savantbuild.io.FileSet;
 import org.savantbuild.io.FileTools;
+import org.savantbuild.io.zip.ZipBuilder;
 import org.testng.annotations.Test;
 
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -81,6 +92,7 @@ public class JarBuilderTest extends BaseUnitTest {
       assertEquals(Files.readAllBytes(original), baos.toByteArray());
       assertEquals(jarEntry.getSize(), Files.size(original));
       assertEquals(jarEntry.getCreationTime(), Files.getAttribute(original, "creationTime"));
+      assertNull(jarEntry.getLastAccessTime());
     }
   }
 
@@ -101,7 +113,194 @@ public class JarBuilderTest extends BaseUnitTest {
     assertJarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
     assertJarContainsDirectories(file, "META-INF/", "test/directory/", "org/", "org/savantbuild/", "org/savantbuild/io/",
         "org/savantbuild/io/jar/", "org/savantbuild/io/tar/", "org/savantbuild/io/zip/");
-    assertEquals(count, 35);
+    assertEquals(count, 71);
+  }
+
+  @Test
+  public void buildChecksums() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/jars"));
+    FileTools.prune(projectDir.resolve("build/test/cache"));
+
+    // The entries of the source are copied through the buffer, so they are included in the checksums
+    Path source = projectDir.resolve("build/test/jars/source.zip");
+    new ZipBuilder(source).fileSet(projectDir.resolve("src/test/java")).build();
+
+    BuildCache cache = new BuildCache(projectDir.resolve("build/test/cache"));
+    Path file = projectDir.resolve("build/test/jars/test.jar");
+    JarBuilder builder = new JarBuilder(file).checksums(Checksum.MD5, Checksum.SHA1, Checksum.SHA256)
+                                             .cache(cache)
+                                             .zipSource(source)
+                                             .fileSet(projectDir.resolve("src/main/java"));
+    builder.build();
+    assertEquals(builder.digests, Checksum.compute(file, EnumSet.allOf(Checksum.class)));
+    assertEquals(builder.digests.get(Checksum.SHA1).length(), 40);
+    for (Checksum checksum : Checksum.values()) {
+      assertEquals(new String(Files.readAllBytes(projectDir.resolve("build/test/jars/test.jar." + checksum.extension))), builder.digests.get(checksum));
+    }
+
+    // Restored from the cache
+    Map<Checksum, String> digests = builder.digests;
+    Files.delete(file);
+    Files.delete(Checksum.SHA256.sidecar(file));
+    builder.build();
+    assertEquals(builder.digests, digests);
+    assertEquals(new String(Files.readAllBytes(Checksum.SHA256.sidecar(file))), digests.get(Checksum.SHA256));
+
+    // Without sidecars
+    Path other = projectDir.resolve("build/test/jars/other.jar");
+    JarBuilder otherBuilder = new JarBuilder(other).checksums(Checksum.SHA256).checksumFiles(false).fileSet(projectDir.resolve("src/main/java"));
+    otherBuilder.build();
+    assertEquals(otherBuilder.digests, Checksum.compute(other, EnumSet.of(Checksum.SHA256)));
+    assertFalse(Files.exists(Checksum.SHA256.sidecar(other)));
+  }
+
+  @Test
+  public void buildCached() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/jars"));
+    FileTools.prune(projectDir.resolve("build/test/cache"));
+
+    Path dir = projectDir.resolve("build/test/jars/files");
+    Files.createDirectories(dir.resolve("org"));
+    Files.write(dir.resolve("org/First.class"), "first".getBytes());
+    Files.write(dir.resolve("org/Second.class"), "second".getBytes());
+
+    BuildCache cache = new BuildCache(projectDir.resolve("build/test/cache"));
+    FileTime timestamp = FileTime.fromMillis(1_500_000_000_000L);
+    Path file = projectDir.resolve("build/test/jars/test.jar");
+    int count = new JarBuilder(file).cache(cache).timestamp(timestamp).fileSet(dir).build();
+    byte[] original = Files.readAllBytes(file);
+    assertEquals(count, 4);
+
+    // Touching the files doesn't change the fingerprint because of the timestamp
+    Files.setLastModifiedTime(dir.resolve("org/First.class"), FileTime.fromMillis(System.currentTimeMillis()));
+    Files.delete(file);
+    count = new JarBuilder(file).cache(cache).timestamp(timestamp).fileSet(dir).build();
+    assertEquals(count, 4);
+    assertEquals(Files.readAllBytes(file), original);
+    assertEquals(Files.getAttribute(file, "unix:nlink"), 2);
+
+    // The output is reproducible without the cache
+    new JarBuilder(file).timestamp(timestamp).fileSet(dir).build();
+    assertEquals(Files.readAllBytes(file), original);
+
+    // Changing a file or the manifest changes the fingerprint
+    Files.write(dir.resolve("org/First.class"), "changed".getBytes());
+    new JarBuilder(file).cache(cache).timestamp(timestamp).fileSet(dir).build();
+    try (JarFile jarFile = new JarFile(file.toFile())) {
+      assertEquals(jarFile.getInputStream(jarFile.getEntry("org/First.class")).readAllBytes(), "changed".getBytes());
+    }
+    assertEquals(Files.getAttribute(file, "unix:nlink"), 2);
+
+    new JarBuilder(file).cache(cache).timestamp(timestamp).ensureManifest("Savant", "1.0").fileSet(dir).build();
+    assertEquals(new JarFile(file.toFile()).getManifest().getMainAttributes().getValue("Implementation-Version"), "1.0");
+  }
+
+  @Test
+  public void buildZipSources() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/jars"));
+
+    Path sourceDir = projectDir.resolve("build/test/jars/source");
+    Files.createDirectories(sourceDir.resolve("META-INF/services"));
+    Files.write(sourceDir.resolve("META-INF/LIBRARY.SF"), "signature".getBytes());
+    Files.write(sourceDir.resolve("META-INF/services/org.example.Service"), "org.example.Library".getBytes());
+    Path source = projectDir.resolve("build/test/jars/source.jar");
+    new JarBuilder(source).fileSet(sourceDir).manifest(Map.of("Library", "true")).build();
+
+    Path file = projectDir.resolve("build/test/jars/test.jar");
+    int count = new JarBuilder(file).fileSet(projectDir.resolve("src/main/java"))
+                                    .zipSource(source)
+                                    .build();
+    try (JarFile jarFile = new JarFile(file.toFile())) {
+      assertNull(jarFile.getManifest().getMainAttributes().getValue("Library"));
+      assertNull(jarFile.getEntry("META-INF/LIBRARY.SF"));
+      assertEquals(jarFile.getInputStream(jarFile.getEntry("META-INF/services/org.example.Service")).readAllBytes(), "org.example.Library".getBytes());
+      assertTrue(jarFile.getEntry("META-INF/services/").isDirectory());
+      assertEquals(jarFile.size(), count + 1);
+    }
+    assertJarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
+
+    // The service files of the project and the sources are merged
+    Path dir = projectDir.resolve("build/test/jars/files");
+    Files.createDirectories(dir.resolve("META-INF/services"));
+    Files.write(dir.resolve("META-INF/services/org.example.Service"), "org.example.Project\n".getBytes());
+    new JarBuilder(file).fileSet(dir).zipSource(source).zipSource(source).build();
+    try (JarFile jarFile = new JarFile(file.toFile())) {
+      assertEquals(jarFile.getInputStream(jarFile.getEntry("META-INF/services/org.example.Service")).readAllBytes(),
+          "org.example.Project\norg.example.Library\norg.example.Library".getBytes());
+    }
+  }
+
+  @Test
+  public void buildFileSetOrder() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/jars"));
+
+    Path first = projectDir.resolve("build/test/jars/first");
+    Path second = projectDir.resolve("build/test/jars/second");
+    Files.createDirectories(first);
+    Files.createDirectories(second);
+    Files.write(first.resolve("a.txt"), "a".getBytes());
+    Files.write(first.resolve("z.txt"), "z".getBytes());
+    Files.write(second.resolve("b.txt"), "b".getBytes());
+    Files.write(second.resolve("c.txt"), "c".getBytes());
+
+    // The files of all of the FileSets are in name order
+    Path file = projectDir.resolve("build/test/jars/test.jar");
+    new JarBuilder(file).fileSet(first).fileSet(second).build();
+    try (JarFile jarFile = new JarFile(file.toFile())) {
+      List<String> names = jarFile.stream().map(JarEntry::getName).filter((name) -> !name.startsWith("META-INF/")).collect(Collectors.toList());
+      assertEquals(names, asList("a.txt", "b.txt", "c.txt", "z.txt"));
+    }
+  }
+
+  @Test
+  public void buildGeneratedEntries() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/jars"));
+
+    Path dir = projectDir.resolve("build/test/jars/files");
+    Files.createDirectories(dir.resolve("META-INF/services"));
+    Files.write(dir.resolve("META-INF/services/org.example.Service"), "org.example.File".getBytes());
+    Files.write(dir.resolve("a.txt"), "a".getBytes());
+    Files.write(dir.resolve("version.txt"), "file".getBytes());
+    Files.write(dir.resolve("z.txt"), "z".getBytes());
+    Path other = projectDir.resolve("build/test/jars/other");
+    Files.createDirectories(other);
+    Files.write(other.resolve("b.txt"), "b".getBytes());
+
+    // Generated entries replace the files, even where the files would be merged
+    Path file = projectDir.resolve("build/test/jars/test.jar");
+    int count = new JarBuilder(file).fileSet(dir)
+                                    .fileSet(other)
+                                    .entry("version.txt", "generated".getBytes())
+                                    .entry("META-INF/services/org.example.Service", "org.example.Generated".getBytes())
+                                    .entry("m.txt", "m".getBytes())
+                                    .build();
+    try (JarFile jarFile = new JarFile(file.toFile())) {
+      assertEquals(jarFile.getInputStream(jarFile.getEntry("version.txt")).readAllBytes(), "generated".getBytes());
+      assertEquals(jarFile.getInputStream(jarFile.getEntry("META-INF/services/org.example.Service")).readAllBytes(), "org.example.Generated".getBytes());
+      assertEquals(jarFile.size(), count + 1);
+
+      // The generated entries are written in name order with the files of all of the FileSets
+      List<String> names = jarFile.stream().map(JarEntry::getName).filter((name) -> !name.endsWith("/") && !name.startsWith("META-INF/")).collect(Collectors.toList());
+      assertEquals(names, asList("a.txt", "b.txt", "m.txt", "version.txt", "z.txt"));
+    }
+  }
+
+  @Test
+  public void buildParallel() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/jars"));
+
+    Path file = projectDir.resolve("build/test/jars/test.jar");
+    JarBuilder builder = new JarBuilder(file);
+    int count = builder.parallelism(4)
+                       .fileSet(new FileSet(projectDir.resolve("src/main/java")))
+                       .fileSet(new FileSet(projectDir.resolve("src/test/java")))
+                       .build();
+    assertTrue(Files.isReadable(file));
+    assertJarContains(new JarFile(file.toFile()), "org/savantbuild/io/Copier.java", "org/savantbuild/io/CopierTest.java",
+        "org/savantbuild/io/FileSet.java", "org/savantbuild/io/FileTools.java");
+    assertJarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
+    assertJarFileEquals(file, "org/savantbuild/io/jar/JarBuilderTest.java", projectDir.resolve("src/test/java/org/savantbuild/io/jar/JarBuilderTest.java"));
+    assertEquals(count, 70);
   }
 
   @Test
@@ -137,7 +336,7 @@ public class JarBuilderTest extends BaseUnitTest {
     assertJarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
     assertJarContainsDirectories(file, "META-INF/", "org/", "org/savantbuild/", "org/savantbuild/io/",
         "org/savantbuild/io/jar/", "org/savantbuild/io/tar/", "org/savantbuild/io/zip/");
-    assertEquals(count, 34);
+    assertEquals(count, 70);
   }
 
   @Test
@@ -161,6 +360,6 @@ public class JarBuilderTest extends BaseUnitTest {
     assertJarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
     assertJarContainsDirectories(file, "META-INF/", "org/", "org/savantbuild/", "org/savantbuild/io/",
         "org/savantbuild/io/jar/", "org/savantbuild/io/tar/", "org/savantbuild/io/zip/");
-    assertEquals(count, 35);
+    assertEquals(count, 71);
   }
 }
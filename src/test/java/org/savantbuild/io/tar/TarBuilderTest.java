@@ -15,21 +15,26 @@
  */
 package org.savantbuild.io.tar;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFileAttributes;
+import java.util.EnumSet;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.savantbuild.io.ArchiveFileSet;
 import org.savantbuild.io.BaseUnitTest;
+import org.savantbuild.io.Checksum;
 import org.savantbuild.io.Directory;
 import org.savantbuild.io.FileSet;
 import org.savantbuild.io.FileTools;
+import org.savantbuild.io.GeneratedEntry;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
@@ -121,7 +126,7 @@ public class TarBuilderTest extends BaseUnitTest {
     assertTarContainsDirectory(file, "org/savantbuild/", null, null, null);
     assertTarContainsDirectory(file, "org/savantbuild/io/", null, null, null);
     assertTarContainsDirectory(file, "test/directory/", 0x755, "root", "root");
-    assertEquals(count, 34);
+    assertEquals(count, 70);
   }
 
   @Test
@@ -148,7 +153,7 @@ public class TarBuilderTest extends BaseUnitTest {
     assertTarContainsDirectory(file, "usr/local/main/org/savantbuild/io/", null, null, null);
     assertTarContainsDirectory(file, "usr/local/test/org/savantbuild/io/", null, null, null);
     assertTarContainsDirectory(file, "test/directory/", 0x755, "root", "root");
-    assertEquals(count, 44);
+    assertEquals(count, 80);
   }
 
   @Test
@@ -167,7 +172,120 @@ public class TarBuilderTest extends BaseUnitTest {
     assertTrue(Files.isReadable(file));
     assertTarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
     assertTarFileEquals(file, "org/savantbuild/io/FileSet.java", projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java"));
-    assertEquals(count, 33);
+    assertEquals(count, 69);
+  }
+
+  @Test
+  public void buildCompressionLevel() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/tars"));
+
+    Path fast = projectDir.resolve("build/test/tars/fast.tar.gz");
+    TarBuilder fastBuilder = new TarBuilder(fast);
+    fastBuilder.storeGroupName = true;
+    fastBuilder.storeUserName = true;
+    fastBuilder.compressionLevel(1)
+               .fileSet(projectDir.resolve("src/main/java"))
+               .build();
+    assertTarFileEquals(fast, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
+
+    Path best = projectDir.resolve("build/test/tars/best.tar.gz");
+    TarBuilder bestBuilder = new TarBuilder(best);
+    bestBuilder.storeGroupName = true;
+    bestBuilder.storeUserName = true;
+    bestBuilder.compressionLevel(9)
+               .fileSet(projectDir.resolve("src/main/java"))
+               .build();
+    assertTarFileEquals(best, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
+    assertTrue(Files.size(best) < Files.size(fast));
+  }
+
+  @Test
+  public void buildChecksums() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/tars"));
+
+    Path file = projectDir.resolve("build/test/tars/test.tar.gz");
+    TarBuilder builder = new TarBuilder(file).checksums(Checksum.SHA1).fileSet(projectDir.resolve("src/main/java"));
+    builder.build();
+    assertEquals(builder.digests.keySet(), EnumSet.of(Checksum.SHA1));
+    assertEquals(builder.digests, Checksum.compute(file, EnumSet.of(Checksum.SHA1)));
+    assertEquals(new String(Files.readAllBytes(projectDir.resolve("build/test/tars/test.tar.gz.sha1"))), builder.digests.get(Checksum.SHA1));
+  }
+
+  @Test
+  public void buildPrefetch() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/tars"));
+
+    Path sequential = projectDir.resolve("build/test/tars/sequential.tar.gz");
+    new TarBuilder(sequential).timestamp(FileTime.fromMillis(0))
+                              .fileSet(projectDir.resolve("src/main/java"))
+                              .build();
+
+    Path prefetched = projectDir.resolve("build/test/tars/prefetched.tar.gz");
+    new TarBuilder(prefetched).timestamp(FileTime.fromMillis(0))
+                              .prefetchThreads(2)
+                              .inFlightLimit(16 * 1024)
+                              .fileSet(projectDir.resolve("src/main/java"))
+                              .build();
+    assertEquals(Files.readAllBytes(prefetched), Files.readAllBytes(sequential));
+  }
+
+  @Test
+  public void buildStream() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/tars"));
+
+    FileTime time = FileTime.fromMillis(1_500_000_000_000L);
+    Path file = projectDir.resolve("build/test/tars/test.tar.gz");
+    int fileCount = new TarBuilder(file).timestamp(time)
+                                        .fileSet(projectDir.resolve("src/main/java"))
+                                        .entry("bytes.txt", "bytes".getBytes())
+                                        .build();
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    TarBuilder builder = new TarBuilder().timestamp(time)
+                                         .checksums(Checksum.SHA1)
+                                         .fileSet(projectDir.resolve("src/main/java"))
+                                         .entry("bytes.txt", "bytes".getBytes());
+    int count = builder.build(baos);
+    assertEquals(count, fileCount);
+    assertEquals(baos.toByteArray(), Files.readAllBytes(file));
+    assertEquals(builder.digests, Checksum.compute(file, EnumSet.of(Checksum.SHA1)));
+
+    baos.reset();
+    new TarBuilder().compress(false).fileSet(projectDir.resolve("src/main/java")).build(baos);
+    try (TarArchiveInputStream tis = new TarArchiveInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+      assertEquals(tis.getNextTarEntry().getName(), "org/");
+    }
+  }
+
+  @Test
+  public void buildGeneratedEntries() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/tars"));
+
+    Path dir = projectDir.resolve("build/test/tars/files");
+    Files.createDirectories(dir);
+    Files.write(dir.resolve("a.txt"), "a".getBytes());
+    Files.write(dir.resolve("c.txt"), "c".getBytes());
+
+    Path file = projectDir.resolve("build/test/tars/test.tar");
+    int count = new TarBuilder(file).fileSet(dir)
+                                    .entry("z.txt", "z".getBytes())
+                                    .entry(new GeneratedEntry("b.txt", () -> new ByteArrayInputStream("b".getBytes())).withMode(0x755))
+                                    .entry("c.txt", "generated".getBytes())
+                                    .build();
+    assertEquals(count, 4);
+
+    try (TarArchiveInputStream tis = new TarArchiveInputStream(Files.newInputStream(file))) {
+      String[] names = {"a.txt", "b.txt", "c.txt", "z.txt"};
+      String[] contents = {"a", "b", "generated", "z"};
+      for (int i = 0; i < names.length; i++) {
+        TarArchiveEntry entry = tis.getNextTarEntry();
+        assertEquals(entry.getName(), names[i]);
+        assertEquals(new String(tis.readAllBytes()), contents[i]);
+        if (names[i].equals("b.txt")) {
+          assertEquals(entry.getMode(), 0100755);
+        }
+      }
+    }
   }
 
   @Test
@@ -202,6 +320,6 @@ public class TarBuilderTest extends BaseUnitTest {
     assertTrue(Files.isReadable(file));
     assertTarFileEquals(file, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
     assertTarFileEquals(file, "org/savantbuild/io/FileSet.java", projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java"));
-    assertEquals(count, 33);
+    assertEquals(count, 69);
   }
 }
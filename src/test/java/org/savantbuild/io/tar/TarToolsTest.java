@@ -16,19 +16,28 @@
 package org.savantbuild.io.tar;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFileAttributes;
+import java.time.Instant;
 import java.util.regex.Pattern;
 
 import org.savantbuild.io.ArchiveFileSet;
 import org.savantbuild.io.BaseUnitTest;
 import org.savantbuild.io.Directory;
+import org.savantbuild.io.Extractor;
 import org.savantbuild.io.FileTools;
 import org.testng.annotations.Test;
 
 import static java.util.Arrays.asList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Tests the Tar tools.
@@ -59,6 +68,62 @@ public class TarToolsTest extends BaseUnitTest {
     TarTools.untar(testFile, untarDir, true, true);
   }
 
+  @Test
+  public void untarTimes() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    FileTime timestamp = FileTime.from(Instant.parse("2020-02-03T04:05:06Z"));
+    Path testFile = projectDir.resolve("build/test/test.tar");
+    new TarBuilder(testFile).fileSet(projectDir.resolve("src/main/java"))
+                            .directory(new Directory("test-directory/nested/dir", 0x755, null, null, null))
+                            .timestamp(timestamp)
+                            .build();
+
+    Path untarDir = projectDir.resolve("build/test/untar");
+    TarTools.untar(testFile, untarDir, false, false);
+    assertEquals(Files.getLastModifiedTime(untarDir.resolve("org/savantbuild/io/FileSet.java")), timestamp);
+    assertEquals(Files.getLastModifiedTime(untarDir.resolve("test-directory/nested/dir")), timestamp);
+
+    // Again, the skipped files keep their times
+    TarTools.untar(testFile, untarDir, false, false);
+    assertEquals(Files.getLastModifiedTime(untarDir.resolve("org/savantbuild/io/FileSet.java")), timestamp);
+  }
+
+  @Test
+  public void untarChanged() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path dir = projectDir.resolve("build/test/files");
+    Files.createDirectories(dir);
+    byte[] large = new byte[Extractor.IN_MEMORY_LIMIT + 1024];
+    Files.write(dir.resolve("large.bin"), large);
+    Files.write(dir.resolve("same.txt"), "same".getBytes());
+    Files.write(dir.resolve("v.txt"), "version1".getBytes());
+
+    // A fixed timestamp keeps the modification times of the entries the same between builds
+    FileTime timestamp = FileTime.from(Instant.parse("2020-02-03T04:05:06Z"));
+    Path testFile = projectDir.resolve("build/test/test.tar");
+    new TarBuilder(testFile).fileSet(dir).timestamp(timestamp).build();
+    Path untarDir = projectDir.resolve("build/test/untar");
+    TarTools.untar(testFile, untarDir, false, false);
+    Object sameKey = Files.readAttributes(untarDir.resolve("same.txt"), BasicFileAttributes.class).fileKey();
+    Object largeKey = Files.readAttributes(untarDir.resolve("large.bin"), BasicFileAttributes.class).fileKey();
+
+    // Unchanged files are skipped
+    TarTools.untar(testFile, untarDir, false, false);
+    assertEquals(Files.readAttributes(untarDir.resolve("large.bin"), BasicFileAttributes.class).fileKey(), largeKey);
+
+    // Edits that keep the size are extracted, even though the times and modes are the same
+    large[large.length / 2] = 1;
+    Files.write(dir.resolve("large.bin"), large);
+    Files.write(dir.resolve("v.txt"), "version2".getBytes());
+    new TarBuilder(testFile).fileSet(dir).timestamp(timestamp).build();
+    TarTools.untar(testFile, untarDir, false, false);
+    assertEquals(Files.readAllBytes(untarDir.resolve("v.txt")), "version2".getBytes());
+    assertEquals(Files.readAllBytes(untarDir.resolve("large.bin")), large);
+    assertEquals(Files.getLastModifiedTime(untarDir.resolve("large.bin")), timestamp);
+    assertEquals(Files.readAttributes(untarDir.resolve("same.txt"), BasicFileAttributes.class).fileKey(), sameKey);
+    assertFalse(Files.exists(untarDir.resolve("large.bin.extract")));
+  }
+
   @Test
   public void untar_compress() throws Exception {
     FileTools.prune(projectDir.resolve("build/test"));
@@ -87,6 +152,51 @@ public class TarToolsTest extends BaseUnitTest {
     TarTools.untar(testFile, untarDir, false, false);
   }
 
+  @Test
+  public void untarStream() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path testFile = projectDir.resolve("build/test/test.tar.gz");
+    new TarBuilder(testFile).compress(true).fileSet(projectDir.resolve("src/main/java")).build();
+
+    // Compressed streams are detected
+    Path untarDir = projectDir.resolve("build/test/untar");
+    try (InputStream is = Files.newInputStream(testFile)) {
+      TarTools.untar(is, untarDir, false, false);
+    }
+    assertEquals(Files.readAllBytes(untarDir.resolve("org/savantbuild/io/FileSet.java")), Files.readAllBytes(projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java")));
+
+    Path tarFile = projectDir.resolve("build/test/test.tar");
+    new TarBuilder(tarFile).fileSet(projectDir.resolve("src/main/java")).build();
+    FileTools.prune(untarDir);
+    try (FileChannel channel = FileChannel.open(tarFile, StandardOpenOption.READ)) {
+      TarTools.untar(channel, untarDir, false, false);
+      assertTrue(channel.isOpen());
+    }
+    assertEquals(Files.readAllBytes(untarDir.resolve("org/savantbuild/io/tar/TarTools.java")), Files.readAllBytes(projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarTools.java")));
+  }
+
+  @Test
+  public void untarPatterns() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path testFile = projectDir.resolve("build/test/test.tar");
+    new TarBuilder(testFile).fileSet(projectDir.resolve("src/main/java"))
+                            .directory(new Directory("test-directory/nested/dir", 0x777, null, null, null))
+                            .build();
+
+    Path untarDir = projectDir.resolve("build/test/untar");
+    TarTools.untar(testFile, untarDir, false, false, asList(Pattern.compile("^org/savantbuild/io/tar/")), asList(Pattern.compile("Builder\\.java$")));
+    assertEquals(Files.readAllBytes(untarDir.resolve("org/savantbuild/io/tar/TarTools.java")), Files.readAllBytes(projectDir.resolve("src/main/java/org/savantbuild/io/tar/TarTools.java")));
+    assertFalse(Files.exists(untarDir.resolve("org/savantbuild/io/tar/TarBuilder.java")));
+    assertFalse(Files.exists(untarDir.resolve("org/savantbuild/io/FileSet.java")));
+    assertFalse(Files.exists(untarDir.resolve("test-directory")));
+
+    // The entries after a skipped entry are still read correctly
+    TarTools.untar(testFile, untarDir, false, false, null, asList(Pattern.compile("^org/savantbuild/io/[A-Z]")));
+    assertTrue(Files.isDirectory(untarDir.resolve("test-directory/nested/dir")));
+    assertEquals(Files.readAllBytes(untarDir.resolve("org/savantbuild/io/zip/ZipTools.java")), Files.readAllBytes(projectDir.resolve("src/main/java/org/savantbuild/io/zip/ZipTools.java")));
+    assertFalse(Files.exists(untarDir.resolve("org/savantbuild/io/FileSet.java")));
+  }
+
   private void assertDirectory(Path dir, Integer mode) throws IOException {
     assertEquals(FileTools.toMode(Files.getPosixFilePermissions(dir)), FileTools.toMode(mode));
   }
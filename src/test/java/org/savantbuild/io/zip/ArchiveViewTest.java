@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.savantbuild.io.ArchiveFileSet;
+import org.savantbuild.io.BaseUnitTest;
+import org.savantbuild.io.FileTools;
+import org.savantbuild.io.jar.JarBuilder;
+import org.testng.annotations.Test;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the ArchiveView.
+ *
+ * @author Brian Pontarelli
+ */
+public class ArchiveViewTest extends BaseUnitTest {
+  @Test
+  public void view() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path testFile = projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(testFile).fileSet(projectDir.resolve("src/main/java"))
+                            .fileSet(new ArchiveFileSet(projectDir.resolve("src/test/java"), "stored"))
+                            .compressionPolicy(new CompressionPolicy().rule("^stored/", 0))
+                            .build();
+
+    try (ArchiveView view = ArchiveView.open(testFile)) {
+      assertTrue(view.exists("org/savantbuild/io/FileSet.java"));
+      assertTrue(view.exists("org/savantbuild/io/zip/"));
+      assertFalse(view.exists("org/savantbuild/io/zip"));
+      assertFalse(view.exists("org/savantbuild/io/Missing.java"));
+
+      // Compressed entries are inflated
+      Path source = projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java");
+      assertEquals(view.size("org/savantbuild/io/FileSet.java"), Files.size(source));
+      assertNull(view.buffer("org/savantbuild/io/FileSet.java"));
+      try (InputStream is = view.open("org/savantbuild/io/FileSet.java")) {
+        assertEquals(is.readAllBytes(), Files.readAllBytes(source));
+      }
+
+      // STORED entries are slices of the archive
+      Path stored = projectDir.resolve("src/test/java/org/savantbuild/io/zip/ArchiveViewTest.java");
+      ByteBuffer buffer = view.buffer("stored/org/savantbuild/io/zip/ArchiveViewTest.java");
+      assertNotNull(buffer);
+      assertTrue(buffer.isReadOnly());
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      assertEquals(bytes, Files.readAllBytes(stored));
+      try (InputStream is = view.open("stored/org/savantbuild/io/zip/ArchiveViewTest.java")) {
+        assertEquals(is.readAllBytes(), Files.readAllBytes(stored));
+      }
+
+      // The listing is sorted and contains everything below the prefix
+      List<String> expected;
+      try (Stream<Path> files = Files.list(projectDir.resolve("src/main/java/org/savantbuild/io/tar"))) {
+        expected = files.map((file) -> "org/savantbuild/io/tar/" + file.getFileName()).sorted().collect(Collectors.toList());
+      }
+      expected.add(0, "org/savantbuild/io/tar/");
+      assertEquals(view.list("org/savantbuild/io/tar/"), expected);
+      assertEquals(view.list("org/savantbuild/io/tar/TarB"), asList("org/savantbuild/io/tar/TarBuilder.java"));
+      assertEquals(view.list("missing/"), asList());
+
+      try {
+        view.open("org/savantbuild/io/Missing.java");
+        fail("Should have failed");
+      } catch (IOException e) {
+        assertEquals(e.getMessage(), "The entry [org/savantbuild/io/Missing.java] does not exist in [" + testFile + "]");
+      }
+    }
+  }
+
+  @Test
+  public void viewJar() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    Path testFile = projectDir.resolve("build/test/test.jar");
+    new JarBuilder(testFile).fileSet(projectDir.resolve("src/main/java")).build();
+
+    try (ArchiveView view = ArchiveView.open(testFile)) {
+      assertTrue(view.exists("META-INF/MANIFEST.MF"));
+      assertEquals(view.list("META-INF/"), asList("META-INF/", "META-INF/MANIFEST.MF"));
+
+      // Every entry can be found and read
+      for (String name : view.list("")) {
+        assertTrue(view.exists(name));
+        if (!name.endsWith("/")) {
+          try (InputStream is = view.open(name)) {
+            assertEquals(is.readAllBytes().length, view.size(name));
+          }
+        }
+      }
+
+      String[] names = view.list("").toArray(new String[0]);
+      assertEquals(names.length, view.count());
+      String[] sorted = names.clone();
+      Arrays.sort(sorted);
+      assertEquals(names, sorted);
+    }
+  }
+}
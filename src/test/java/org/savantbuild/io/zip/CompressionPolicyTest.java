@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.util.zip.Deflater;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests the CompressionPolicy.
+ *
+ * @author Brian Pontarelli
+ */
+public class CompressionPolicyTest {
+  @Test
+  public void levelFor() {
+    CompressionPolicy policy = new CompressionPolicy();
+    assertEquals(policy.levelFor("org/savantbuild/io/Copier.class"), Deflater.DEFAULT_COMPRESSION);
+    assertEquals(policy.levelFor("images/logo.PNG"), CompressionPolicy.STORED);
+    assertEquals(policy.levelFor("lib/ant.jar"), CompressionPolicy.STORED);
+    assertEquals(policy.levelFor("lib.jar/README"), Deflater.DEFAULT_COMPRESSION);
+    assertEquals(policy.levelFor("jar"), Deflater.DEFAULT_COMPRESSION);
+
+    policy.level(9)
+          .rule("^lib/.*\\.jar$", 6)
+          .rule("\\.txt$", CompressionPolicy.STORED)
+          .storedExtensions("dat");
+    assertEquals(policy.levelFor("org/savantbuild/io/Copier.class"), 9);
+    assertEquals(policy.levelFor("lib/ant.jar"), 6);
+    assertEquals(policy.levelFor("other/ant.jar"), CompressionPolicy.STORED);
+    assertEquals(policy.levelFor("notes.txt"), CompressionPolicy.STORED);
+    assertEquals(policy.levelFor("values.dat"), CompressionPolicy.STORED);
+
+    assertEquals(CompressionPolicy.stored().levelFor("org/savantbuild/io/Copier.class"), CompressionPolicy.STORED);
+  }
+}
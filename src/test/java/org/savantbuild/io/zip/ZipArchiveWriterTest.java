@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.savantbuild.io.zip;
+
+import java.io.BufferedOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.savantbuild.io.BaseUnitTest;
+import org.savantbuild.io.FileTools;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the ZipArchiveWriter.
+ *
+ * @author Brian Pontarelli
+ */
+public class ZipArchiveWriterTest extends BaseUnitTest {
+  @Test
+  public void manyEntries() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+    Files.createDirectories(projectDir.resolve("build/test/zips"));
+
+    // More entries than the original format supports requires the ZIP64 end of central directory
+    Path file = projectDir.resolve("build/test/zips/many.zip");
+    try (ZipArchiveWriter writer = new ZipArchiveWriter(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      for (int i = 0; i < 70_000; i++) {
+        writer.write(new RawZipEntry("entry-" + i), ("value-" + i).getBytes());
+      }
+    }
+
+    try (ZipFile zipFile = new ZipFile(file.toFile())) {
+      assertEquals(zipFile.size(), 70_000);
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("entry-69999")).readAllBytes(), "value-69999".getBytes());
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ZipCentralDirectory directory = ZipCentralDirectory.read(channel);
+      assertEquals(directory.entries.size(), 70_000);
+      assertEquals(directory.entries.get(12).name, "entry-12");
+    }
+  }
+
+  @Test
+  public void streamed() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+    Files.createDirectories(projectDir.resolve("build/test/zips"));
+
+    Path original = projectDir.resolve("src/main/java/org/savantbuild/io/FileTools.java");
+    Path file = projectDir.resolve("build/test/zips/streamed.zip");
+    FileTime time = FileTime.fromMillis(1_500_000_000_000L);
+    try (ZipArchiveWriter writer = new ZipArchiveWriter(Files.newOutputStream(file))) {
+      writer.inMemoryLimit = 1024;
+
+      RawZipEntry directory = new RawZipEntry("dir/");
+      directory.setUnixMode(FileTools.toMode(0x755));
+      writer.writeDirectory(directory);
+
+      RawZipEntry entry = new RawZipEntry("dir/FileTools.java");
+      entry.lastModifiedTime = time;
+      entry.setUnixMode(FileTools.toMode(0x640));
+      writer.write(entry, original);
+
+      // STORED because of the extension, which means the CRC is computed before the file is written
+      writer.write(new RawZipEntry("dir/FileTools.jar"), original);
+    }
+
+    try (ZipFile zipFile = new ZipFile(file.toFile())) {
+      ZipEntry entry = zipFile.getEntry("dir/FileTools.java");
+      assertEquals(zipFile.getInputStream(entry).readAllBytes(), Files.readAllBytes(original));
+      assertEquals(entry.getLastModifiedTime(), time);
+      assertEquals(entry.getSize(), Files.size(original));
+      assertTrue(zipFile.getEntry("dir/").isDirectory());
+
+      ZipEntry stored = zipFile.getEntry("dir/FileTools.jar");
+      assertEquals(stored.getMethod(), ZipEntry.STORED);
+      assertEquals(zipFile.getInputStream(stored).readAllBytes(), Files.readAllBytes(original));
+    }
+
+    org.apache.tools.zip.ZipFile zipFile = new org.apache.tools.zip.ZipFile(file.toFile());
+    assertEquals(zipFile.getEntry("dir/FileTools.java").getUnixMode(), FileTools.toMode(0x640));
+    assertEquals(zipFile.getEntry("dir/").getUnixMode(), FileTools.toMode(0x755));
+    zipFile.close();
+  }
+}
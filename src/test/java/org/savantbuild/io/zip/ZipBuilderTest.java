@@ -15,27 +15,40 @@
  */
 package org.savantbuild.io.zip;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.HashSet;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.tools.zip.ZipFile;
 import org.savantbuild.io.ArchiveFileSet;
 import org.savantbuild.io.BaseUnitTest;
+import org.savantbuild.io.Checksum;
 import org.savantbuild.io.Directory;
 import org.savantbuild.io.FileSet;
 import org.savantbuild.io.FileTools;
+import org.savantbuild.io.GeneratedEntry;
+import org.savantbuild.io.zip.DuplicatePolicy.Strategy;
 import org.testng.annotations.Test;
 
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -85,6 +98,7 @@ public class ZipBuilderTest extends BaseUnitTest {
 
       assertEquals(Files.readAllBytes(original), baos.toByteArray());
       assertEquals(zipEntry.getSize(), Files.size(original));
+      assertNull(zipEntry.getLastAccessTime());
     }
 
     // ZIP doesn't work well with this right now. Maybe in JDK 1.9 or something
@@ -113,7 +127,347 @@ public class ZipBuilderTest extends BaseUnitTest {
     assertZipContainsDirectory(file, "org/savantbuild/io/jar/", 0x755);
     assertZipContainsDirectory(file, "org/savantbuild/io/tar/", 0x755);
     assertZipContainsDirectory(file, "org/savantbuild/io/zip/", 0x755);
-    assertEquals(count, 34);
+    assertEquals(count, 70);
+  }
+
+  @Test
+  public void buildCompressionPolicy() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path dir = projectDir.resolve("build/test/zips/files");
+    Files.createDirectories(dir);
+    byte[] random = new byte[256 * 1024];
+    new Random(42).nextBytes(random);
+    Files.write(dir.resolve("image.png"), "already compressed".repeat(100).getBytes());
+    Files.write(dir.resolve("random.bin"), random);
+    Files.write(dir.resolve("text.txt"), "compressible".repeat(100).getBytes());
+    Files.write(dir.resolve("text.fast"), "compressible".repeat(100).getBytes());
+    Files.write(dir.resolve("tiny.txt"), "x".getBytes());
+
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    new ZipBuilder(file).compressionPolicy(new CompressionPolicy().rule("\\.fast$", 1))
+                        .fileSet(dir)
+                        .build();
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.getEntry("image.png").getMethod(), ZipEntry.STORED);
+      assertEquals(zipFile.getEntry("random.bin").getMethod(), ZipEntry.STORED);
+      assertEquals(zipFile.getEntry("text.txt").getMethod(), ZipEntry.DEFLATED);
+      assertEquals(zipFile.getEntry("text.fast").getMethod(), ZipEntry.DEFLATED);
+      assertEquals(zipFile.getEntry("tiny.txt").getMethod(), ZipEntry.STORED);
+    }
+    assertZipFileEquals(file, "random.bin", dir.resolve("random.bin"));
+    assertZipFileEquals(file, "image.png", dir.resolve("image.png"));
+
+    // Store everything
+    ZipBuilder builder = new ZipBuilder(file).compressionPolicy(CompressionPolicy.stored()).fileSet(dir);
+    builder.build();
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.getEntry("text.txt").getMethod(), ZipEntry.STORED);
+      assertEquals(zipFile.getEntry("random.bin").getMethod(), ZipEntry.STORED);
+    }
+    assertZipFileEquals(file, "random.bin", dir.resolve("random.bin"));
+    assertZipFileEquals(file, "text.txt", dir.resolve("text.txt"));
+  }
+
+  @Test
+  public void buildDuplicates() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path first = projectDir.resolve("build/test/zips/first");
+    Path second = projectDir.resolve("build/test/zips/second");
+    Files.createDirectories(first);
+    Files.createDirectories(second);
+    Files.write(first.resolve("different.txt"), "first".getBytes());
+    Files.write(second.resolve("different.txt"), "second".getBytes());
+    Files.write(first.resolve("same.txt"), "same".getBytes());
+    Files.write(second.resolve("same.txt"), "same".getBytes());
+    Files.write(first.resolve("merged.txt"), "first".getBytes());
+    Files.write(second.resolve("merged.txt"), "second\n".getBytes());
+
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    int count = new ZipBuilder(file).fileSet(first).fileSet(second).build();
+    assertEquals(count, 3);
+    assertZipFileEquals(file, "different.txt", first.resolve("different.txt"));
+
+    new ZipBuilder(file).duplicatePolicy(new DuplicatePolicy().strategy(Strategy.LAST)).fileSet(first).fileSet(second).build();
+    assertZipFileEquals(file, "different.txt", second.resolve("different.txt"));
+
+    count = new ZipBuilder(file).duplicatePolicy(new DuplicatePolicy().rule("^merged", Strategy.MERGE).rule("^different", Strategy.LAST).strategy(Strategy.SKIP_IDENTICAL))
+                                .fileSet(first)
+                                .fileSet(second)
+                                .optionalFileSet(projectDir.resolve("doesNotExist"))
+                                .fileSet(new FileSet(first, null, asList(Pattern.compile("different"))))
+                                .build();
+    assertEquals(count, 3);
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("merged.txt")).readAllBytes(), "first\nsecond\nfirst".getBytes());
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("same.txt")).readAllBytes(), "same".getBytes());
+    }
+
+    try {
+      new ZipBuilder(file).duplicatePolicy(new DuplicatePolicy().strategy(Strategy.SKIP_IDENTICAL)).fileSet(first).fileSet(second).build();
+      fail("Should have failed");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("[different.txt]"));
+      assertTrue(e.getMessage().contains("contents are different"));
+    }
+  }
+
+  @Test
+  public void buildFileSetOrder() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path first = projectDir.resolve("build/test/zips/first");
+    Path second = projectDir.resolve("build/test/zips/second");
+    Files.createDirectories(first);
+    Files.createDirectories(second);
+    Files.write(first.resolve("a.txt"), "a".getBytes());
+    Files.write(first.resolve("z.txt"), "z".getBytes());
+    Files.write(second.resolve("b.txt"), "b".getBytes());
+    Files.write(second.resolve("c.txt"), "c".getBytes());
+
+    // The files of all of the FileSets are in name order
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    new ZipBuilder(file).fileSet(first).fileSet(second).build();
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.stream().map(ZipEntry::getName).collect(Collectors.toList()), asList("a.txt", "b.txt", "c.txt", "z.txt"));
+    }
+  }
+
+  @Test
+  public void buildGeneratedEntries() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path dir = projectDir.resolve("build/test/zips/files");
+    Files.createDirectories(dir);
+    Files.write(dir.resolve("file.txt"), "file".getBytes());
+
+    FileTime time = FileTime.fromMillis(1_500_000_000_000L);
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    int count = new ZipBuilder(file).fileSet(dir)
+                                    .entry("bytes.txt", "bytes".getBytes())
+                                    .entry(new GeneratedEntry("buffer.txt", ByteBuffer.wrap("buffer".getBytes())).withMode(0x755))
+                                    .entry(new GeneratedEntry("build/info.properties", () -> new ByteArrayInputStream("version=1.0".getBytes())).withLastModifiedTime(time))
+                                    .entry("file.txt", "duplicate".getBytes())
+                                    .build();
+    assertEquals(count, 4);
+
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      // The generated entry replaces the file and the entries are in name order
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("file.txt")).readAllBytes(), "duplicate".getBytes());
+      assertEquals(zipFile.stream().map(ZipEntry::getName).collect(Collectors.toList()),
+          asList("buffer.txt", "build/info.properties", "bytes.txt", "file.txt"));
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("bytes.txt")).readAllBytes(), "bytes".getBytes());
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("buffer.txt")).readAllBytes(), "buffer".getBytes());
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("build/info.properties")).readAllBytes(), "version=1.0".getBytes());
+      assertEquals(zipFile.getEntry("build/info.properties").getLastModifiedTime().toMillis(), time.toMillis());
+    }
+
+    ZipFile zipFile = new ZipFile(file.toFile());
+    assertEquals(zipFile.getEntry("buffer.txt").getUnixMode(), 0100755);
+    assertEquals(zipFile.getEntry("bytes.txt").getUnixMode(), 0100644);
+    zipFile.close();
+
+    // The generated entries are in name order with the files of all of the FileSets
+    Path first = projectDir.resolve("build/test/zips/first");
+    Path second = projectDir.resolve("build/test/zips/second");
+    Files.createDirectories(first);
+    Files.createDirectories(second);
+    Files.write(first.resolve("a.txt"), "a".getBytes());
+    Files.write(first.resolve("z.txt"), "z".getBytes());
+    Files.write(second.resolve("b.txt"), "b".getBytes());
+    Files.write(second.resolve("c.txt"), "c".getBytes());
+    new ZipBuilder(file).fileSet(first).fileSet(second).entry("m.txt", "m".getBytes()).build();
+    try (java.util.zip.ZipFile zip = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zip.stream().map(ZipEntry::getName).collect(Collectors.toList()), asList("a.txt", "b.txt", "c.txt", "m.txt", "z.txt"));
+    }
+  }
+
+  @Test
+  public void buildIncremental() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path dir = projectDir.resolve("build/test/zips/files");
+    Files.createDirectories(dir);
+    Random random = new Random(42);
+    StringBuilder build = new StringBuilder();
+    for (int i = 0; i < 20_000; i++) {
+      build.append(random.nextInt(1000)).append(' ');
+    }
+    Files.write(dir.resolve("changed.txt"), build.toString().getBytes());
+    Files.write(dir.resolve("unchanged.txt"), build.toString().getBytes());
+
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    new ZipBuilder(file).compressionLevel(1).fileSet(dir).build();
+    long fastSize;
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      fastSize = zipFile.getEntry("unchanged.txt").getCompressedSize();
+    }
+
+    // Change one file and build again. The unchanged file keeps the bytes of the first build
+    Files.write(dir.resolve("changed.txt"), "changed".getBytes());
+    int count = new ZipBuilder(file).compressionLevel(1).incremental(true).fileSet(dir).build();
+    assertEquals(count, 2);
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.getEntry("unchanged.txt").getCompressedSize(), fastSize);
+    }
+    assertZipFileEquals(file, "changed.txt", dir.resolve("changed.txt"));
+    assertZipFileEquals(file, "unchanged.txt", dir.resolve("unchanged.txt"));
+
+    // A different level compresses the unchanged file again
+    new ZipBuilder(file).compressionLevel(9).incremental(true).fileSet(dir).build();
+    long bestSize;
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      bestSize = zipFile.getEntry("unchanged.txt").getCompressedSize();
+      assertTrue(bestSize < fastSize);
+    }
+    assertZipFileEquals(file, "unchanged.txt", dir.resolve("unchanged.txt"));
+
+    // So does storing it
+    new ZipBuilder(file).compressionPolicy(CompressionPolicy.stored()).incremental(true).fileSet(dir).build();
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.getEntry("unchanged.txt").getMethod(), ZipEntry.STORED);
+    }
+
+    new ZipBuilder(file).compressionLevel(9).incremental(true).fileSet(dir).build();
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile())) {
+      assertEquals(zipFile.getEntry("unchanged.txt").getCompressedSize(), bestSize);
+    }
+  }
+
+  @Test
+  public void buildZipSources() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path sourceDir = projectDir.resolve("build/test/zips/source");
+    Files.createDirectories(sourceDir.resolve("lib"));
+    Files.write(sourceDir.resolve("lib/library.txt"), "library".repeat(100).getBytes());
+    Files.write(sourceDir.resolve("lib/excluded.txt"), "excluded".getBytes());
+    Files.write(sourceDir.resolve("shared.txt"), "from the source".getBytes());
+    Path source = projectDir.resolve("build/test/zips/source.zip");
+    new ZipBuilder(source).compressionLevel(1).fileSet(sourceDir).build();
+
+    Path dir = projectDir.resolve("build/test/zips/files");
+    Files.createDirectories(dir.resolve("lib"));
+    Files.write(dir.resolve("lib/main.txt"), "main".getBytes());
+    Files.write(dir.resolve("shared.txt"), "from the files".getBytes());
+
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    int count = new ZipBuilder(file).compressionLevel(9)
+                                    .fileSet(dir)
+                                    .zipSource(new ZipSource(source, null, asList(Pattern.compile("excluded"))))
+                                    .build();
+    assertEquals(count, 4);
+    assertZipFileEquals(file, "lib/library.txt", sourceDir.resolve("lib/library.txt"));
+    assertZipFileEquals(file, "lib/main.txt", dir.resolve("lib/main.txt"));
+    assertZipFileEquals(file, "shared.txt", dir.resolve("shared.txt"));
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file.toFile());
+         java.util.zip.ZipFile sourceFile = new java.util.zip.ZipFile(source.toFile())) {
+      assertNull(zipFile.getEntry("lib/excluded.txt"));
+      assertEquals(zipFile.getEntry("lib/library.txt").getCompressedSize(), sourceFile.getEntry("lib/library.txt").getCompressedSize());
+      assertEquals(zipFile.getEntry("lib/library.txt").getLastModifiedTime(), sourceFile.getEntry("lib/library.txt").getLastModifiedTime());
+    }
+
+    new ZipBuilder(file).duplicatePolicy(new DuplicatePolicy().rule("^shared", DuplicatePolicy.Strategy.LAST))
+                        .fileSet(dir)
+                        .zipSource(source)
+                        .build();
+    assertZipFileEquals(file, "shared.txt", sourceDir.resolve("shared.txt"));
+
+    try {
+      new ZipBuilder(file).duplicatePolicy(new DuplicatePolicy().strategy(DuplicatePolicy.Strategy.FAIL))
+                          .fileSet(dir)
+                          .zipSource(source)
+                          .build();
+      fail("Should have failed");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("[shared.txt]"));
+    }
+  }
+
+  @Test
+  public void buildParallel() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    Path sequential = projectDir.resolve("build/test/zips/sequential.zip");
+    new ZipBuilder(sequential).fileSet(projectDir.resolve("src/main/java"))
+                              .fileSet(projectDir.resolve("src/test/java"))
+                              .build();
+
+    Path parallel = projectDir.resolve("build/test/zips/parallel.zip");
+    int count = new ZipBuilder(parallel).parallelism(4)
+                                        .fileSet(projectDir.resolve("src/main/java"))
+                                        .fileSet(projectDir.resolve("src/test/java"))
+                                        .build();
+    assertZipFileEquals(parallel, "org/savantbuild/io/Copier.java", projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java"));
+    assertEquals(Files.readAllBytes(parallel), Files.readAllBytes(sequential));
+    assertEquals(count, 69);
+
+    // Pipelines with a small in-flight limit
+    Path pipelined = projectDir.resolve("build/test/zips/pipelined.zip");
+    new ZipBuilder(pipelined).prefetchThreads(2)
+                             .inFlightLimit(16 * 1024)
+                             .fileSet(projectDir.resolve("src/main/java"))
+                             .fileSet(projectDir.resolve("src/test/java"))
+                             .build();
+    assertEquals(Files.readAllBytes(pipelined), Files.readAllBytes(sequential));
+
+    new ZipBuilder(pipelined).prefetchThreads(2)
+                             .parallelism(4)
+                             .inFlightLimit(16 * 1024)
+                             .fileSet(projectDir.resolve("src/main/java"))
+                             .fileSet(projectDir.resolve("src/test/java"))
+                             .build();
+    assertEquals(Files.readAllBytes(pipelined), Files.readAllBytes(sequential));
+  }
+
+  @Test
+  public void buildStream() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test/zips"));
+
+    FileTime time = FileTime.fromMillis(1_500_000_000_000L);
+    Path file = projectDir.resolve("build/test/zips/test.zip");
+    new ZipBuilder(file).timestamp(time)
+                        .fileSet(projectDir.resolve("src/main/java"))
+                        .entry("bytes.txt", "bytes".getBytes())
+                        .build();
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    int count = new ZipBuilder().timestamp(time)
+                                .checksums(Checksum.SHA256)
+                                .fileSet(projectDir.resolve("src/main/java"))
+                                .entry("bytes.txt", "bytes".getBytes())
+                                .build(baos);
+    assertEquals(baos.toByteArray(), Files.readAllBytes(file));
+    assertEquals(count, 44);
+
+    // The channel is left open
+    Path channelFile = projectDir.resolve("build/test/zips/channel.zip");
+    try (FileChannel channel = FileChannel.open(channelFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      ZipBuilder builder = new ZipBuilder().timestamp(time)
+                                           .checksums(Checksum.SHA256)
+                                           .fileSet(projectDir.resolve("src/main/java"))
+                                           .entry("bytes.txt", "bytes".getBytes());
+      builder.build(channel);
+      assertTrue(channel.isOpen());
+      assertEquals(builder.digests.get(Checksum.SHA256), Checksum.compute(file, asList(Checksum.SHA256)).get(Checksum.SHA256));
+    }
+    assertEquals(Files.readAllBytes(channelFile), Files.readAllBytes(file));
+    assertFalse(Files.exists(Checksum.SHA256.sidecar(channelFile)));
+
+    // Nested into another archive without a temporary file
+    Path parent = projectDir.resolve("build/test/zips/parent.zip");
+    new ZipBuilder(parent).entry("nested.zip", baos.toByteArray()).build();
+    try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(parent.toFile())) {
+      assertEquals(zipFile.getInputStream(zipFile.getEntry("nested.zip")).readAllBytes(), Files.readAllBytes(file));
+    }
+
+    try {
+      new ZipBuilder().build();
+      fail("Should have failed");
+    } catch (IOException e) {
+      // Expected
+    }
   }
 
   @Test
@@ -153,7 +507,7 @@ public class ZipBuilderTest extends BaseUnitTest {
     assertZipContainsDirectory(file, "org/savantbuild/io/jar/", 0x755);
     assertZipContainsDirectory(file, "org/savantbuild/io/tar/", 0x755);
     assertZipContainsDirectory(file, "org/savantbuild/io/zip/", 0x755);
-    assertEquals(count, 33);
+    assertEquals(count, 69);
   }
 
   @Test
@@ -16,14 +16,43 @@
 package org.savantbuild.io.zip;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
 
+import org.savantbuild.io.ArchiveFileSet;
 import org.savantbuild.io.BaseUnitTest;
+import org.savantbuild.io.ChunkedFileCopier;
+import org.savantbuild.io.ExtractionManifest;
 import org.savantbuild.io.FileTools;
 import org.testng.annotations.Test;
 
+import static java.util.Arrays.asList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * Tests the Zip tools.
@@ -56,5 +85,304 @@ public class ZipToolsTest extends BaseUnitTest {
 
     // Do it again and ensure things don't blow up
     ZipTools.unzip(testFile, unzipDir);
+
+    // A file that was changed without changing its size is extracted again
+    Path changed = unzipDir.resolve("org/savantbuild/io/Copier.java");
+    Files.write(changed, new byte[(int) Files.size(changed)]);
+    ZipTools.unzip(testFile, unzipDir);
+    assertEquals(Files.readAllBytes(changed), Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java")));
+    assertTrue(Files.isRegularFile(BaseUnitTest.projectDir.resolve("build/test/unzip.extracted")));
+  }
+
+  @Test
+  public void unzipBatch() throws Exception {
+    FileTools.prune(BaseUnitTest.projectDir.resolve("build/test"));
+    Path main = BaseUnitTest.projectDir.resolve("build/test/main.zip");
+    new ZipBuilder(main).fileSet(BaseUnitTest.projectDir.resolve("src/main/java")).build();
+    Path test = BaseUnitTest.projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(test).fileSet(BaseUnitTest.projectDir.resolve("src/test/java")).build();
+
+    // A later archive replaces an entry of an earlier archive in the same directory
+    Path override = BaseUnitTest.projectDir.resolve("build/test/override.zip");
+    try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(override))) {
+      zos.putNextEntry(new ZipEntry("org/savantbuild/io/FileSet.java"));
+      zos.write("override".getBytes());
+      zos.closeEntry();
+    }
+
+    Path mainDir = BaseUnitTest.projectDir.resolve("build/test/unzip/main");
+    Path testDir = BaseUnitTest.projectDir.resolve("build/test/unzip/test");
+    Map<Path, Path> archives = new LinkedHashMap<>();
+    archives.put(main, mainDir);
+    archives.put(test, testDir);
+    archives.put(override, mainDir);
+    ZipTools.unzip(archives);
+    assertEquals(Files.readAllBytes(mainDir.resolve("org/savantbuild/io/FileSet.java")), "override".getBytes());
+    assertEquals(Files.readAllBytes(mainDir.resolve("org/savantbuild/io/Copier.java")),
+        Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java")));
+    assertDirectoryEquals(BaseUnitTest.projectDir.resolve("src/test/java"), testDir, null);
+    assertTrue(Files.isRegularFile(BaseUnitTest.projectDir.resolve("build/test/unzip/main.extracted")));
+    assertTrue(Files.isRegularFile(BaseUnitTest.projectDir.resolve("build/test/unzip/test.extracted")));
+
+    // In the other order, the entry of the later archive wins again
+    archives.clear();
+    archives.put(override, mainDir);
+    archives.put(main, mainDir);
+    ZipTools.unzip(archives);
+    assertEquals(Files.readAllBytes(mainDir.resolve("org/savantbuild/io/FileSet.java")),
+        Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java")));
+  }
+
+  @Test
+  public void unzipLargeStoredEntries() throws Exception {
+    FileTools.prune(BaseUnitTest.projectDir.resolve("build/test"));
+    Files.createDirectories(BaseUnitTest.projectDir.resolve("build/test"));
+
+    byte[] bytes = new byte[512 * 1024 + 3];
+    new Random(42).nextBytes(bytes);
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    Path testFile = BaseUnitTest.projectDir.resolve("build/test/stored.zip");
+    try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(testFile))) {
+      zos.putNextEntry(new ZipEntry("small.txt"));
+      zos.write("small".getBytes());
+      zos.closeEntry();
+
+      ZipEntry entry = new ZipEntry("large/blob.bin");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(bytes.length);
+      entry.setCrc(crc.getValue());
+      zos.putNextEntry(entry);
+      zos.write(bytes);
+      zos.closeEntry();
+    }
+
+    ChunkedFileCopier copier = new ChunkedFileCopier();
+    copier.threshold = 1024;
+    copier.chunkSize = 16 * 1024;
+
+    Path unzipDir = BaseUnitTest.projectDir.resolve("build/test/unzip");
+    ZipTools.unzip(testFile, unzipDir, copier);
+    assertEquals(Files.readAllBytes(unzipDir.resolve("large/blob.bin")), bytes);
+    assertEquals(Files.readAllBytes(unzipDir.resolve("small.txt")), "small".getBytes());
+
+    // Read-only entries get their mode after the copy
+    Path sourceDir = BaseUnitTest.projectDir.resolve("build/test/source");
+    Files.createDirectories(sourceDir);
+    Files.write(sourceDir.resolve("blob.bin"), bytes);
+    Path readOnlyFile = BaseUnitTest.projectDir.resolve("build/test/read-only.zip");
+    new ZipBuilder(readOnlyFile).fileSet(new ArchiveFileSet(sourceDir, "", 0x444, null, null, null, null, null, null, null))
+                                .compressionPolicy(new CompressionPolicy().rule(".*", 0))
+                                .build();
+
+    Path readOnlyDir = BaseUnitTest.projectDir.resolve("build/test/read-only");
+    ZipTools.unzip(readOnlyFile, readOnlyDir, copier);
+    assertEquals(Files.readAllBytes(readOnlyDir.resolve("blob.bin")), bytes);
+    assertEquals(Files.getPosixFilePermissions(readOnlyDir.resolve("blob.bin")), PosixFilePermissions.fromString("r--r--r--"));
+
+    // Corrupt entries fail the CRC check
+    byte[] zip = Files.readAllBytes(testFile);
+    int offset = indexOf(zip, Arrays.copyOf(bytes, 64));
+    zip[offset + 1024] ^= 1;
+    Files.write(testFile, zip);
+    try {
+      ZipTools.unzip(testFile, BaseUnitTest.projectDir.resolve("build/test/corrupt"), copier);
+      fail("Should have failed");
+    } catch (ZipException e) {
+      assertEquals(e.getMessage(), "Invalid CRC for the entry [large/blob.bin]");
+    }
+  }
+
+  @Test
+  public void unzipPatterns() throws Exception {
+    FileTools.prune(BaseUnitTest.projectDir.resolve("build/test"));
+    Path testFile = BaseUnitTest.projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(testFile).fileSet(BaseUnitTest.projectDir.resolve("src/main/java")).build();
+
+    Path unzipDir = BaseUnitTest.projectDir.resolve("build/test/unzip");
+    ZipTools.unzip(testFile, unzipDir, asList(Pattern.compile("^org/savantbuild/io/zip/")), asList(Pattern.compile("Zip.*\\.java$")));
+    assertTrue(Files.isRegularFile(unzipDir.resolve("org/savantbuild/io/zip/CompressionPolicy.java")));
+    assertEquals(Files.readAllBytes(unzipDir.resolve("org/savantbuild/io/zip/CompressionPolicy.java")),
+        Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/zip/CompressionPolicy.java")));
+    assertFalse(Files.exists(unzipDir.resolve("org/savantbuild/io/zip/ZipTools.java")));
+    assertFalse(Files.exists(unzipDir.resolve("org/savantbuild/io/FileSet.java")));
+    assertFalse(Files.exists(unzipDir.resolve("org/savantbuild/io/jar")));
+  }
+
+  @Test
+  public void unzipStream() throws Exception {
+    FileTools.prune(BaseUnitTest.projectDir.resolve("build/test"));
+    Path testFile = BaseUnitTest.projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(testFile).fileSet(BaseUnitTest.projectDir.resolve("src/main/java"))
+                            .fileSet(new ArchiveFileSet(BaseUnitTest.projectDir.resolve("src/test/java"), "stored"))
+                            .compressionPolicy(new CompressionPolicy().rule("^stored/", 0))
+                            .build();
+
+    Path unzipDir = BaseUnitTest.projectDir.resolve("build/test/unzip");
+    try (InputStream is = Files.newInputStream(testFile)) {
+      ZipTools.unzip(is, unzipDir);
+    }
+    assertDirectoryEquals(BaseUnitTest.projectDir.resolve("src/main/java"), unzipDir, unzipDir.resolve("stored"));
+    assertDirectoryEquals(BaseUnitTest.projectDir.resolve("src/test/java"), unzipDir.resolve("stored"), null);
+
+    // Data descriptors written by the JDK
+    Path jdkFile = BaseUnitTest.projectDir.resolve("build/test/jdk.zip");
+    try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(jdkFile))) {
+      zos.putNextEntry(new ZipEntry("dir/"));
+      zos.closeEntry();
+      for (String name : asList("FileSet.java", "Copier.java")) {
+        zos.putNextEntry(new ZipEntry("dir/" + name));
+        zos.write(Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/" + name)));
+        zos.closeEntry();
+      }
+    }
+
+    FileTools.prune(unzipDir);
+    try (FileChannel channel = FileChannel.open(jdkFile, StandardOpenOption.READ)) {
+      ZipTools.unzip(channel, unzipDir);
+    }
+    assertEquals(Files.readAllBytes(unzipDir.resolve("dir/FileSet.java")), Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/FileSet.java")));
+    assertEquals(Files.readAllBytes(unzipDir.resolve("dir/Copier.java")), Files.readAllBytes(BaseUnitTest.projectDir.resolve("src/main/java/org/savantbuild/io/Copier.java")));
+  }
+
+  @Test
+  public void unzipTimes() throws Exception {
+    FileTools.prune(projectDir.resolve("build/test"));
+    FileTime timestamp = FileTime.from(Instant.parse("2020-02-03T04:05:06Z"));
+    Path testFile = projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(testFile).fileSet(projectDir.resolve("src/main/java")).timestamp(timestamp).build();
+
+    Path unzipDir = projectDir.resolve("build/test/unzip");
+    ZipTools.unzip(testFile, unzipDir);
+    assertEquals(Files.getLastModifiedTime(unzipDir.resolve("org/savantbuild/io/FileSet.java")), timestamp);
+    assertEquals(Files.getLastModifiedTime(unzipDir.resolve("org/savantbuild/io/zip")), timestamp);
+
+    // The manifest records the restored times, so the files are unchanged the next time
+    Path manifest = projectDir.resolve("build/test/unzip.extracted");
+    Files.setLastModifiedTime(manifest, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+    BasicFileAttributes attributes = Files.readAttributes(unzipDir.resolve("org/savantbuild/io/FileSet.java"), BasicFileAttributes.class);
+    try (ArchiveView view = ArchiveView.open(testFile)) {
+      String name = "org/savantbuild/io/FileSet.java";
+      assertTrue(ExtractionManifest.load(unzipDir).unchanged(name, attributes, view.crc(name), view.size(name)));
+    }
+    ZipTools.unzip(testFile, unzipDir);
+    assertEquals(Files.getLastModifiedTime(unzipDir.resolve("org/savantbuild/io/zip")), timestamp);
+
+    // Streams use the times of the local headers
+    Path streamDir = projectDir.resolve("build/test/stream");
+    try (InputStream is = Files.newInputStream(testFile)) {
+      ZipTools.unzip(is, streamDir);
+    }
+    assertEquals(Files.getLastModifiedTime(streamDir.resolve("org/savantbuild/io/FileSet.java")), timestamp);
+
+    // Entries without an extended timestamp use the DOS time
+    long dosTime = LocalDateTime.of(2019, 5, 6, 7, 8, 10).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    Path dosFile = projectDir.resolve("build/test/dos.zip");
+    try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(dosFile))) {
+      ZipEntry entry = new ZipEntry("dir/file.txt");
+      entry.setTime(dosTime);
+      zos.putNextEntry(entry);
+      zos.write("contents".getBytes());
+      zos.closeEntry();
+    }
+
+    Path dosDir = projectDir.resolve("build/test/dos");
+    ZipTools.unzip(dosFile, dosDir);
+    assertEquals(Files.getLastModifiedTime(dosDir.resolve("dir/file.txt")).toMillis(), dosTime);
+  }
+
+  @Test
+  public void unzipParallel() throws Exception {
+    FileTools.prune(BaseUnitTest.projectDir.resolve("build/test"));
+    Path testFile = BaseUnitTest.projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(testFile).fileSet(BaseUnitTest.projectDir.resolve("src/main/java"))
+                            .fileSet(new ArchiveFileSet(BaseUnitTest.projectDir.resolve("src/test/java"), "stored").withMode(0x755))
+                            .compressionPolicy(new CompressionPolicy().rule("^stored/.*Test\\.java$", 0))
+                            .build();
+
+    Path unzipDir = BaseUnitTest.projectDir.resolve("build/test/unzip");
+    ZipTools.unzip(testFile, unzipDir, 4);
+    assertDirectoryEquals(BaseUnitTest.projectDir.resolve("src/main/java"), unzipDir, unzipDir.resolve("stored"));
+    assertDirectoryEquals(BaseUnitTest.projectDir.resolve("src/test/java"), unzipDir.resolve("stored"), null);
+    assertEquals(Files.getPosixFilePermissions(unzipDir.resolve("stored/org/savantbuild/io/zip/ZipToolsTest.java")), FileTools.toPosixPermissions(0755));
+
+    // Do it again and ensure things don't blow up
+    ZipTools.unzip(testFile, unzipDir, 4);
+    assertDirectoryEquals(BaseUnitTest.projectDir.resolve("src/main/java"), unzipDir, unzipDir.resolve("stored"));
+  }
+
+  @Test
+  public void unzipParallelFailure() throws Exception {
+    FileTools.prune(BaseUnitTest.projectDir.resolve("build/test"));
+    Path testFile = BaseUnitTest.projectDir.resolve("build/test/test.zip");
+    new ZipBuilder(testFile).fileSet(BaseUnitTest.projectDir.resolve("src/main/java"))
+                            .compressionLevel(0)
+                            .build();
+
+    // Corrupt the data of two entries so that their CRCs don't match
+    List<RawZipEntry> corrupted = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(testFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      List<RawZipEntry> files = new ArrayList<>();
+      ZipCentralDirectory.read(channel).forEach((entry) -> {
+        if (!entry.isDirectory()) {
+          files.add(entry);
+        }
+      });
+
+      corrupted.add(files.get(3));
+      corrupted.add(files.get(files.size() - 2));
+      for (RawZipEntry entry : corrupted) {
+        long position = ZipCentralDirectory.dataOffset(channel, entry);
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        buffer.put(0, (byte) ~buffer.get(0)).rewind();
+        channel.write(buffer, position);
+      }
+    }
+
+    Path unzipDir = BaseUnitTest.projectDir.resolve("build/test/unzip");
+    for (int i = 0; i < 5; i++) {
+      FileTools.prune(unzipDir);
+      try {
+        ZipTools.unzip(testFile, unzipDir, 8);
+        fail("Should have failed");
+      } catch (ZipException e) {
+        assertEquals(e.getMessage(), "Invalid CRC for the entry [" + corrupted.get(0).name + "]");
+        assertFalse(Files.exists(unzipDir.resolve(corrupted.get(0).name)));
+      }
+    }
+  }
+
+  private void assertDirectoryEquals(Path expected, Path actual, Path skip) throws IOException {
+    try (Stream<Path> files = Files.walk(actual)) {
+      files.filter(Files::isRegularFile).filter((file) -> skip == null || !file.startsWith(skip)).forEach((file) -> {
+        Path source = expected.resolve(actual.relativize(file).toString());
+        try {
+          assertEquals(Files.readAllBytes(file), Files.readAllBytes(source), "Files aren't equal [" + source + "] and [" + file + "]");
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      });
+    }
+
+    try (Stream<Path> files = Files.walk(expected)) {
+      assertEquals(files.filter(Files::isRegularFile).count(), countFiles(actual, skip));
+    }
+  }
+
+  private long countFiles(Path dir, Path skip) throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      return files.filter(Files::isRegularFile).filter((file) -> skip == null || !file.startsWith(skip)).count();
+    }
+  }
+
+  private static int indexOf(byte[] bytes, byte[] sequence) {
+    for (int i = 0; i <= bytes.length - sequence.length; i++) {
+      if (Arrays.equals(bytes, i, i + sequence.length, sequence, 0, sequence.length)) {
+        return i;
+      }
+    }
+    return -1;
   }
 }